@@ -0,0 +1,45 @@
+package benchmarks;
+
+import automaton.FiniteAutomaton;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutomatonBenchmark {
+    @Param({"8", "64", "512"})
+    public int states;
+
+    @Param({"16", "1024"})
+    public int wordLength;
+
+    @Param("42")
+    public long seed;
+
+    private FiniteAutomaton automaton;
+    private String word;
+
+    @Setup
+    public void setUp() {
+        this.automaton = Generators.randomAutomaton(this.states, 4, 3, 0.1, this.seed);
+        this.word = Generators.randomWalk(this.automaton, this.wordLength, this.seed);
+        // Compile outside of the measurement
+        this.automaton.isWordValid("");
+    }
+
+    @Benchmark
+    public boolean isWordValid() {
+        return this.automaton.isWordValid(this.word);
+    }
+
+    @Benchmark
+    public Set<String> epsilonClosure() {
+        return this.automaton.epsilonClosure(this.automaton.getInitialState());
+    }
+}
@@ -0,0 +1,35 @@
+package benchmarks;
+
+import automaton.FiniteAutomaton;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeterminizationBenchmark {
+    @Param({"8", "16", "32"})
+    public int states;
+
+    @Param("42")
+    public long seed;
+
+    private FiniteAutomaton automaton;
+
+    @Setup
+    public void setUp() {
+        this.automaton = Generators.randomAutomaton(this.states, 2, 2, 0.05, this.seed);
+    }
+
+    @Benchmark
+    public FiniteAutomaton convertToDFA() {
+        // A fresh copy, so that compiling the automaton is part of the measurement
+        FiniteAutomaton copy = new FiniteAutomaton(this.automaton.getStates(), this.automaton.getAlphabet(),
+                this.automaton.getTransitions(), this.automaton.getInitialState(), this.automaton.getFinalStates());
+        return copy.convertToDFA();
+    }
+}
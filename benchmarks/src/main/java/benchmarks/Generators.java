@@ -0,0 +1,253 @@
+package benchmarks;
+
+import automaton.FiniteAutomaton;
+import automaton.Transition;
+import grammar.Grammar;
+import grammar.Production;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Seeded generators for synthetic benchmark inputs, so every run measures exactly the same data
+public final class Generators {
+    // 'e' is left out on purpose: the automata treat an "e" label as an epsilon transition
+    private static final String SYMBOLS = "abcdfghijklmnopqrstuvwxyz";
+    private static final String NON_TERMINALS = "SABCDEFGHIJKL";
+
+    private Generators() {}
+
+    // Random NFA with roughly transitionsPerState labelled transitions per state, a share of epsilon
+    // transitions and about one final state in ten
+    public static FiniteAutomaton randomAutomaton(int stateCount, int symbolCount, int transitionsPerState,
+                                                  double epsilonRatio, long seed) {
+        Random random = new Random(seed);
+        String[] states = new String[stateCount];
+        for (int i = 0; i < stateCount; i++) {
+            states[i] = "q" + i;
+        }
+        String[] alphabet = new String[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            alphabet[i] = String.valueOf(SYMBOLS.charAt(i));
+        }
+
+        List<Transition> transitions = new ArrayList<>();
+        for (int i = 0; i < stateCount; i++) {
+            for (int j = 0; j < transitionsPerState; j++) {
+                String label = random.nextDouble() < epsilonRatio
+                        ? "e"
+                        : alphabet[random.nextInt(symbolCount)];
+                transitions.add(new Transition(states[i], label, states[random.nextInt(stateCount)]));
+            }
+        }
+
+        List<String> finalStates = new ArrayList<>();
+        for (String state : states) {
+            if (random.nextInt(10) == 0) {
+                finalStates.add(state);
+            }
+        }
+        if (finalStates.isEmpty()) {
+            finalStates.add(states[stateCount - 1]);
+        }
+
+        return new FiniteAutomaton(states, alphabet, transitions.toArray(new Transition[0]), states[0],
+                finalStates.toArray(new String[0]));
+    }
+
+    // Word built by a random walk over the transitions, so that it is not rejected after a few characters
+    public static String randomWalk(FiniteAutomaton automaton, int length, long seed) {
+        Random random = new Random(seed);
+        Transition[] transitions = automaton.getTransitions();
+        String[] alphabet = automaton.getAlphabet();
+        StringBuilder word = new StringBuilder(length);
+        String state = automaton.getInitialState();
+
+        while (word.length() < length) {
+            List<Transition> outgoing = new ArrayList<>();
+            for (Transition t : transitions) {
+                if (t.getCurrentState().equals(state) && !t.getTransitionLabel().equals("e")) {
+                    outgoing.add(t);
+                }
+            }
+            if (outgoing.isEmpty()) {
+                word.append(alphabet[random.nextInt(alphabet.length)]);
+                state = automaton.getInitialState();
+                continue;
+            }
+            Transition t = outgoing.get(random.nextInt(outgoing.size()));
+            word.append(t.getTransitionLabel());
+            state = t.getNextState();
+        }
+        return word.toString();
+    }
+
+    // Right-linear grammar with single letter non-terminals, every one of them able to terminate
+    public static Grammar randomRegularGrammar(int nonTerminalCount, int productionsPerNonTerminal, long seed) {
+        Random random = new Random(seed);
+        String[] nonTerminals = new String[Math.min(nonTerminalCount, NON_TERMINALS.length())];
+        for (int i = 0; i < nonTerminals.length; i++) {
+            nonTerminals[i] = String.valueOf(NON_TERMINALS.charAt(i));
+        }
+        String[] terminals = {"a", "b", "c", "d"};
+
+        List<Production> productions = new ArrayList<>();
+        for (String nonTerminal : nonTerminals) {
+            productions.add(new Production(nonTerminal, terminals[random.nextInt(terminals.length)]));
+            for (int i = 1; i < productionsPerNonTerminal; i++) {
+                productions.add(new Production(nonTerminal, terminals[random.nextInt(terminals.length)]
+                        + nonTerminals[random.nextInt(nonTerminals.length)]));
+            }
+        }
+        return new Grammar(nonTerminals, terminals, productions.toArray(new Production[0]), nonTerminals[0]);
+    }
+
+    // Small context-free grammar: single letter symbols, one epsilon production, and right-hand sides of
+    // up to three symbols
+    public static Grammar randomContextFreeGrammar(int productionCount, long seed) {
+        Random random = new Random(seed);
+        String[] nonTerminals = NON_TERMINALS.substring(0, 6).split("");
+        String[] terminals = {"a", "b"};
+
+        List<Production> productions = new ArrayList<>();
+        for (String nonTerminal : nonTerminals) {
+            productions.add(new Production(nonTerminal, terminals[random.nextInt(terminals.length)]));
+        }
+        productions.add(new Production(nonTerminals[nonTerminals.length - 1], "ε"));
+        while (productions.size() < productionCount) {
+            StringBuilder rightSide = new StringBuilder();
+            int length = 1 + random.nextInt(3);
+            for (int i = 0; i < length; i++) {
+                rightSide.append(random.nextInt(3) == 0
+                        ? terminals[random.nextInt(terminals.length)]
+                        : nonTerminals[random.nextInt(nonTerminals.length)]);
+            }
+            productions.add(new Production(nonTerminals[random.nextInt(nonTerminals.length)], rightSide.toString()));
+        }
+        return new Grammar(nonTerminals, terminals, productions.toArray(new Production[0]), nonTerminals[0]);
+    }
+
+    // Context-free grammar over the non-terminals A0, A1, ...: every one has a terminal production and one
+    // in eight an epsilon production, the rest are right-hand sides of two to four symbols
+    public static Grammar randomContextFreeGrammar(int nonTerminalCount, int productionCount, long seed) {
+        Random random = new Random(seed);
+        String[] nonTerminals = new String[nonTerminalCount];
+        for (int i = 0; i < nonTerminalCount; i++) {
+            nonTerminals[i] = "A" + i;
+        }
+        String[] terminals = {"a", "b", "c", "d"};
+
+        List<Production> productions = new ArrayList<>();
+        for (int i = 0; i < nonTerminalCount; i++) {
+            productions.add(new Production(nonTerminals[i], terminals[random.nextInt(terminals.length)]));
+            if (i % 8 == 7) {
+                productions.add(new Production(nonTerminals[i], "ε"));
+            }
+        }
+        while (productions.size() < productionCount) {
+            StringBuilder rightSide = new StringBuilder();
+            int length = 2 + random.nextInt(3);
+            for (int i = 0; i < length; i++) {
+                rightSide.append(random.nextInt(3) == 0
+                        ? terminals[random.nextInt(terminals.length)]
+                        : nonTerminals[random.nextInt(nonTerminalCount)]);
+            }
+            productions.add(new Production(nonTerminals[random.nextInt(nonTerminalCount)], rightSide.toString()));
+        }
+        return new Grammar(nonTerminals, terminals, productions.toArray(new Production[0]), nonTerminals[0]);
+    }
+
+    // E -> TX, X -> +TX | ε, T -> FY, Y -> *FY | ε, F -> (E) | a: arithmetic expressions, LL(1)
+    public static Grammar expressionGrammar() {
+        return new Grammar(
+                new String[]{"E", "X", "T", "Y", "F"},
+                new String[]{"+", "*", "(", ")", "a"},
+                new Production[]{
+                        new Production("E", "TX"),
+                        new Production("X", "+TX"),
+                        new Production("X", "ε"),
+                        new Production("T", "FY"),
+                        new Production("Y", "*FY"),
+                        new Production("Y", "ε"),
+                        new Production("F", "(E)"),
+                        new Production("F", "a")
+                },
+                "E"
+        );
+    }
+
+    // E -> E+T | T, T -> T*F | F, F -> (E) | a: the same language, left-recursive, LALR(1)
+    public static Grammar leftRecursiveExpressionGrammar() {
+        return new Grammar(
+                new String[]{"E", "T", "F"},
+                new String[]{"+", "*", "(", ")", "a"},
+                new Production[]{
+                        new Production("E", "E+T"),
+                        new Production("E", "T"),
+                        new Production("T", "T*F"),
+                        new Production("T", "F"),
+                        new Production("F", "(E)"),
+                        new Production("F", "a")
+                },
+                "E"
+        );
+    }
+
+    // a^n b^n in Chomsky normal form: S -> AB | AC, C -> SB, A -> a, B -> b
+    public static Grammar chomskyNormalFormGrammar() {
+        return new Grammar(
+                new String[]{"S", "A", "B", "C"},
+                new String[]{"a", "b"},
+                new Production[]{
+                        new Production("S", "AB"),
+                        new Production("S", "AC"),
+                        new Production("C", "SB"),
+                        new Production("A", "a"),
+                        new Production("B", "b")
+                },
+                "S"
+        );
+    }
+
+    // Word of expressionGrammar and leftRecursiveExpressionGrammar with at least the given length
+    public static String randomExpression(int length, long seed) {
+        Random random = new Random(seed);
+        StringBuilder expression = new StringBuilder(length + 16);
+        int open = 0;
+        while (expression.length() < length || open > 0) {
+            if (expression.length() < length && random.nextInt(4) == 0) {
+                expression.append('(');
+                open++;
+                continue;
+            }
+            expression.append('a');
+            if (open > 0 && (expression.length() >= length || random.nextInt(3) == 0)) {
+                expression.append(')');
+                open--;
+            }
+            if (expression.length() < length || open > 0) {
+                expression.append(random.nextBoolean() ? '+' : '*');
+            }
+        }
+        return expression.toString();
+    }
+
+    // Source text in the lexer's language with roughly the given number of statements
+    public static String randomProgram(int statementCount, long seed) {
+        Random random = new Random(seed);
+        StringBuilder program = new StringBuilder();
+        for (int i = 0; i < statementCount; i++) {
+            String variable = "v" + random.nextInt(100);
+            switch (random.nextInt(4)) {
+                case 0 -> program.append(variable).append(" = ").append(random.nextInt(1000))
+                        .append(" + ").append("v").append(random.nextInt(100)).append(";\n");
+                case 1 -> program.append("print ").append(variable).append(";\n");
+                case 2 -> program.append("if (").append(variable).append(" == ").append(random.nextInt(10))
+                        .append(") { return true; } else { return false; }\n");
+                default -> program.append("while (").append(variable).append(" < 10) { print \"loop\"; ")
+                        .append(variable).append("++; }\n");
+            }
+        }
+        return program.toString();
+    }
+}
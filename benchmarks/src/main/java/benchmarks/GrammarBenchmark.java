@@ -0,0 +1,154 @@
+package benchmarks;
+
+import grammar.CYKParser;
+import grammar.EarleyParser;
+import grammar.Grammar;
+import grammar.LALRParser;
+import grammar.LL1Parser;
+import grammar.ParseForest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GrammarBenchmark {
+    @State(Scope.Benchmark)
+    public static class RegularGrammar {
+        @Param({"4", "12"})
+        public int nonTerminals;
+
+        @Param("42")
+        public long seed;
+
+        private Grammar grammar;
+
+        @Setup
+        public void setUp() {
+            this.grammar = Generators.randomRegularGrammar(this.nonTerminals, 3, this.seed);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ContextFreeGrammar {
+        @Param({"10", "40"})
+        public int productions;
+
+        @Param("42")
+        public long seed;
+
+        private Grammar grammar;
+
+        @Setup
+        public void setUp() {
+            this.grammar = Generators.randomContextFreeGrammar(this.productions, this.seed);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LargeContextFreeGrammar {
+        @Param({"1000", "10000"})
+        public int productions;
+
+        @Param("42")
+        public long seed;
+
+        private Grammar grammar;
+
+        @Setup
+        public void setUp() {
+            this.grammar = Generators.randomContextFreeGrammar(this.productions / 10, this.productions, this.seed);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Expression {
+        @Param({"1000", "100000"})
+        public int length;
+
+        @Param("42")
+        public long seed;
+
+        private LL1Parser ll1Parser;
+        private LALRParser lalrParser;
+        private EarleyParser earleyParser;
+        // Both grammars declare their terminals in the same order, so the token ids are shared
+        private int[] tokens;
+
+        @Setup
+        public void setUp() {
+            this.ll1Parser = new LL1Parser(Generators.expressionGrammar());
+            this.lalrParser = new LALRParser(Generators.leftRecursiveExpressionGrammar());
+            this.earleyParser = new EarleyParser(Generators.leftRecursiveExpressionGrammar());
+            String word = Generators.randomExpression(this.length, this.seed);
+            this.tokens = new int[word.length()];
+            for (int i = 0; i < word.length(); i++) {
+                this.tokens[i] = this.ll1Parser.terminalId(String.valueOf(word.charAt(i)));
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ChomskyNormalForm {
+        @Param({"100", "500"})
+        public int length;
+
+        private CYKParser cykParser;
+        private String word;
+
+        @Setup
+        public void setUp() {
+            this.cykParser = new CYKParser(Generators.chomskyNormalFormGrammar());
+            this.word = "a".repeat(this.length / 2) + "b".repeat(this.length / 2);
+        }
+    }
+
+    @Benchmark
+    public String generateWord(RegularGrammar state) {
+        return state.grammar.generateWord();
+    }
+
+    // 10000 seeded words per operation, generated in parallel
+    @Benchmark
+    public long generateWords(RegularGrammar state) {
+        return state.grammar.generateWords(10000, state.seed).mapToLong(String::length).sum();
+    }
+
+    @Benchmark
+    public Grammar convertToChomskyNormalForm(ContextFreeGrammar state) {
+        return state.grammar.toChomskyNormalForm();
+    }
+
+    @Benchmark
+    public Grammar convertLargeToChomskyNormalForm(LargeContextFreeGrammar state) {
+        return state.grammar.toChomskyNormalForm();
+    }
+
+    @Benchmark
+    public int[] ll1Parse(Expression state) {
+        return state.ll1Parser.parse(state.tokens);
+    }
+
+    @Benchmark
+    public int[] lalrParse(Expression state) {
+        return state.lalrParser.parse(state.tokens);
+    }
+
+    @Benchmark
+    public boolean cykAccepts(ChomskyNormalForm state) {
+        return state.cykParser.accepts(state.word);
+    }
+
+    @Benchmark
+    public boolean earleyAccepts(Expression state) {
+        return state.earleyParser.accepts(state.tokens);
+    }
+
+    @Benchmark
+    public ParseForest earleyParse(Expression state) {
+        return state.earleyParser.parse(state.tokens);
+    }
+}
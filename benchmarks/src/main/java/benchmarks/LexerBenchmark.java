@@ -0,0 +1,58 @@
+package benchmarks;
+
+import lexer.Lexer;
+import lexer.Token;
+import lexer.TokenStream;
+import lexer.TokenType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int statements;
+
+    @Param("42")
+    public long seed;
+
+    private String program;
+
+    @Setup
+    public void setUp() {
+        this.program = Generators.randomProgram(this.statements, this.seed);
+    }
+
+    @Benchmark
+    public List<Token> tokenize() {
+        return new Lexer(this.program).tokenize();
+    }
+
+    @Benchmark
+    public List<Token> tokenizeParallel() {
+        return new Lexer(this.program).tokenizeParallel();
+    }
+
+    @Benchmark
+    public TokenStream tokenizeCompact() {
+        return new Lexer(this.program).tokenizeCompact(true);
+    }
+
+    @Benchmark
+    public void nextTokenFromReader(Blackhole blackhole) {
+        Lexer lexer = new Lexer(new StringReader(this.program));
+        Token token;
+        do {
+            token = lexer.nextToken();
+            blackhole.consume(token);
+        } while (token.getType() != TokenType.END_OF_INPUT);
+    }
+}
@@ -0,0 +1,75 @@
+package benchmarks;
+
+import lexer.Lexer;
+import org.openjdk.jmh.annotations.*;
+import parser.FlatAst;
+import parser.IncrementalParser;
+import parser.Parser;
+import parser.ast.Program;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    private static final String INSERTED_STATEMENT = "inserted = 1 + 2;\n";
+
+    @Param({"100", "1000", "10000"})
+    public int statements;
+
+    @Param("42")
+    public long seed;
+
+    private String program;
+    private IncrementalParser incremental;
+    private int digitOffset;
+    private int statementOffset;
+    private int edits;
+
+    @Setup
+    public void setUp() {
+        this.program = Generators.randomProgram(this.statements, this.seed);
+        this.incremental = new IncrementalParser(this.program);
+        this.edits = 0;
+        // A digit in the middle of the program, rewritten by every incremental edit
+        this.digitOffset = this.program.length() / 2;
+        while (!Character.isDigit(this.program.charAt(this.digitOffset))) {
+            this.digitOffset++;
+        }
+        // A statement start in the middle of the program, where a statement is inserted and deleted
+        this.statementOffset = this.program.indexOf('\n', this.program.length() / 2) + 1;
+    }
+
+    @Benchmark
+    public Program parse() {
+        return new Parser(new Lexer(this.program)).parse();
+    }
+
+    @Benchmark
+    public FlatAst parseFlat() {
+        return new Parser(new Lexer(this.program)).parseFlat();
+    }
+
+    @Benchmark
+    public Program parseWithRecovery() {
+        return new Parser(new Lexer(this.program)).parseWithRecovery();
+    }
+
+    @Benchmark
+    public Program incrementalEdit() {
+        String digit = String.valueOf((char) ('1' + this.edits++ % 9));
+        return this.incremental.edit(this.digitOffset, 1, digit);
+    }
+
+    // Inserts a statement on even calls and deletes it on odd ones, so every edit changes the text length
+    @Benchmark
+    public Program incrementalInsertDelete() {
+        return this.edits++ % 2 == 0
+                ? this.incremental.edit(this.statementOffset, 0, INSERTED_STATEMENT)
+                : this.incremental.edit(this.statementOffset, INSERTED_STATEMENT.length(), "");
+    }
+}
@@ -0,0 +1,143 @@
+package automaton;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+// Reusable, single-threaded matching state over a CompiledAutomaton.
+// All scratch space is allocated once, so matching words does not allocate.
+// Input can be fed in chunks, which allows matching streams that never fit in memory.
+public class AutomatonMatcher {
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final CompiledAutomaton automaton;
+    private final int symbolCount;
+
+    // Deterministic mode: the current state, -1 once the input is rejected
+    private int dfaState;
+
+    // Nondeterministic mode: active states as a bitset, advanced with the precomputed successor masks
+    private long[] current;
+    private long[] next;
+    private boolean alive;
+
+    private char[] readBuffer;
+
+    AutomatonMatcher(CompiledAutomaton automaton) {
+        this.automaton = automaton;
+        this.symbolCount = automaton.getSymbolCount();
+        if (!automaton.isDeterministic()) {
+            this.current = new long[automaton.stateWords()];
+            this.next = new long[automaton.stateWords()];
+        }
+        reset();
+    }
+
+    public AutomatonMatcher reset() {
+        if (this.current == null) {
+            this.dfaState = this.automaton.initialStates()[0];
+        } else {
+            System.arraycopy(this.automaton.initialMask(), 0, this.current, 0, this.current.length);
+            this.alive = true;
+        }
+        return this;
+    }
+
+    // Consumes one character, returns false once no continuation can be accepted
+    public boolean step(char c) {
+        int symbol = this.automaton.symbolOf(c);
+
+        if (this.current == null) {
+            if (this.dfaState < 0) {
+                return false;
+            }
+            this.dfaState = symbol < 0 ? -1 : this.automaton.dfaTable()[this.dfaState * this.symbolCount + symbol];
+            return this.dfaState >= 0;
+        }
+
+        if (!this.alive) {
+            return false;
+        }
+        this.alive = this.automaton.step(this.current, this.next, symbol);
+        long[] swap = this.current;
+        this.current = this.next;
+        this.next = swap;
+        return this.alive;
+    }
+
+    public boolean isAccepting() {
+        if (this.current == null) {
+            return this.dfaState >= 0 && this.automaton.isAccepting(this.dfaState);
+        }
+        return this.alive && Bitsets.intersects(this.current, this.automaton.acceptingMask());
+    }
+
+    // False once the input seen so far can no longer be extended to an accepted word
+    public boolean isAlive() {
+        return this.current == null ? this.dfaState >= 0 : this.alive;
+    }
+
+    public boolean matches(CharSequence word) {
+        return reset().feed(word) && isAccepting();
+    }
+
+    // The feed methods consume one chunk of a longer input and keep the state for the next chunk.
+    // They return isAlive() and stop consuming as soon as the input is rejected.
+    public boolean feed(CharSequence chunk) {
+        for (int i = 0; i < chunk.length(); i++) {
+            if (!step(chunk.charAt(i))) {
+                return false;
+            }
+        }
+        return isAlive();
+    }
+
+    public boolean feed(char[] chunk, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (!step(chunk[i])) {
+                return false;
+            }
+        }
+        return isAlive();
+    }
+
+    public boolean feed(CharBuffer chunk) {
+        if (chunk.hasArray()) {
+            int start = chunk.arrayOffset() + chunk.position();
+            int length = chunk.remaining();
+            chunk.position(chunk.limit());
+            return feed(chunk.array(), start, length);
+        }
+        while (chunk.hasRemaining()) {
+            if (!step(chunk.get())) {
+                return false;
+            }
+        }
+        return isAlive();
+    }
+
+    // Every byte is one character (ISO-8859-1), which suits ASCII logs and sequences in mapped files
+    public boolean feed(ByteBuffer chunk) {
+        while (chunk.hasRemaining()) {
+            if (!step((char) (chunk.get() & 0xFF))) {
+                return false;
+            }
+        }
+        return isAlive();
+    }
+
+    // Reads the rest of the reader through a reused buffer, without materializing the input
+    public boolean feed(Reader reader) throws IOException {
+        if (this.readBuffer == null) {
+            this.readBuffer = new char[READ_BUFFER_SIZE];
+        }
+        int read;
+        while ((read = reader.read(this.readBuffer)) >= 0) {
+            if (!feed(this.readBuffer, 0, read)) {
+                return false;
+            }
+        }
+        return isAlive();
+    }
+}
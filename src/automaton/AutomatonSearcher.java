@@ -0,0 +1,175 @@
+package automaton;
+
+import java.util.Arrays;
+
+// Searches a text for words accepted by a CompiledAutomaton instead of matching the whole input.
+// Results are primitive arrays of offsets; leftmost-longest matches are packed into one long each,
+// use matchStart and matchEnd to unpack them. Instances are not thread-safe.
+public class AutomatonSearcher {
+    public static final long DEFAULT_MEMORY_BUDGET = 8L << 20;
+
+    private final CompiledAutomaton automaton;
+    private final LazyDfa scanner;
+
+    // States that reach a state on a symbol: reverseSources[reverseOffsets[row]..reverseOffsets[row + 1])
+    // for row = state * symbolCount + symbol
+    private final int[] reverseOffsets;
+    private final int[] reverseSources;
+    private final int[] acceptingStates;
+
+    // Leftmost-longest search state: states from which a prefix of the rest of the text is accepted, with
+    // the end of the longest such prefix
+    private int[] live;
+    private int[] nextLive;
+    private int[] longest;
+    private int[] nextLongest;
+    private final int[] marks;
+    private int generation;
+
+    public AutomatonSearcher(CompiledAutomaton automaton) {
+        this(automaton, DEFAULT_MEMORY_BUDGET);
+    }
+
+    public AutomatonSearcher(CompiledAutomaton automaton, long memoryBudgetBytes) {
+        this.automaton = automaton;
+        this.scanner = new LazyDfa(automaton, memoryBudgetBytes, true);
+        int stateCount = automaton.getStateCount();
+        int symbolCount = automaton.getSymbolCount();
+        int[] rowOffsets = automaton.rowOffsets();
+        int[] rowTargets = automaton.rowTargets();
+
+        this.reverseOffsets = new int[stateCount * symbolCount + 1];
+        for (int row = 0; row < stateCount * symbolCount; row++) {
+            for (int k = rowOffsets[row]; k < rowOffsets[row + 1]; k++) {
+                this.reverseOffsets[rowTargets[k] * symbolCount + row % symbolCount + 1]++;
+            }
+        }
+        for (int row = 0; row < stateCount * symbolCount; row++) {
+            this.reverseOffsets[row + 1] += this.reverseOffsets[row];
+        }
+        this.reverseSources = new int[rowTargets.length];
+        int[] filled = Arrays.copyOf(this.reverseOffsets, stateCount * symbolCount);
+        for (int row = 0; row < stateCount * symbolCount; row++) {
+            for (int k = rowOffsets[row]; k < rowOffsets[row + 1]; k++) {
+                this.reverseSources[filled[rowTargets[k] * symbolCount + row % symbolCount]++] = row / symbolCount;
+            }
+        }
+
+        int acceptingCount = 0;
+        for (int state = 0; state < stateCount; state++) {
+            if (automaton.isAccepting(state)) {
+                acceptingCount++;
+            }
+        }
+        this.acceptingStates = new int[acceptingCount];
+        for (int state = 0, i = 0; state < stateCount; state++) {
+            if (automaton.isAccepting(state)) {
+                this.acceptingStates[i++] = state;
+            }
+        }
+
+        this.live = new int[stateCount];
+        this.nextLive = new int[stateCount];
+        this.longest = new int[stateCount];
+        this.nextLongest = new int[stateCount];
+        this.marks = new int[stateCount];
+    }
+
+    public static int matchStart(long match) { return (int) (match >>> 32); }
+    public static int matchEnd(long match) { return (int) match; }
+
+    // Every offset where an accepted word ends, found in one pass of an unanchored lazy DFA
+    public int[] findMatchEnds(CharSequence text) {
+        return this.scanner.findMatchEnds(text);
+    }
+
+    // Non-overlapping leftmost-longest matches, scanning left to right. After an empty match the
+    // search resumes one character later. The longest match from every offset is found first in one
+    // right-to-left pass, so the search stays linear in the text even when each match has to look
+    // ahead to its end, as a|a*b does over a run of a's.
+    public long[] findLeftmostLongest(CharSequence text) {
+        int[] longestFrom = longestMatchEnds(text);
+        long[] matches = new long[16];
+        int count = 0;
+        int position = 0;
+
+        while (position <= text.length()) {
+            int end = longestFrom[position];
+            if (end < 0) {
+                position++;
+                continue;
+            }
+            if (count == matches.length) {
+                matches = Arrays.copyOf(matches, count * 2);
+            }
+            matches[count++] = ((long) position << 32) | end;
+            position = end == position ? end + 1 : end;
+        }
+
+        return Arrays.copyOf(matches, count);
+    }
+
+    // End of the longest match starting at each offset of text, -1 where none starts. Walking back from
+    // the end, a state's longest end at offset i is the best of its successors' on text[i] at i + 1, or i
+    // itself for an accepting state; only states with an end are kept, reached through reverse transitions.
+    private int[] longestMatchEnds(CharSequence text) {
+        int length = text.length();
+        int[] ends = new int[length + 1];
+        int symbolCount = this.automaton.getSymbolCount();
+        int size = 0;
+
+        for (int i = length; i >= 0; i--) {
+            int symbol = i < length ? this.automaton.symbolOf(text.charAt(i)) : -1;
+            nextGeneration();
+            int nextSize = 0;
+            for (int j = 0; j < size && symbol >= 0; j++) {
+                int state = this.live[j];
+                int end = this.longest[state];
+                int row = state * symbolCount + symbol;
+                for (int k = this.reverseOffsets[row]; k < this.reverseOffsets[row + 1]; k++) {
+                    int source = this.reverseSources[k];
+                    if (this.marks[source] != this.generation) {
+                        this.marks[source] = this.generation;
+                        this.nextLive[nextSize++] = source;
+                        this.nextLongest[source] = end;
+                    } else if (end > this.nextLongest[source]) {
+                        this.nextLongest[source] = end;
+                    }
+                }
+            }
+            // Ends found through successors are past i, so i only counts for states not reached yet
+            for (int state : this.acceptingStates) {
+                if (this.marks[state] != this.generation) {
+                    this.marks[state] = this.generation;
+                    this.nextLive[nextSize++] = state;
+                    this.nextLongest[state] = i;
+                }
+            }
+
+            int[] swap = this.live;
+            this.live = this.nextLive;
+            this.nextLive = swap;
+            swap = this.longest;
+            this.longest = this.nextLongest;
+            this.nextLongest = swap;
+            size = nextSize;
+
+            int best = -1;
+            for (int state : this.automaton.initialStates()) {
+                if (this.marks[state] == this.generation) {
+                    best = Math.max(best, this.longest[state]);
+                }
+            }
+            ends[i] = best;
+        }
+
+        return ends;
+    }
+
+    private void nextGeneration() {
+        if (++this.generation == 0) {
+            Arrays.fill(this.marks, 0);
+            this.generation = 1;
+        }
+    }
+}
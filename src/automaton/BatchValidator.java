@@ -0,0 +1,100 @@
+package automaton;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+// Validates a list of words in parallel against one shared, immutable CompiledAutomaton.
+// Bit i of the result is set when word i is accepted.
+public class BatchValidator {
+    // Words per leaf task; a multiple of 64 so that every task writes its own longs of the result
+    private static final int LEAF_SIZE = 64 * 16;
+    // Words of a stream held and validated at a time; a multiple of 64 for the same reason
+    private static final int CHUNK_SIZE = LEAF_SIZE * 64;
+
+    private final CompiledAutomaton automaton;
+    private final ForkJoinPool pool;
+
+    public BatchValidator(CompiledAutomaton automaton) {
+        this(automaton, ForkJoinPool.commonPool());
+    }
+
+    public BatchValidator(CompiledAutomaton automaton, ForkJoinPool pool) {
+        this.automaton = automaton;
+        this.pool = pool;
+    }
+
+    public BitSet validate(List<? extends CharSequence> words) {
+        return BitSet.valueOf(validateAll(words));
+    }
+
+    // Validates the stream in chunks of CHUNK_SIZE words, so only the result grows with its length
+    public BitSet validate(Stream<? extends CharSequence> words) {
+        Iterator<? extends CharSequence> iterator = words.iterator();
+        List<CharSequence> chunk = new ArrayList<>();
+        long[] bits = new long[0];
+        int wordCount = 0;
+        while (iterator.hasNext()) {
+            chunk.clear();
+            while (chunk.size() < CHUNK_SIZE && iterator.hasNext()) {
+                chunk.add(iterator.next());
+            }
+            long[] chunkBits = validateAll(chunk);
+            int offset = wordCount >>> 6;
+            if (offset + chunkBits.length > bits.length) {
+                bits = Arrays.copyOf(bits, Math.max(bits.length * 2, offset + chunkBits.length));
+            }
+            System.arraycopy(chunkBits, 0, bits, offset, chunkBits.length);
+            wordCount += chunk.size();
+        }
+        return BitSet.valueOf(Arrays.copyOf(bits, Bitsets.wordsFor(wordCount)));
+    }
+
+    private long[] validateAll(List<? extends CharSequence> words) {
+        // Leaves index the list, which would walk a linked list from its head every time
+        List<? extends CharSequence> indexed = words instanceof RandomAccess ? words : new ArrayList<>(words);
+        long[] bits = new long[Bitsets.wordsFor(indexed.size())];
+        this.pool.invoke(new ValidateTask(indexed, bits, 0, indexed.size()));
+        return bits;
+    }
+
+    private class ValidateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends CharSequence> words;
+        private final long[] bits;
+        private final int from;
+        private final int to;
+
+        ValidateTask(List<? extends CharSequence> words, long[] bits, int from, int to) {
+            this.words = words;
+            this.bits = bits;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= LEAF_SIZE) {
+                AutomatonMatcher matcher = automaton.matcher();
+                for (int i = this.from; i < this.to; i++) {
+                    if (matcher.matches(this.words.get(i))) {
+                        this.bits[i >>> 6] |= 1L << i;
+                    }
+                }
+                return;
+            }
+
+            int leaves = (this.to - this.from + LEAF_SIZE - 1) / LEAF_SIZE;
+            int middle = this.from + leaves / 2 * LEAF_SIZE;
+            invokeAll(new ValidateTask(this.words, this.bits, this.from, middle),
+                    new ValidateTask(this.words, this.bits, middle, this.to));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package automaton;
+
+// Helpers for state sets stored as long[] bitsets, one bit per interned state id
+final class Bitsets {
+    private Bitsets() {}
+
+    static int wordsFor(int bits) {
+        return (bits + 63) >>> 6;
+    }
+
+    static void set(long[] set, int bit) {
+        set[bit >>> 6] |= 1L << bit;
+    }
+
+    static boolean get(long[] set, int bit) {
+        return (set[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    static boolean isEmpty(long[] set) {
+        for (long word : set) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean intersects(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if ((a[i] & b[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ORs the row starting at offset of source into target
+    static void or(long[] target, long[] source, int offset) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] |= source[offset + i];
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package automaton;
+
+import java.util.*;
+
+public class CompiledAutomaton {
+    // Label that epsilonClosure follows without consuming input
+    static final String EPSILON_LABEL = "e";
+
+    private final String[] stateNames;
+    private final Map<String, Integer> stateIds;
+    private final char[] symbols;
+    private final int[] asciiSymbols = new int[128];
+
+    // CSR layout: targets of (state, symbol) are rowTargets[rowOffsets[row] .. rowOffsets[row + 1]),
+    // where row = state * symbols.length + symbol. Epsilon closures are already folded in.
+    private final int[] rowOffsets;
+    private final int[] rowTargets;
+    private final int[] initialStates;
+    private final boolean[] accepting;
+
+    // Dense int[state][symbol] table flattened to one array, only when the automaton is deterministic
+    private final int[] dfaTable;
+
+    // Bitset simulation for nondeterministic automata: every non-empty row gets a successor mask of
+    // stateWords longs in successorMasks, starting at maskOffsets[row] (-1 for empty rows)
+    private final int stateWords;
+    private final int[] maskOffsets;
+    private final long[] successorMasks;
+    private final long[] initialMask;
+    private final long[] acceptingMask;
+
+    private final ThreadLocal<AutomatonMatcher> matchers = ThreadLocal.withInitial(this::matcher);
+
+    public CompiledAutomaton(FiniteAutomaton automaton) {
+        // Intern every state name, including ones that only appear in transitions or final states
+        this.stateIds = new LinkedHashMap<>();
+        for (String state : automaton.getStates()) {
+            internState(state);
+        }
+        internState(automaton.getInitialState());
+        for (Transition t : automaton.getTransitions()) {
+            internState(t.getCurrentState());
+            internState(t.getNextState());
+        }
+        String[] finalStates = automaton.getFinalStates();
+        if (finalStates != null) {
+            for (String finalState : finalStates) {
+                internState(finalState);
+            }
+        }
+        this.stateNames = this.stateIds.keySet().toArray(new String[0]);
+        int stateCount = this.stateNames.length;
+
+        // Only single character labels can ever match an input character
+        TreeSet<Character> labels = new TreeSet<>();
+        for (Transition t : automaton.getTransitions()) {
+            if (t.getTransitionLabel().length() == 1) {
+                labels.add(t.getTransitionLabel().charAt(0));
+            }
+        }
+        this.symbols = new char[labels.size()];
+        int index = 0;
+        for (char symbol : labels) {
+            this.symbols[index++] = symbol;
+        }
+        Arrays.fill(this.asciiSymbols, -1);
+        for (int i = 0; i < this.symbols.length; i++) {
+            if (this.symbols[i] < 128) {
+                this.asciiSymbols[this.symbols[i]] = i;
+            }
+        }
+
+        int[][] closures = computeEpsilonClosures(automaton.getTransitions(), stateCount);
+
+        // Collect the targets of every (state, symbol) row, closure included
+        int symbolCount = this.symbols.length;
+        BitSet[] rows = new BitSet[stateCount * symbolCount];
+        for (Transition t : automaton.getTransitions()) {
+            if (t.getTransitionLabel().length() != 1) {
+                continue;
+            }
+            int row = stateId(t.getCurrentState()) * symbolCount + symbolOf(t.getTransitionLabel().charAt(0));
+            if (rows[row] == null) {
+                rows[row] = new BitSet(stateCount);
+            }
+            for (int target : closures[stateId(t.getNextState())]) {
+                rows[row].set(target);
+            }
+        }
+
+        this.rowOffsets = new int[rows.length + 1];
+        int targetCount = 0;
+        for (int row = 0; row < rows.length; row++) {
+            this.rowOffsets[row] = targetCount;
+            targetCount += rows[row] == null ? 0 : rows[row].cardinality();
+        }
+        this.rowOffsets[rows.length] = targetCount;
+        this.rowTargets = new int[targetCount];
+        boolean deterministic = true;
+        for (int row = 0; row < rows.length; row++) {
+            if (rows[row] == null) {
+                continue;
+            }
+            int position = this.rowOffsets[row];
+            for (int target = rows[row].nextSetBit(0); target >= 0; target = rows[row].nextSetBit(target + 1)) {
+                this.rowTargets[position++] = target;
+            }
+            if (position - this.rowOffsets[row] > 1) {
+                deterministic = false;
+            }
+        }
+
+        this.initialStates = closures[stateId(automaton.getInitialState())];
+        this.accepting = new boolean[stateCount];
+        if (finalStates != null) {
+            for (String finalState : finalStates) {
+                this.accepting[stateId(finalState)] = true;
+            }
+        }
+
+        this.stateWords = Bitsets.wordsFor(stateCount);
+        this.initialMask = new long[this.stateWords];
+        for (int state : this.initialStates) {
+            Bitsets.set(this.initialMask, state);
+        }
+        this.acceptingMask = new long[this.stateWords];
+        for (int state = 0; state < stateCount; state++) {
+            if (this.accepting[state]) {
+                Bitsets.set(this.acceptingMask, state);
+            }
+        }
+
+        if (deterministic && this.initialStates.length == 1) {
+            this.dfaTable = new int[rows.length];
+            for (int row = 0; row < rows.length; row++) {
+                this.dfaTable[row] = this.rowOffsets[row] == this.rowOffsets[row + 1]
+                        ? -1
+                        : this.rowTargets[this.rowOffsets[row]];
+            }
+            this.maskOffsets = null;
+            this.successorMasks = null;
+        } else {
+            this.dfaTable = null;
+            this.maskOffsets = new int[rows.length];
+            int nonEmptyRows = 0;
+            for (int row = 0; row < rows.length; row++) {
+                this.maskOffsets[row] = rows[row] == null ? -1 : this.stateWords * nonEmptyRows++;
+            }
+            this.successorMasks = new long[this.stateWords * nonEmptyRows];
+            for (int row = 0; row < rows.length; row++) {
+                for (int j = this.rowOffsets[row]; j < this.rowOffsets[row + 1]; j++) {
+                    int target = this.rowTargets[j];
+                    this.successorMasks[this.maskOffsets[row] + (target >>> 6)] |= 1L << target;
+                }
+            }
+        }
+    }
+
+    private void internState(String state) {
+        if (state != null && !this.stateIds.containsKey(state)) {
+            this.stateIds.put(state, this.stateIds.size());
+        }
+    }
+
+    private int[][] computeEpsilonClosures(Transition[] transitions, int stateCount) {
+        List<List<Integer>> epsilonEdges = new ArrayList<>();
+        for (int i = 0; i < stateCount; i++) {
+            epsilonEdges.add(new ArrayList<>());
+        }
+        for (Transition t : transitions) {
+            if (Objects.equals(t.getTransitionLabel(), EPSILON_LABEL)) {
+                epsilonEdges.get(stateId(t.getCurrentState())).add(stateId(t.getNextState()));
+            }
+        }
+
+        int[][] closures = new int[stateCount][];
+        BitSet visited = new BitSet(stateCount);
+        int[] stack = new int[stateCount];
+        for (int state = 0; state < stateCount; state++) {
+            visited.clear();
+            visited.set(state);
+            int top = 0;
+            stack[top++] = state;
+            while (top > 0) {
+                int current = stack[--top];
+                for (int next : epsilonEdges.get(current)) {
+                    if (!visited.get(next)) {
+                        visited.set(next);
+                        stack[top++] = next;
+                    }
+                }
+            }
+            closures[state] = visited.stream().toArray();
+        }
+        return closures;
+    }
+
+    public int getStateCount() { return this.stateNames.length; }
+    public int getSymbolCount() { return this.symbols.length; }
+    public String getStateName(int state) { return this.stateNames[state]; }
+    public char getSymbol(int symbol) { return this.symbols[symbol]; }
+    public boolean isAccepting(int state) { return this.accepting[state]; }
+    public boolean isDeterministic() { return this.dfaTable != null; }
+
+    // Returns the interned id of a state, or -1 if the automaton has no such state
+    public int stateId(String state) {
+        Integer id = this.stateIds.get(state);
+        return id == null ? -1 : id;
+    }
+
+    // Returns the symbol id of a character, or -1 if no transition is labelled with it
+    public int symbolOf(char c) {
+        if (c < 128) {
+            return this.asciiSymbols[c];
+        }
+        int index = Arrays.binarySearch(this.symbols, c);
+        return index >= 0 ? index : -1;
+    }
+
+    int[] initialStates() { return this.initialStates; }
+    int[] rowOffsets() { return this.rowOffsets; }
+    int[] rowTargets() { return this.rowTargets; }
+    int[] dfaTable() { return this.dfaTable; }
+    int stateWords() { return this.stateWords; }
+    long[] initialMask() { return this.initialMask; }
+    long[] acceptingMask() { return this.acceptingMask; }
+
+    // Advances the active set by one symbol: next becomes the OR of the successor masks of every active state
+    // (deterministic automata have no masks and set the single target of each row instead).
+    // Returns false when next is empty.
+    boolean step(long[] current, long[] next, int symbol) {
+        Arrays.fill(next, 0L);
+        if (symbol < 0) {
+            return false;
+        }
+        int symbolCount = this.symbols.length;
+        for (int word = 0; word < current.length; word++) {
+            long bits = current[word];
+            while (bits != 0) {
+                int state = (word << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int row = state * symbolCount + symbol;
+                if (this.maskOffsets == null) {
+                    for (int j = this.rowOffsets[row]; j < this.rowOffsets[row + 1]; j++) {
+                        Bitsets.set(next, this.rowTargets[j]);
+                    }
+                } else if (this.maskOffsets[row] >= 0) {
+                    Bitsets.or(next, this.successorMasks, this.maskOffsets[row]);
+                }
+            }
+        }
+        return !Bitsets.isEmpty(next);
+    }
+
+    public AutomatonMatcher matcher() {
+        return new AutomatonMatcher(this);
+    }
+
+    public boolean matches(CharSequence word) {
+        if (this.dfaTable == null) {
+            return this.matchers.get().matches(word);
+        }
+
+        int symbolCount = this.symbols.length;
+        int state = this.initialStates[0];
+        for (int i = 0; i < word.length(); i++) {
+            int symbol = symbolOf(word.charAt(i));
+            if (symbol < 0) {
+                return false;
+            }
+            state = this.dfaTable[state * symbolCount + symbol];
+            if (state < 0) {
+                return false;
+            }
+        }
+        return this.accepting[state];
+    }
+}
@@ -0,0 +1,135 @@
+package automaton;
+
+import java.util.*;
+
+// Deterministic automaton over int state and symbol ids, stored as a dense state x symbol table.
+// State 0 is the initial state and -1 marks a missing transition.
+public class DenseDfa {
+    private final char[] symbols;
+    private final int[] table;
+    private final boolean[] accepting;
+    private final String[] stateNames;
+    // The NFA states behind every DFA state, only known for automata built by determinize
+    private final long[][] subsets;
+
+    DenseDfa(char[] symbols, int[] table, boolean[] accepting, String[] stateNames, long[][] subsets) {
+        this.symbols = symbols;
+        this.table = table;
+        this.accepting = accepting;
+        this.stateNames = stateNames;
+        this.subsets = subsets;
+    }
+
+    public int getStateCount() { return this.accepting.length; }
+    public int getSymbolCount() { return this.symbols.length; }
+    public char getSymbol(int symbol) { return this.symbols[symbol]; }
+    public boolean isAccepting(int state) { return this.accepting[state]; }
+    public String getStateName(int state) { return this.stateNames[state]; }
+
+    public int next(int state, int symbol) {
+        return this.table[state * this.symbols.length + symbol];
+    }
+
+    // Returns the bitset of NFA state ids that make up a DFA state, or null if it is unknown
+    public long[] getSubset(int state) {
+        return this.subsets == null ? null : this.subsets[state];
+    }
+
+    char[] symbols() { return this.symbols; }
+    int[] table() { return this.table; }
+
+    // Subset construction that starts from the initial epsilon closure and only explores reachable subsets
+    public static DenseDfa determinize(CompiledAutomaton nfa) {
+        int symbolCount = nfa.getSymbolCount();
+        char[] symbols = new char[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            symbols[i] = nfa.getSymbol(i);
+        }
+
+        Map<SubsetKey, Integer> ids = new HashMap<>();
+        List<long[]> subsets = new ArrayList<>();
+        int[] table = new int[Math.max(1, symbolCount) * 16];
+
+        long[] initial = nfa.initialMask().clone();
+        ids.put(new SubsetKey(initial), 0);
+        subsets.add(initial);
+
+        long[] next = new long[nfa.stateWords()];
+        // Subsets are numbered in discovery order, so the worklist is just the next unprocessed id
+        for (int state = 0; state < subsets.size(); state++) {
+            long[] subset = subsets.get(state);
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int target = -1;
+                if (nfa.step(subset, next, symbol)) {
+                    SubsetKey key = new SubsetKey(next);
+                    Integer id = ids.get(key);
+                    if (id == null) {
+                        long[] copy = next.clone();
+                        id = subsets.size();
+                        ids.put(new SubsetKey(copy), id);
+                        subsets.add(copy);
+                    }
+                    target = id;
+                }
+                int row = state * symbolCount + symbol;
+                if (row >= table.length) {
+                    table = Arrays.copyOf(table, table.length * 2);
+                }
+                table[row] = target;
+            }
+        }
+
+        int stateCount = subsets.size();
+        boolean[] accepting = new boolean[stateCount];
+        String[] stateNames = new String[stateCount];
+        for (int state = 0; state < stateCount; state++) {
+            long[] subset = subsets.get(state);
+            accepting[state] = Bitsets.intersects(subset, nfa.acceptingMask());
+            stateNames[state] = subsetName(nfa, subset);
+        }
+
+        return new DenseDfa(symbols, Arrays.copyOf(table, stateCount * symbolCount), accepting, stateNames,
+                subsets.toArray(new long[0][]));
+    }
+
+    // Singletons keep the NFA state name, larger subsets are listed in state id order, e.g. [q1, q2]
+    private static String subsetName(CompiledAutomaton nfa, long[] subset) {
+        StringJoiner name = new StringJoiner(", ", "[", "]");
+        int size = 0;
+        String last = null;
+        for (int word = 0; word < subset.length; word++) {
+            long bits = subset[word];
+            while (bits != 0) {
+                last = nfa.getStateName((word << 6) + Long.numberOfTrailingZeros(bits));
+                name.add(last);
+                size++;
+                bits &= bits - 1;
+            }
+        }
+        return size == 1 ? last : name.toString();
+    }
+
+    public FiniteAutomaton toFiniteAutomaton(String[] alphabet) {
+        List<Transition> transitions = new ArrayList<>();
+        List<String> finalStates = new ArrayList<>();
+        for (int state = 0; state < getStateCount(); state++) {
+            for (int symbol = 0; symbol < this.symbols.length; symbol++) {
+                int target = next(state, symbol);
+                if (target >= 0) {
+                    transitions.add(new Transition(this.stateNames[state], String.valueOf(this.symbols[symbol]),
+                            this.stateNames[target]));
+                }
+            }
+            if (this.accepting[state]) {
+                finalStates.add(this.stateNames[state]);
+            }
+        }
+
+        return new FiniteAutomaton(
+                this.stateNames.clone(),
+                alphabet,
+                transitions.toArray(new Transition[0]),
+                this.stateNames[0],
+                finalStates.toArray(new String[0]));
+    }
+}
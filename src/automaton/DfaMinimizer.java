@@ -0,0 +1,235 @@
+package automaton;
+
+import java.util.*;
+
+// DFA minimization over DenseDfa. Both algorithms first complete the automaton with a dead sink state,
+// compute the equivalence classes of states and then build the quotient automaton without the dead class.
+public final class DfaMinimizer {
+    private DfaMinimizer() {}
+
+    // Hopcroft's partition refinement, O(n * |Σ| * log n)
+    public static DenseDfa hopcroft(DenseDfa dfa) {
+        int n = dfa.getStateCount();
+        int k = dfa.getSymbolCount();
+        int sink = hasMissingTransitions(dfa) ? n : -1;
+        int total = sink >= 0 ? n + 1 : n;
+        int[] delta = complete(dfa, sink);
+
+        // Predecessors of every (symbol, state) pair in CSR form
+        int[] predOffsets = new int[k * total + 1];
+        for (int s = 0; s < total; s++) {
+            for (int c = 0; c < k; c++) {
+                predOffsets[c * total + delta[s * k + c] + 1]++;
+            }
+        }
+        for (int i = 0; i < k * total; i++) {
+            predOffsets[i + 1] += predOffsets[i];
+        }
+        int[] preds = new int[total * k];
+        int[] fill = Arrays.copyOf(predOffsets, k * total);
+        for (int s = 0; s < total; s++) {
+            for (int c = 0; c < k; c++) {
+                preds[fill[c * total + delta[s * k + c]]++] = s;
+            }
+        }
+
+        // Blocks are contiguous ranges of elements; the marked states of a block are moved to its front
+        int[] elements = new int[total];
+        int[] location = new int[total];
+        int[] blockOf = new int[total];
+        int[] blockStart = new int[total];
+        int[] blockEnd = new int[total];
+        int[] markedEnd = new int[total];
+        int blockCount = 0;
+
+        int position = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            boolean acceptingPass = pass == 0;
+            int start = position;
+            for (int s = 0; s < total; s++) {
+                if ((s != sink && dfa.isAccepting(s)) == acceptingPass) {
+                    elements[position] = s;
+                    location[s] = position++;
+                    blockOf[s] = blockCount;
+                }
+            }
+            if (position > start) {
+                blockStart[blockCount] = start;
+                blockEnd[blockCount] = position;
+                markedEnd[blockCount] = start;
+                blockCount++;
+            }
+        }
+
+        boolean[] inWorklist = new boolean[total * k];
+        Deque<Integer> worklist = new ArrayDeque<>();
+        if (blockCount == 2) {
+            int smaller = blockEnd[0] - blockStart[0] <= blockEnd[1] - blockStart[1] ? 0 : 1;
+            for (int c = 0; c < k; c++) {
+                inWorklist[smaller * k + c] = true;
+                worklist.push(smaller * k + c);
+            }
+        }
+
+        int[] splitterPreds = new int[total];
+        int[] touched = new int[total];
+        while (!worklist.isEmpty()) {
+            int splitter = worklist.pop();
+            inWorklist[splitter] = false;
+            int block = splitter / k;
+            int c = splitter % k;
+
+            int predCount = 0;
+            for (int i = blockStart[block]; i < blockEnd[block]; i++) {
+                int row = c * total + elements[i];
+                for (int j = predOffsets[row]; j < predOffsets[row + 1]; j++) {
+                    splitterPreds[predCount++] = preds[j];
+                }
+            }
+
+            int touchedCount = 0;
+            for (int i = 0; i < predCount; i++) {
+                int p = splitterPreds[i];
+                int x = blockOf[p];
+                if (location[p] < markedEnd[x]) {
+                    continue;
+                }
+                if (markedEnd[x] == blockStart[x]) {
+                    touched[touchedCount++] = x;
+                }
+                int swapWith = elements[markedEnd[x]];
+                elements[location[p]] = swapWith;
+                location[swapWith] = location[p];
+                elements[markedEnd[x]] = p;
+                location[p] = markedEnd[x];
+                markedEnd[x]++;
+            }
+
+            for (int i = 0; i < touchedCount; i++) {
+                int x = touched[i];
+                if (markedEnd[x] == blockEnd[x]) {
+                    markedEnd[x] = blockStart[x];
+                    continue;
+                }
+
+                // The marked front of x becomes a new block y
+                int y = blockCount++;
+                blockStart[y] = blockStart[x];
+                blockEnd[y] = markedEnd[x];
+                markedEnd[y] = blockStart[y];
+                blockStart[x] = blockEnd[y];
+                markedEnd[x] = blockStart[x];
+                for (int j = blockStart[y]; j < blockEnd[y]; j++) {
+                    blockOf[elements[j]] = y;
+                }
+
+                boolean yIsSmaller = blockEnd[y] - blockStart[y] <= blockEnd[x] - blockStart[x];
+                for (int d = 0; d < k; d++) {
+                    int add = inWorklist[x * k + d] || yIsSmaller ? y : x;
+                    if (!inWorklist[add * k + d]) {
+                        inWorklist[add * k + d] = true;
+                        worklist.push(add * k + d);
+                    }
+                }
+            }
+        }
+
+        return quotient(dfa, delta, blockOf, sink);
+    }
+
+    // Moore's algorithm: refine by (class, classes of successors) signatures until nothing splits.
+    // O(n^2 * |Σ|) in the worst case, kept as a simple cross-check for hopcroft.
+    public static DenseDfa moore(DenseDfa dfa) {
+        int n = dfa.getStateCount();
+        int k = dfa.getSymbolCount();
+        int sink = hasMissingTransitions(dfa) ? n : -1;
+        int total = sink >= 0 ? n + 1 : n;
+        int[] delta = complete(dfa, sink);
+
+        int[] classOf = new int[total];
+        for (int s = 0; s < n; s++) {
+            classOf[s] = dfa.isAccepting(s) ? 1 : 0;
+        }
+        int classCount = -1;
+        while (true) {
+            Map<List<Integer>, Integer> signatures = new HashMap<>();
+            int[] next = new int[total];
+            for (int s = 0; s < total; s++) {
+                List<Integer> signature = new ArrayList<>(k + 1);
+                signature.add(classOf[s]);
+                for (int c = 0; c < k; c++) {
+                    signature.add(classOf[delta[s * k + c]]);
+                }
+                next[s] = signatures.computeIfAbsent(signature, key -> signatures.size());
+            }
+            classOf = next;
+            if (signatures.size() == classCount) {
+                break;
+            }
+            classCount = signatures.size();
+        }
+
+        return quotient(dfa, delta, classOf, sink);
+    }
+
+    private static boolean hasMissingTransitions(DenseDfa dfa) {
+        for (int target : dfa.table()) {
+            if (target < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Copies the table, redirecting missing transitions (and every transition of the sink) to the sink
+    private static int[] complete(DenseDfa dfa, int sink) {
+        int k = dfa.getSymbolCount();
+        int total = sink >= 0 ? sink + 1 : dfa.getStateCount();
+        int[] delta = Arrays.copyOf(dfa.table(), total * k);
+        for (int i = 0; i < delta.length; i++) {
+            if (i >= dfa.table().length || delta[i] < 0) {
+                delta[i] = sink;
+            }
+        }
+        return delta;
+    }
+
+    // Builds the automaton over the classes, numbered breadth-first from the initial state;
+    // the class of the sink holds the dead states and is dropped
+    private static DenseDfa quotient(DenseDfa dfa, int[] delta, int[] classOf, int sink) {
+        int k = dfa.getSymbolCount();
+        int deadClass = sink >= 0 ? classOf[sink] : -1;
+
+        int[] representative = new int[classOf.length];
+        int[] newId = new int[classOf.length];
+        Arrays.fill(newId, -1);
+        int count = 0;
+        newId[classOf[0]] = count;
+        representative[count++] = 0;
+
+        int[] table = new int[classOf.length * k];
+        for (int state = 0; state < count; state++) {
+            int s = representative[state];
+            for (int c = 0; c < k; c++) {
+                int targetClass = classOf[delta[s * k + c]];
+                int target = -1;
+                if (targetClass != deadClass) {
+                    if (newId[targetClass] < 0) {
+                        newId[targetClass] = count;
+                        representative[count++] = delta[s * k + c];
+                    }
+                    target = newId[targetClass];
+                }
+                table[state * k + c] = target;
+            }
+        }
+
+        boolean[] accepting = new boolean[count];
+        String[] stateNames = new String[count];
+        for (int state = 0; state < count; state++) {
+            accepting[state] = dfa.isAccepting(representative[state]);
+            stateNames[state] = dfa.getStateName(representative[state]);
+        }
+        return new DenseDfa(dfa.symbols(), Arrays.copyOf(table, count * k), accepting, stateNames, null);
+    }
+}
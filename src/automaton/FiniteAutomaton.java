@@ -8,10 +8,13 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class FiniteAutomaton {
     private final String[] states;
@@ -19,6 +22,7 @@ public class FiniteAutomaton {
     private Transition[] transitions;
     private final String initialState;
     private final String[] finalStates;
+    private CompiledAutomaton compiled;
 
     public FiniteAutomaton(String[] states, String[] alphabet,  Transition[] transitions,
                            String initialState, String[] finalStates) {
@@ -52,35 +56,52 @@ public class FiniteAutomaton {
         );
     }
 
+    // Compiles the automaton on first use; the compiled form is a snapshot of the current transitions
+    public CompiledAutomaton compile() {
+        if (this.compiled == null) {
+            this.compiled = new CompiledAutomaton(this);
+        }
+        return this.compiled;
+    }
+
+    // Matcher that determinizes lazily while matching, keeping at most memoryBudgetBytes of DFA states
+    public LazyDfa toLazyDFA(long memoryBudgetBytes) {
+        return new LazyDfa(compile(), memoryBudgetBytes);
+    }
+
+    // Streaming matcher: feed the input in chunks, then ask isAccepting() at the end of the stream
+    public AutomatonMatcher matcher() {
+        return compile().matcher();
+    }
+
     public boolean isWordValid(String str) {
-        Set<String> currentStates = epsilonClosure(this.initialState);
+        return compile().matches(str);
+    }
 
-        for (char c : str.toCharArray()) {
-            Set<String> nextStates = new HashSet<>();
+    public boolean isWordValid(Reader input) throws IOException {
+        AutomatonMatcher matcher = matcher();
+        return matcher.feed(input) && matcher.isAccepting();
+    }
 
-            for (String currentState : currentStates) {
-                for (Transition t : this.transitions) {
-                    if (Objects.equals(t.getCurrentState(), currentState) &&
-                            Objects.equals(t.getTransitionLabel(), String.valueOf(c))) {
-                        nextStates.addAll(epsilonClosure(t.getNextState()));
-                    }
-                }
-            }
+    // Searcher that finds accepted words inside a larger text
+    public AutomatonSearcher searcher() {
+        return new AutomatonSearcher(compile());
+    }
 
-            if (nextStates.isEmpty()) {
-                return false;
-            }
+    // Validates every word in parallel; bit i of the result is set when the i-th word is accepted
+    public BitSet validateWords(List<? extends CharSequence> words) {
+        return new BatchValidator(compile()).validate(words);
+    }
 
-            currentStates = nextStates;
-        }
+    public BitSet validateWords(Stream<? extends CharSequence> words) {
+        return new BatchValidator(compile()).validate(words);
+    }
 
-        for (String finalState : this.finalStates) {
-            if (currentStates.contains(finalState)) {
-                return true;
-            }
+    // Validates a file of newline-separated words
+    public BitSet validateWords(Path file) throws IOException {
+        try (Stream<String> lines = Files.lines(file)) {
+            return validateWords(lines);
         }
-
-        return false;
     }
 
     public Set<String> epsilonClosure(String state) {
@@ -173,63 +194,13 @@ public class FiniteAutomaton {
     }
 
     public FiniteAutomaton convertToDFA() {
-        Set<Set<String>> powerSet = getPowerSet(states);
-        Map<Set<String>, Map<String, Set<String>>> dfaTransitions = new HashMap<>();
-        Set<String> dfaFinalStates = new HashSet<>();
-        String dfaInitialState = initialState;
-
-        // Compute DFA transitions and final states
-        for (Set<String> stateSet : powerSet) {
-            Map<String, Set<String>> transitions = new HashMap<>();
-            for (String symbol : alphabet) {
-                Set<String> nextStates = new HashSet<>();
-                for (String state : stateSet) {
-                    for (Transition transition : transitionsFrom(state, symbol)) {
-                        nextStates.add(transition.getNextState());
-                    }
-                }
-                if (!nextStates.isEmpty()) {
-                    transitions.put(symbol, nextStates);
-                }
-            }
-            dfaTransitions.put(stateSet, transitions);
-            if (stateSet.containsAll(Arrays.asList(finalStates))) {
-                dfaFinalStates.add(stateSet.toString());
-            }
-        }
-
-        return new FiniteAutomaton(
-                powerSet.stream().map(Set::toString).toArray(String[]::new),
-                alphabet,
-                dfaTransitions.entrySet().stream()
-                        .flatMap(e -> e.getValue().entrySet().stream()
-                                .map(entry -> new Transition(e.getKey().toString(), entry.getKey(),
-                                        entry.getValue().toString())))
-                        .toArray(Transition[]::new),
-                dfaInitialState,
-                dfaFinalStates.toArray(String[]::new));
-    }
-
-    private Set<Set<String>> getPowerSet(String[] set) {
-        Set<Set<String>> powerSet = new HashSet<>();
-        int setSize = set.length;
-        long powSetSize = (long) Math.pow(2, setSize);
-        for (int counter = 0; counter < powSetSize; counter++) {
-            Set<String> subset = new HashSet<>();
-            for (int j = 0; j < setSize; j++) {
-                if ((counter & (1 << j)) != 0) {
-                    subset.add(set[j]);
-                }
-            }
-            powerSet.add(subset);
-        }
-        return powerSet;
+        // Only subsets reachable from the initial closure are built, see DenseDfa.determinize
+        return DenseDfa.determinize(compile()).toFiniteAutomaton(this.alphabet);
     }
 
-    private List<Transition> transitionsFrom(String state, String symbol) {
-        return Arrays.stream(transitions)
-                .filter(t -> t.getCurrentState().equals(state) && t.getTransitionLabel().equals(symbol))
-                .collect(Collectors.toList());
+    // Minimal DFA for the language of this automaton, via Hopcroft's algorithm on the reachable DFA
+    public FiniteAutomaton minimize() {
+        return DfaMinimizer.hopcroft(DenseDfa.determinize(compile())).toFiniteAutomaton(this.alphabet);
     }
 
     public String toDot() {
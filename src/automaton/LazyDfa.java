@@ -0,0 +1,250 @@
+package automaton;
+
+import java.util.*;
+
+// DFA that is built on demand while matching: a DFA state (a set of NFA states) is only created the first
+// time the input reaches it, and the states live in a cache bounded by a memory budget. When the cache is
+// full the least recently used half is evicted; when a single match keeps evicting states faster than it
+// consumes input, the rest of that input is matched by bitset NFA simulation instead.
+// An unanchored LazyDfa adds the initial closure after every step, so it tracks matches starting anywhere
+// in the input; findMatchEnds uses it as a single-pass scanner.
+// Instances are not thread-safe.
+public class LazyDfa {
+    private static final int MIN_CAPACITY = 4;
+    // A match falls back to NFA simulation once it created more states than fit in the cache
+    // while consuming fewer than this many characters per created state
+    private static final int MIN_CHARS_PER_STATE = 10;
+
+    private static final class DfaState {
+        long[] set;
+        DfaState[] next;
+        boolean accepting;
+        boolean evicted;
+        long lastUsed;
+    }
+
+    private final CompiledAutomaton automaton;
+    private final boolean unanchored;
+    private final int capacity;
+    private final Map<SubsetKey, DfaState> cache = new HashMap<>();
+    private final DfaState deadState = new DfaState();
+    private final DfaState startState;
+    private final long[] scratch;
+    private long[] fallbackCurrent;
+    private long[] fallbackNext;
+
+    private long tick;
+    private long evictions;
+    private long fallbacks;
+    private int statesCreatedThisMatch;
+
+    public LazyDfa(CompiledAutomaton automaton, long memoryBudgetBytes) {
+        this(automaton, memoryBudgetBytes, false);
+    }
+
+    public LazyDfa(CompiledAutomaton automaton, long memoryBudgetBytes, boolean unanchored) {
+        this.automaton = automaton;
+        this.unanchored = unanchored;
+        this.capacity = (int) Math.max(MIN_CAPACITY,
+                Math.min(Integer.MAX_VALUE, memoryBudgetBytes / bytesPerState(automaton)));
+        this.scratch = new long[automaton.stateWords()];
+        this.startState = lookup(automaton.initialMask().clone());
+    }
+
+    // Rough footprint of one cached state: the bitset, the successor array, the object and its map entry
+    private static long bytesPerState(CompiledAutomaton automaton) {
+        return 96L + 8L * automaton.stateWords() + 8L * automaton.getSymbolCount();
+    }
+
+    public int getCapacity() { return this.capacity; }
+    public int getCachedStates() { return this.cache.size(); }
+    public long getEvictions() { return this.evictions; }
+    public long getFallbacks() { return this.fallbacks; }
+
+    public boolean matches(CharSequence word) {
+        this.statesCreatedThisMatch = 0;
+        DfaState state = this.startState;
+
+        for (int i = 0; i < word.length(); i++) {
+            int symbol = this.automaton.symbolOf(word.charAt(i));
+            if (symbol < 0 && !this.unanchored) {
+                return false;
+            }
+
+            state = advance(state, symbol);
+            if (state == this.deadState) {
+                return false;
+            }
+
+            if (isThrashing(i + 1)) {
+                this.fallbacks++;
+                return simulate(state.set, word, i + 1);
+            }
+        }
+
+        return state.accepting;
+    }
+
+    // Returns every offset at which an accepted word ends, in increasing order (0 for an empty match at
+    // the start). Only meaningful for an unanchored LazyDfa, otherwise only prefixes of text are found.
+    public int[] findMatchEnds(CharSequence text) {
+        this.statesCreatedThisMatch = 0;
+        int[] ends = new int[16];
+        int count = 0;
+        DfaState state = this.startState;
+        if (state.accepting) {
+            ends[count++] = 0;
+        }
+
+        for (int i = 0; i < text.length(); i++) {
+            state = advance(state, this.automaton.symbolOf(text.charAt(i)));
+            if (state == this.deadState) {
+                break;
+            }
+            if (state.accepting) {
+                if (count == ends.length) {
+                    ends = Arrays.copyOf(ends, count * 2);
+                }
+                ends[count++] = i + 1;
+            }
+
+            if (isThrashing(i + 1)) {
+                this.fallbacks++;
+                return simulateSearch(state.set, text, i + 1, ends, count);
+            }
+        }
+
+        return Arrays.copyOf(ends, count);
+    }
+
+    private DfaState advance(DfaState state, int symbol) {
+        if (symbol < 0) {
+            // No transition reads this character; only a fresh start survives it
+            return this.unanchored ? this.startState : this.deadState;
+        }
+        state.lastUsed = ++this.tick;
+        DfaState target = state.next[symbol];
+        if (target == null || target.evicted) {
+            target = computeNext(state, symbol);
+            state.next[symbol] = target;
+        }
+        return target;
+    }
+
+    private boolean isThrashing(int consumed) {
+        return this.statesCreatedThisMatch > this.capacity
+                && consumed < (long) this.statesCreatedThisMatch * MIN_CHARS_PER_STATE;
+    }
+
+    private DfaState computeNext(DfaState state, int symbol) {
+        boolean alive = this.automaton.step(state.set, this.scratch, symbol);
+        if (this.unanchored) {
+            Bitsets.or(this.scratch, this.automaton.initialMask(), 0);
+            alive = true;
+        }
+        if (!alive) {
+            return this.deadState;
+        }
+        DfaState target = this.cache.get(new SubsetKey(this.scratch));
+        if (target != null) {
+            return target;
+        }
+        if (this.cache.size() >= this.capacity) {
+            evictLeastRecentlyUsed(state);
+        }
+        this.statesCreatedThisMatch++;
+        return lookup(this.scratch.clone());
+    }
+
+    private DfaState lookup(long[] set) {
+        SubsetKey key = new SubsetKey(set);
+        DfaState state = this.cache.get(key);
+        if (state == null) {
+            state = new DfaState();
+            state.set = set;
+            state.next = new DfaState[this.automaton.getSymbolCount()];
+            state.accepting = Bitsets.intersects(set, this.automaton.acceptingMask());
+            state.lastUsed = ++this.tick;
+            this.cache.put(key, state);
+        }
+        return state;
+    }
+
+    // Evicts the older half of the cache, never the start state or the state currently being expanded
+    private void evictLeastRecentlyUsed(DfaState current) {
+        List<Map.Entry<SubsetKey, DfaState>> entries = new ArrayList<>(this.cache.entrySet());
+        entries.sort(Comparator.comparingLong(e -> e.getValue().lastUsed));
+
+        int toEvict = Math.max(1, entries.size() / 2);
+        for (Map.Entry<SubsetKey, DfaState> entry : entries) {
+            if (toEvict == 0) {
+                break;
+            }
+            DfaState state = entry.getValue();
+            if (state == this.startState || state == current) {
+                continue;
+            }
+            this.cache.remove(entry.getKey());
+            // Predecessors may still point here; they notice the flag and recompute the transition
+            state.evicted = true;
+            state.set = null;
+            state.next = null;
+            this.evictions++;
+            toEvict--;
+        }
+    }
+
+    private boolean simulate(long[] set, CharSequence word, int from) {
+        long[] current = fallbackBuffers(set);
+        long[] next = this.fallbackNext;
+
+        for (int i = from; i < word.length(); i++) {
+            if (!simulationStep(current, next, word.charAt(i))) {
+                return false;
+            }
+            long[] swap = current;
+            current = next;
+            next = swap;
+        }
+        return Bitsets.intersects(current, this.automaton.acceptingMask());
+    }
+
+    private int[] simulateSearch(long[] set, CharSequence text, int from, int[] ends, int count) {
+        long[] current = fallbackBuffers(set);
+        long[] next = this.fallbackNext;
+
+        for (int i = from; i < text.length(); i++) {
+            if (!simulationStep(current, next, text.charAt(i))) {
+                break;
+            }
+            long[] swap = current;
+            current = next;
+            next = swap;
+            if (Bitsets.intersects(current, this.automaton.acceptingMask())) {
+                if (count == ends.length) {
+                    ends = Arrays.copyOf(ends, count * 2);
+                }
+                ends[count++] = i + 1;
+            }
+        }
+        return Arrays.copyOf(ends, count);
+    }
+
+    private long[] fallbackBuffers(long[] set) {
+        if (this.fallbackCurrent == null) {
+            this.fallbackCurrent = new long[this.automaton.stateWords()];
+            this.fallbackNext = new long[this.automaton.stateWords()];
+        }
+        System.arraycopy(set, 0, this.fallbackCurrent, 0, set.length);
+        return this.fallbackCurrent;
+    }
+
+    private boolean simulationStep(long[] current, long[] next, char c) {
+        boolean alive = this.automaton.step(current, next, this.automaton.symbolOf(c));
+        if (this.unanchored) {
+            Bitsets.or(next, this.automaton.initialMask(), 0);
+            return true;
+        }
+        return alive;
+    }
+}
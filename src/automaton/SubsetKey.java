@@ -0,0 +1,26 @@
+package automaton;
+
+import java.util.Arrays;
+
+// Hash key for a set of NFA states stored as a bitset; the words must not change once used as a key
+final class SubsetKey {
+    private final long[] words;
+    private final int hash;
+
+    SubsetKey(long[] words) {
+        this.words = words;
+        this.hash = Arrays.hashCode(words);
+    }
+
+    long[] words() { return this.words; }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SubsetKey && Arrays.equals(this.words, ((SubsetKey) o).words);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+}
@@ -0,0 +1,375 @@
+package grammar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// CYK recognizer and parser for grammars in Chomsky normal form, such as the output of
+// Grammar.convertToChomskyNormalForm. A cell is the bitset of the non-terminals deriving one substring,
+// packed into `words` longs, and cells are combined through precomputed pair tables: for every B, the
+// C's with some A -> BC and the mask of those A's. Every cell is stored twice, in a triangular table by
+// start position and one by end position, so that the splits of a substring read both halves
+// sequentially. The substrings of one length only read shorter ones, so each row is filled in parallel.
+public class CYKParser {
+    // Substring splits a leaf task works through; smaller rows are filled by the calling thread
+    private static final int LEAF_WORK = 1 << 14;
+
+    private final Grammar grammar;
+    private final SymbolTable symbols;
+    private final ForkJoinPool pool;
+    private final int start;
+    private final int words;
+    private final boolean derivesEmpty;
+
+    // Non-terminals with a production A -> a, by terminal index
+    private final long[] terminalMasks;
+    // Pairs of left child B: pairRights[pairOffsets[B] .. pairOffsets[B + 1]) are the right children C,
+    // each with the mask of the A's producing BC in pairMasks; rightMasks[B] is the union of those C's
+    private final int[] pairOffsets;
+    private final int[] pairRights;
+    private final long[] pairMasks;
+    private final long[] rightMasks;
+
+    public CYKParser(Grammar grammar) {
+        this(grammar, ForkJoinPool.commonPool());
+    }
+
+    public CYKParser(Grammar grammar, ForkJoinPool pool) {
+        this.grammar = grammar;
+        this.pool = pool;
+        CompiledGrammar compiled = grammar.compile();
+        this.symbols = compiled.symbols();
+        this.start = compiled.getStart();
+        int nonTerminalCount = this.symbols.nonTerminalCount();
+        this.words = Math.max(1, (nonTerminalCount + 63) >>> 6);
+        this.terminalMasks = new long[this.symbols.terminalCount() * this.words];
+
+        // S -> ε is only allowed while S appears on no right-hand side
+        boolean startOnRight = false;
+        for (int[] right : compiled.rightSides()) {
+            for (int symbol : right) {
+                startOnRight |= symbol == this.start;
+            }
+        }
+
+        // Binary productions grouped by (B, C), so that each pair gets one mask of left sides
+        boolean derivesEmpty = false;
+        int[][] binaries = new int[compiled.getProductionCount()][];
+        int binaryCount = 0;
+        for (int p = 0; p < compiled.getProductionCount(); p++) {
+            int left = compiled.getLeftSide(p);
+            int[] right = compiled.rightSides()[p];
+            if (right.length == 0 && left == this.start && !startOnRight) {
+                derivesEmpty = true;
+            } else if (right.length == 1 && !this.symbols.isNonTerminal(right[0])) {
+                set(this.terminalMasks, (right[0] - nonTerminalCount) * this.words, left);
+            } else if (right.length == 2 && this.symbols.isNonTerminal(right[0])
+                    && this.symbols.isNonTerminal(right[1])) {
+                binaries[binaryCount++] = new int[]{right[0], right[1], left};
+            } else {
+                throw new IllegalArgumentException("Production " + compiled.getProduction(p)
+                        + " is not in Chomsky normal form");
+            }
+        }
+        this.derivesEmpty = derivesEmpty;
+        binaries = Arrays.copyOf(binaries, binaryCount);
+        Arrays.sort(binaries, (a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]));
+
+        this.pairOffsets = new int[nonTerminalCount + 1];
+        int[] pairRights = new int[binaryCount];
+        long[] pairMasks = new long[binaryCount * this.words];
+        this.rightMasks = new long[nonTerminalCount * this.words];
+        int pairCount = 0;
+        for (int i = 0; i < binaryCount; i++) {
+            int[] binary = binaries[i];
+            if (i == 0 || binary[0] != binaries[i - 1][0] || binary[1] != binaries[i - 1][1]) {
+                pairRights[pairCount++] = binary[1];
+                this.pairOffsets[binary[0] + 1] = pairCount;
+                set(this.rightMasks, binary[0] * this.words, binary[1]);
+            }
+            set(pairMasks, (pairCount - 1) * this.words, binary[2]);
+        }
+        for (int b = 0; b < nonTerminalCount; b++) {
+            this.pairOffsets[b + 1] = Math.max(this.pairOffsets[b + 1], this.pairOffsets[b]);
+        }
+        this.pairRights = Arrays.copyOf(pairRights, pairCount);
+        this.pairMasks = Arrays.copyOf(pairMasks, pairCount * this.words);
+    }
+
+    public Grammar getGrammar() { return this.grammar; }
+
+    // Index of a terminal in the token ids accepts and parse take, -1 if it is not a terminal of the grammar
+    public int terminalId(String terminal) {
+        return this.symbols.terminalId(terminal);
+    }
+
+    public boolean accepts(String word) {
+        int[] tokens = this.symbols.terminals(word);
+        return tokens != null && accepts(tokens);
+    }
+
+    public boolean accepts(int[] tokens) {
+        this.symbols.checkTokens(tokens);
+        if (tokens.length == 0) {
+            return this.derivesEmpty;
+        }
+        Table table = fill(tokens);
+        return get(table.byStart, table.byStart(0, tokens.length), this.start);
+    }
+
+    // A parse tree of word, or IllegalArgumentException if the grammar does not derive it
+    public ParseTree parse(String word) {
+        return parse(this.symbols.tokens(word));
+    }
+
+    public ParseTree parse(int[] tokens) {
+        this.symbols.checkTokens(tokens);
+        String startName = this.symbols.name(this.start);
+        if (tokens.length == 0 && this.derivesEmpty) {
+            return new ParseTree(startName, 0, 0, List.of(new ParseTree(SymbolTable.EPSILON, 0, 0, List.of())));
+        }
+        Table table = tokens.length == 0 ? null : fill(tokens);
+        if (table == null || !get(table.byStart, table.byStart(0, tokens.length), this.start)) {
+            throw new IllegalArgumentException("The grammar does not derive the input");
+        }
+        return extract(table, tokens);
+    }
+
+    private Table fill(int[] tokens) {
+        int length = tokens.length;
+        Table table = new Table(length, this.words);
+        for (int i = 0; i < length; i++) {
+            System.arraycopy(this.terminalMasks, tokens[i] * this.words, table.byStart, table.byStart(i, 1),
+                    this.words);
+            System.arraycopy(this.terminalMasks, tokens[i] * this.words, table.byEnd, table.byEnd(i + 1, 1),
+                    this.words);
+        }
+        for (int size = 2; size <= length; size++) {
+            int cells = length - size + 1;
+            if ((long) cells * (size - 1) <= LEAF_WORK) {
+                fillCells(table, size, 0, cells);
+            } else {
+                this.pool.invoke(new RowTask(table, size, 0, cells));
+            }
+        }
+        return table;
+    }
+
+    // Fills the cells of the substrings of the given size starting at [from, to)
+    private void fillCells(Table table, int size, int from, int to) {
+        if (this.words == 1) {
+            fillSingleWordCells(table, size, from, to);
+            return;
+        }
+        int words = this.words;
+        long[] byStart = table.byStart;
+        long[] byEnd = table.byEnd;
+        for (int i = from; i < to; i++) {
+            int target = table.byStart(i, size);
+            // Left halves i..i+split grow from the start, right halves shrink towards the end
+            int left = table.byStart(i, 1);
+            int right = table.byEnd(i + size, size - 1);
+            for (int split = 1; split < size; split++, left += words, right -= words) {
+                for (int w = 0; w < words; w++) {
+                    for (long bits = byStart[left + w]; bits != 0; bits &= bits - 1) {
+                        int b = (w << 6) + Long.numberOfTrailingZeros(bits);
+                        if (!intersects(byEnd, right, this.rightMasks, b * words)) {
+                            continue;
+                        }
+                        for (int pair = this.pairOffsets[b]; pair < this.pairOffsets[b + 1]; pair++) {
+                            if (get(byEnd, right, this.pairRights[pair])) {
+                                int mask = pair * words;
+                                for (int x = 0; x < words; x++) {
+                                    byStart[target + x] |= this.pairMasks[mask + x];
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            System.arraycopy(byStart, target, byEnd, table.byEnd(i + size, size), words);
+        }
+    }
+
+    // fillCells for up to 64 non-terminals, where every cell is a single long
+    private void fillSingleWordCells(Table table, int size, int from, int to) {
+        long[] byStart = table.byStart;
+        long[] byEnd = table.byEnd;
+        for (int i = from; i < to; i++) {
+            int left = table.byStart(i, 1);
+            int right = table.byEnd(i + size, size - 1);
+            long cell = 0;
+            for (int split = 1; split < size; split++, left++, right--) {
+                long rightCell = byEnd[right];
+                if (rightCell == 0) {
+                    continue;
+                }
+                for (long bits = byStart[left]; bits != 0; bits &= bits - 1) {
+                    int b = Long.numberOfTrailingZeros(bits);
+                    if ((rightCell & this.rightMasks[b]) == 0) {
+                        continue;
+                    }
+                    for (int pair = this.pairOffsets[b]; pair < this.pairOffsets[b + 1]; pair++) {
+                        if ((rightCell & (1L << this.pairRights[pair])) != 0) {
+                            cell |= this.pairMasks[pair];
+                        }
+                    }
+                }
+            }
+            byStart[table.byStart(i, size)] = cell;
+            byEnd[table.byEnd(i + size, size)] = cell;
+        }
+    }
+
+    // Tree built from the filled table without recursion: the nodes are first laid out in pre-order
+    // with their children, then created from the last one back, so children always exist before parents
+    private ParseTree extract(Table table, int[] tokens) {
+        int length = tokens.length;
+        int nonTerminalCount = this.symbols.nonTerminalCount();
+        // Per node: symbol id, start, length, first child and second child (-1 for none). A binary tree
+        // over length leaves has 2 * length - 1 inner nodes.
+        int[] nodes = new int[5 * (3 * length)];
+        int count = addNode(nodes, 0, this.start, 0, length);
+        for (int node = 0; node < count; node++) {
+            int symbol = nodes[node * 5];
+            int from = nodes[node * 5 + 1];
+            int size = nodes[node * 5 + 2];
+            nodes[node * 5 + 3] = -1;
+            nodes[node * 5 + 4] = -1;
+            if (!this.symbols.isNonTerminal(symbol)) {
+                continue;
+            }
+            if (size == 1) {
+                nodes[node * 5 + 3] = count;
+                count = addNode(nodes, count, tokens[from] + nonTerminalCount, from, 1);
+                continue;
+            }
+            int[] split = findSplit(table, symbol, from, size);
+            nodes[node * 5 + 3] = count;
+            count = addNode(nodes, count, split[1], from, split[0]);
+            nodes[node * 5 + 4] = count;
+            count = addNode(nodes, count, split[2], from + split[0], size - split[0]);
+        }
+
+        ParseTree[] trees = new ParseTree[count];
+        for (int node = count - 1; node >= 0; node--) {
+            List<ParseTree> children = new ArrayList<>(2);
+            for (int child = 3; child <= 4; child++) {
+                if (nodes[node * 5 + child] >= 0) {
+                    children.add(trees[nodes[node * 5 + child]]);
+                }
+            }
+            int from = nodes[node * 5 + 1];
+            trees[node] = new ParseTree(this.symbols.name(nodes[node * 5]), from, from + nodes[node * 5 + 2], children);
+        }
+        return trees[0];
+    }
+
+    private static int addNode(int[] nodes, int count, int symbol, int from, int size) {
+        nodes[count * 5] = symbol;
+        nodes[count * 5 + 1] = from;
+        nodes[count * 5 + 2] = size;
+        return count + 1;
+    }
+
+    // {split, B, C} for the first production A -> BC with B deriving the first split tokens of the
+    // substring and C the rest
+    private int[] findSplit(Table table, int symbol, int from, int size) {
+        for (int split = 1; split < size; split++) {
+            int left = table.byStart(from, split);
+            int right = table.byStart(from + split, size - split);
+            for (int b = 0; b < this.symbols.nonTerminalCount(); b++) {
+                if (!get(table.byStart, left, b)) {
+                    continue;
+                }
+                for (int pair = this.pairOffsets[b]; pair < this.pairOffsets[b + 1]; pair++) {
+                    if (get(this.pairMasks, pair * this.words, symbol)
+                            && get(table.byStart, right, this.pairRights[pair])) {
+                        return new int[]{split, b, this.pairRights[pair]};
+                    }
+                }
+            }
+        }
+        throw new IllegalStateException("No split derives the cell");
+    }
+
+    private static void set(long[] bits, int offset, int bit) {
+        bits[offset + (bit >>> 6)] |= 1L << bit;
+    }
+
+    private static boolean get(long[] bits, int offset, int bit) {
+        return (bits[offset + (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    private boolean intersects(long[] a, int aOffset, long[] b, int bOffset) {
+        for (int w = 0; w < this.words; w++) {
+            if ((a[aOffset + w] & b[bOffset + w]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The same triangle of cells twice: byStart holds the substrings starting at i, of sizes 1 to
+    // length - i, one after the other; byEnd the substrings ending at e, of sizes 1 to e
+    private static final class Table {
+        private final int words;
+        private final long[] byStart;
+        private final long[] byEnd;
+        private final int[] startOffsets;
+        private final int[] endOffsets;
+
+        Table(int length, int words) {
+            long size = (long) length * (length + 1) / 2 * words;
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Input of " + length + " tokens is too long for a CYK table");
+            }
+            this.words = words;
+            this.byStart = new long[(int) size];
+            this.byEnd = new long[(int) size];
+            this.startOffsets = new int[length + 1];
+            this.endOffsets = new int[length + 1];
+            for (int i = 1; i <= length; i++) {
+                this.startOffsets[i] = this.startOffsets[i - 1] + (length - i + 1) * words;
+                this.endOffsets[i] = this.endOffsets[i - 1] + (i - 1) * words;
+            }
+        }
+
+        int byStart(int start, int size) {
+            return this.startOffsets[start] + (size - 1) * this.words;
+        }
+
+        int byEnd(int end, int size) {
+            return this.endOffsets[end] + (size - 1) * this.words;
+        }
+    }
+
+    private class RowTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Table table;
+        private final int size;
+        private final int from;
+        private final int to;
+
+        RowTask(Table table, int size, int from, int to) {
+            this.table = table;
+            this.size = size;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= 1 || (long) (this.to - this.from) * (this.size - 1) <= LEAF_WORK) {
+                fillCells(this.table, this.size, this.from, this.to);
+                return;
+            }
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(new RowTask(this.table, this.size, this.from, middle),
+                    new RowTask(this.table, this.size, middle, this.to));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package grammar;
+
+import java.util.Arrays;
+
+// Immutable, indexed form of a Grammar. Every symbol is interned to an int, non-terminals first and
+// terminals after them; right-hand sides are int[] of symbol ids, and the productions of each
+// non-terminal (its alternatives) are found through a CSR index instead of a scan of all productions.
+// Production indexes are those of Grammar.getProductions.
+public final class CompiledGrammar {
+    private final String[] nonTerminals;
+    private final String[] terminals;
+    private final Production[] productions;
+    private final String startingSymbol;
+
+    private final SymbolTable symbols;
+    private final int start;
+    private final int[] leftSides;
+    private final int[][] rightSides;
+    // Alternatives of non-terminal n: alternatives[alternativeOffsets[n] .. alternativeOffsets[n + 1])
+    private final int[] alternativeOffsets;
+    private final int[] alternatives;
+
+    CompiledGrammar(Grammar grammar) {
+        this.nonTerminals = grammar.getNonTerminalVariables();
+        this.terminals = grammar.getTerminalVariables();
+        this.productions = grammar.getProductions();
+        this.startingSymbol = grammar.getStartingCharacter();
+
+        this.symbols = new SymbolTable(this.nonTerminals, this.terminals);
+        this.start = this.symbols.id(this.startingSymbol);
+        if (this.start < 0 || !this.symbols.isNonTerminal(this.start)) {
+            throw new IllegalArgumentException("Starting symbol " + this.startingSymbol + " is not a non-terminal");
+        }
+        this.leftSides = new int[this.productions.length];
+        this.rightSides = new int[this.productions.length][];
+        for (int p = 0; p < this.productions.length; p++) {
+            this.leftSides[p] = this.symbols.leftSide(this.productions[p]);
+            this.rightSides[p] = this.symbols.rightSide(this.productions[p]);
+        }
+
+        int nonTerminalCount = this.symbols.nonTerminalCount();
+        this.alternativeOffsets = new int[nonTerminalCount + 1];
+        for (int left : this.leftSides) {
+            this.alternativeOffsets[left + 1]++;
+        }
+        for (int n = 0; n < nonTerminalCount; n++) {
+            this.alternativeOffsets[n + 1] += this.alternativeOffsets[n];
+        }
+        this.alternatives = new int[this.productions.length];
+        int[] filled = Arrays.copyOf(this.alternativeOffsets, nonTerminalCount);
+        for (int p = 0; p < this.productions.length; p++) {
+            this.alternatives[filled[this.leftSides[p]]++] = p;
+        }
+    }
+
+    // Whether this was compiled from the grammar's current arrays
+    boolean isCompiledFrom(Grammar grammar) {
+        return this.nonTerminals == grammar.getNonTerminalVariables()
+                && this.terminals == grammar.getTerminalVariables()
+                && this.productions == grammar.getProductions()
+                && this.startingSymbol.equals(grammar.getStartingCharacter());
+    }
+
+    public int getSymbolCount() { return this.symbols.size(); }
+    public int getNonTerminalCount() { return this.symbols.nonTerminalCount(); }
+    public int getTerminalCount() { return this.symbols.terminalCount(); }
+    public boolean isNonTerminal(int symbol) { return this.symbols.isNonTerminal(symbol); }
+    public String getSymbolName(int symbol) { return this.symbols.name(symbol); }
+    public int getStart() { return this.start; }
+
+    // Id of a declared symbol, -1 if there is none
+    public int getSymbolId(String symbol) { return this.symbols.id(symbol); }
+    // Index of a terminal in the token ids parsers take, -1 if it is not a terminal of the grammar
+    public int getTerminalId(String terminal) { return this.symbols.terminalId(terminal); }
+
+    public int getProductionCount() { return this.productions.length; }
+    public Production getProduction(int production) { return this.productions[production]; }
+    public int getLeftSide(int production) { return this.leftSides[production]; }
+    public int getRightSideLength(int production) { return this.rightSides[production].length; }
+    public int getRightSymbol(int production, int index) { return this.rightSides[production][index]; }
+
+    public int getAlternativeCount(int nonTerminal) {
+        return this.alternativeOffsets[nonTerminal + 1] - this.alternativeOffsets[nonTerminal];
+    }
+
+    // Production index of the index-th alternative of a non-terminal, in grammar order
+    public int getAlternative(int nonTerminal, int index) {
+        if (index < 0 || index >= getAlternativeCount(nonTerminal)) {
+            throw new IndexOutOfBoundsException("Alternative " + index + " out of bounds for "
+                    + this.symbols.name(nonTerminal));
+        }
+        return this.alternatives[this.alternativeOffsets[nonTerminal] + index];
+    }
+
+    // The arrays below are shared with the grammar algorithms of this package, which must not modify them
+
+    SymbolTable symbols() { return this.symbols; }
+    int[] leftSides() { return this.leftSides; }
+    int[][] rightSides() { return this.rightSides; }
+    int[] alternativeOffsets() { return this.alternativeOffsets; }
+    int[] alternatives() { return this.alternatives; }
+}
@@ -0,0 +1,442 @@
+package grammar;
+
+import java.util.*;
+
+// Earley parser for any context-free grammar, ambiguous, left- or right-recursive ones included. Items
+// are ints: a dotted rule, numbered consecutively within each production, and an origin. Nullable
+// non-terminals are handled as Aycock and Horspool do, by moving the dot over them when they are
+// predicted, so an item completed at its origin never has to look back into the set being built.
+// accepts uses Leo's optimization: when a finished set has a single item waiting on B and B is the
+// last symbol of that item, completing B goes straight to the topmost item of the chain, which keeps
+// right recursion linear. parse builds a shared packed parse forest while recognizing, as in Scott's
+// "SPPF-style parsing from Earley recognisers"; the forest needs every completion of the chain, so it
+// is built without Leo items.
+public class EarleyParser {
+    private static final int NONE = -1;
+
+    private final Grammar grammar;
+    private final SymbolTable symbols;
+    private final int start;
+    private final int[] leftSides;
+    private final int[][] rightSides;
+    private final int[] byLeftSideOffsets;
+    private final int[] byLeftSide;
+    private final FirstSets first;
+
+    // Production p with the dot before its symbol d is the rule ruleOffsets[p] + d
+    private final int[] ruleOffsets;
+    private final int[] ruleProductions;
+    // Symbol right after the dot of each rule, NONE when the dot is at the end
+    private final int[] nextSymbols;
+    // Forest labels: symbol names, then every dotted rule
+    private final String[] labelNames;
+
+    public EarleyParser(Grammar grammar) {
+        this.grammar = grammar;
+        CompiledGrammar compiled = grammar.compile();
+        this.symbols = compiled.symbols();
+        this.start = compiled.getStart();
+        this.leftSides = compiled.leftSides();
+        this.rightSides = compiled.rightSides();
+        this.byLeftSideOffsets = compiled.alternativeOffsets();
+        this.byLeftSide = compiled.alternatives();
+        this.first = new FirstSets(compiled);
+
+        int productionCount = compiled.getProductionCount();
+        this.ruleOffsets = new int[productionCount + 1];
+        for (int p = 0; p < productionCount; p++) {
+            this.ruleOffsets[p + 1] = this.ruleOffsets[p] + this.rightSides[p].length + 1;
+        }
+        int ruleCount = this.ruleOffsets[productionCount];
+        this.ruleProductions = new int[ruleCount];
+        this.nextSymbols = new int[ruleCount];
+        this.labelNames = new String[this.symbols.size() + ruleCount];
+        for (int id = 0; id < this.symbols.size(); id++) {
+            this.labelNames[id] = this.symbols.name(id);
+        }
+        for (int p = 0; p < productionCount; p++) {
+            int[] rightSide = this.rightSides[p];
+            for (int dot = 0; dot <= rightSide.length; dot++) {
+                int rule = this.ruleOffsets[p] + dot;
+                this.ruleProductions[rule] = p;
+                this.nextSymbols[rule] = dot < rightSide.length ? rightSide[dot] : NONE;
+                StringBuilder name = new StringBuilder(compiled.getProduction(p).getLeftSide()).append(" -> ");
+                for (int i = 0; i <= rightSide.length; i++) {
+                    if (i == dot) {
+                        name.append('·');
+                    }
+                    if (i < rightSide.length) {
+                        name.append(this.symbols.name(rightSide[i]));
+                    }
+                }
+                this.labelNames[this.symbols.size() + rule] = name.toString();
+            }
+        }
+    }
+
+    public Grammar getGrammar() { return this.grammar; }
+
+    // Index of a terminal in the token ids accepts and parse take, -1 if it is not a terminal of the grammar
+    public int terminalId(String terminal) {
+        return this.symbols.terminalId(terminal);
+    }
+
+    public boolean accepts(String word) {
+        int[] tokens = this.symbols.terminals(word);
+        return tokens != null && accepts(tokens);
+    }
+
+    public boolean accepts(int[] tokens) {
+        this.symbols.checkTokens(tokens);
+        return recognize(tokens);
+    }
+
+    // Forest of every parse of word, or IllegalArgumentException at the first token no parse can take
+    public ParseForest parse(String word) {
+        return parse(this.symbols.tokens(word));
+    }
+
+    public ParseForest parse(int[] tokens) {
+        this.symbols.checkTokens(tokens);
+        return buildForest(tokens);
+    }
+
+    private boolean recognize(int[] tokens) {
+        int length = tokens.length;
+        int nonTerminalCount = this.symbols.nonTerminalCount();
+        ItemSet[] sets = new ItemSet[length + 1];
+        sets[0] = new ItemSet();
+        for (int i = this.byLeftSideOffsets[this.start]; i < this.byLeftSideOffsets[this.start + 1]; i++) {
+            sets[0].add(this.ruleOffsets[this.byLeftSide[i]], 0, NONE);
+        }
+        int[] predicted = new int[nonTerminalCount];
+
+        for (int position = 0; position <= length; position++) {
+            ItemSet set = sets[position];
+            ItemSet next = position < length ? sets[position + 1] = new ItemSet() : null;
+            for (int index = 0; index < set.size; index++) {
+                int rule = set.rules[index];
+                int origin = set.origins[index];
+                int symbol = this.nextSymbols[rule];
+                if (symbol == NONE) {
+                    if (origin == position) {
+                        // Derived the empty word: the dot already moved over it at prediction
+                        continue;
+                    }
+                    int left = this.leftSides[this.ruleProductions[rule]];
+                    ItemSet from = sets[origin];
+                    int entry = from.waiting(left);
+                    if (entry < 0) {
+                        continue;
+                    }
+                    if (from.leoRules[entry] != NONE) {
+                        set.add(from.leoRules[entry], from.leoOrigins[entry], NONE);
+                        continue;
+                    }
+                    for (int i = from.waitOffsets[entry]; i < from.waitOffsets[entry + 1]; i++) {
+                        int waiting = from.waitItems[i];
+                        set.add(from.rules[waiting] + 1, from.origins[waiting], NONE);
+                    }
+                } else if (this.symbols.isNonTerminal(symbol)) {
+                    if (predicted[symbol] != position + 1) {
+                        predicted[symbol] = position + 1;
+                        for (int i = this.byLeftSideOffsets[symbol]; i < this.byLeftSideOffsets[symbol + 1]; i++) {
+                            set.add(this.ruleOffsets[this.byLeftSide[i]], position, NONE);
+                        }
+                    }
+                    if (this.first.isNullable(symbol)) {
+                        set.add(rule + 1, origin, NONE);
+                    }
+                } else if (next != null && symbol - nonTerminalCount == tokens[position]) {
+                    next.add(rule + 1, origin, NONE);
+                }
+            }
+            if (next != null) {
+                if (next.size == 0) {
+                    return false;
+                }
+                index(sets, position);
+            }
+        }
+
+        ItemSet last = sets[length];
+        for (int index = 0; index < last.size; index++) {
+            int rule = last.rules[index];
+            if (last.origins[index] == 0 && this.nextSymbols[rule] == NONE
+                    && this.leftSides[this.ruleProductions[rule]] == this.start) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Indexes the items of a finished set by the non-terminal they wait on, with the Leo item of every
+    // non-terminal that a single item waits on as its last symbol
+    private void index(ItemSet[] sets, int position) {
+        ItemSet set = sets[position];
+        long[] keys = new long[set.size];
+        int count = 0;
+        for (int index = 0; index < set.size; index++) {
+            int symbol = this.nextSymbols[set.rules[index]];
+            if (symbol != NONE && this.symbols.isNonTerminal(symbol)) {
+                keys[count++] = (long) symbol << 32 | index;
+            }
+        }
+        Arrays.sort(keys, 0, count);
+
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || keys[i] >>> 32 != keys[i - 1] >>> 32) {
+                distinct++;
+            }
+        }
+        set.waitSymbols = new int[distinct];
+        set.waitOffsets = new int[distinct + 1];
+        set.waitItems = new int[count];
+        set.leoRules = new int[distinct];
+        set.leoOrigins = new int[distinct];
+        int entry = -1;
+        for (int i = 0; i < count; i++) {
+            int symbol = (int) (keys[i] >>> 32);
+            if (entry < 0 || set.waitSymbols[entry] != symbol) {
+                set.waitSymbols[++entry] = symbol;
+                set.waitOffsets[entry] = i;
+            }
+            set.waitItems[i] = (int) keys[i];
+        }
+        set.waitOffsets[distinct] = count;
+
+        for (entry = 0; entry < distinct; entry++) {
+            set.leoRules[entry] = NONE;
+            set.leoOrigins[entry] = NONE;
+            if (set.waitOffsets[entry + 1] - set.waitOffsets[entry] != 1) {
+                continue;
+            }
+            int waiting = set.waitItems[set.waitOffsets[entry]];
+            int advanced = set.rules[waiting] + 1;
+            int origin = set.origins[waiting];
+            // Only chains through earlier sets, whose Leo items are all known already
+            if (this.nextSymbols[advanced] != NONE || origin == position) {
+                continue;
+            }
+            ItemSet from = sets[origin];
+            int parent = from.waiting(this.leftSides[this.ruleProductions[advanced]]);
+            if (parent >= 0 && from.leoRules[parent] != NONE) {
+                set.leoRules[entry] = from.leoRules[parent];
+                set.leoOrigins[entry] = from.leoOrigins[parent];
+            } else {
+                set.leoRules[entry] = advanced;
+                set.leoOrigins[entry] = origin;
+            }
+        }
+    }
+
+    private ParseForest buildForest(int[] tokens) {
+        int length = tokens.length;
+        int nonTerminalCount = this.symbols.nonTerminalCount();
+        ParseForest forest = new ParseForest(this.labelNames, this.symbols.size());
+        ItemSet[] sets = new ItemSet[length + 1];
+        sets[0] = new ItemSet();
+        // Items expecting the next token, which are scanned once the current set is finished
+        ItemSet scanned = new ItemSet();
+        for (int i = this.byLeftSideOffsets[this.start]; i < this.byLeftSideOffsets[this.start + 1]; i++) {
+            addItem(sets[0], scanned, tokens, 0, this.ruleOffsets[this.byLeftSide[i]], 0, NONE);
+        }
+        // Nodes ending at the current position, by (label, start)
+        Map<Long, Integer> nodes = new HashMap<>();
+        int[] predicted = new int[nonTerminalCount];
+        // Non-terminals completed over the empty word at the current position, with their nodes
+        int[] emptyStamps = new int[nonTerminalCount];
+        int[] emptyNodes = new int[nonTerminalCount];
+
+        for (int position = 0; position <= length; position++) {
+            ItemSet set = sets[position];
+            ItemSet scanning = scanned;
+            scanned = new ItemSet();
+            for (int index = 0; index < set.size; index++) {
+                int rule = set.rules[index];
+                int origin = set.origins[index];
+                int node = set.nodes[index];
+                int symbol = this.nextSymbols[rule];
+                if (symbol != NONE) {
+                    if (predicted[symbol] != position + 1) {
+                        predicted[symbol] = position + 1;
+                        for (int i = this.byLeftSideOffsets[symbol]; i < this.byLeftSideOffsets[symbol + 1]; i++) {
+                            addItem(set, scanning, tokens, position, this.ruleOffsets[this.byLeftSide[i]], position, NONE);
+                        }
+                    }
+                    if (emptyStamps[symbol] == position + 1) {
+                        int advanced = makeNode(forest, nodes, rule + 1, origin, position, node, emptyNodes[symbol]);
+                        addItem(set, scanning, tokens, position, rule + 1, origin, advanced);
+                    }
+                    continue;
+                }
+
+                int left = this.leftSides[this.ruleProductions[rule]];
+                if (node == NONE) {
+                    node = symbolNode(forest, nodes, left, position, position);
+                    forest.addFamily(node, NONE, NONE);
+                }
+                ItemSet from = sets[origin];
+                if (origin == position) {
+                    emptyStamps[left] = position + 1;
+                    emptyNodes[left] = node;
+                    for (int waiting = 0; waiting < set.size; waiting++) {
+                        if (this.nextSymbols[set.rules[waiting]] == left) {
+                            complete(forest, nodes, set, scanning, tokens, position, set, waiting, node);
+                        }
+                    }
+                    continue;
+                }
+                int entry = from.waiting(left);
+                if (entry >= 0) {
+                    for (int i = from.waitOffsets[entry]; i < from.waitOffsets[entry + 1]; i++) {
+                        complete(forest, nodes, set, scanning, tokens, position, from, from.waitItems[i], node);
+                    }
+                }
+            }
+            if (position == length) {
+                break;
+            }
+            if (scanning.size == 0) {
+                throw new IllegalArgumentException("Unexpected '" + tokenName(tokens[position]) + "' at position "
+                        + position);
+            }
+            index(sets, position);
+
+            nodes.clear();
+            int terminal = forest.addNode(tokens[position] + nonTerminalCount, position, position + 1);
+            ItemSet next = sets[position + 1] = new ItemSet();
+            for (int index = 0; index < scanning.size; index++) {
+                int rule = scanning.rules[index] + 1;
+                int origin = scanning.origins[index];
+                int advanced = makeNode(forest, nodes, rule, origin, position + 1, scanning.nodes[index], terminal);
+                addItem(next, scanned, tokens, position + 1, rule, origin, advanced);
+            }
+        }
+
+        Integer root = nodes.get(nodeKey(this.start, 0));
+        if (root == null) {
+            throw new IllegalArgumentException("Unexpected end of input at position " + length);
+        }
+        forest.setRoot(root);
+        return forest;
+    }
+
+    // Moves the dot of the waiting item over the non-terminal just completed with the given node
+    private void complete(ParseForest forest, Map<Long, Integer> nodes, ItemSet set, ItemSet scanning, int[] tokens,
+                          int position, ItemSet from, int waiting, int completed) {
+        int rule = from.rules[waiting] + 1;
+        int origin = from.origins[waiting];
+        int advanced = makeNode(forest, nodes, rule, origin, position, from.nodes[waiting], completed);
+        addItem(set, scanning, tokens, position, rule, origin, advanced);
+    }
+
+    // Adds an item to the set if its dot is before a non-terminal or at the end, or to the items to scan
+    // if its dot is before the next token; items that cannot take the next token are dropped
+    private void addItem(ItemSet set, ItemSet scanning, int[] tokens, int position, int rule, int origin, int node) {
+        int symbol = this.nextSymbols[rule];
+        if (symbol == NONE || this.symbols.isNonTerminal(symbol)) {
+            set.add(rule, origin, node);
+        } else if (position < tokens.length && symbol - this.symbols.nonTerminalCount() == tokens[position]) {
+            scanning.add(rule, origin, node);
+        }
+    }
+
+    // Node for a rule whose dot just moved over a symbol with node right, from an item with node left.
+    // A rule past its first symbol but not at the end needs no node of its own: it is the child itself.
+    private int makeNode(ParseForest forest, Map<Long, Integer> nodes, int rule, int origin, int position,
+                         int left, int right) {
+        boolean complete = this.nextSymbols[rule] == NONE;
+        int production = this.ruleProductions[rule];
+        if (!complete && rule - this.ruleOffsets[production] == 1) {
+            return right;
+        }
+        int label = complete ? this.leftSides[production] : this.symbols.size() + rule;
+        int node = symbolNode(forest, nodes, label, origin, position);
+        forest.addFamily(node, left, right);
+        return node;
+    }
+
+    private int symbolNode(ParseForest forest, Map<Long, Integer> nodes, int label, int start, int end) {
+        long key = nodeKey(label, start);
+        Integer node = nodes.get(key);
+        if (node == null) {
+            node = forest.addNode(label, start, end);
+            nodes.put(key, node);
+        }
+        return node;
+    }
+
+    private static long nodeKey(int label, int start) {
+        return (long) label << 32 | start;
+    }
+
+    private String tokenName(int token) {
+        return this.symbols.name(token + this.symbols.nonTerminalCount());
+    }
+
+    // Items of one Earley set in the order they were added, with an open-addressing hash of
+    // (rule, origin, node) against duplicates. Once the set is finished, index fills the items waiting
+    // on each non-terminal: waitItems[waitOffsets[e] .. waitOffsets[e + 1]) for waitSymbols[e].
+    private static final class ItemSet {
+        private int[] rules = new int[8];
+        private int[] origins = new int[8];
+        private int[] nodes = new int[8];
+        private int size;
+        // Item index + 1 of every slot, 0 for a free one
+        private int[] slots = new int[16];
+
+        private int[] waitSymbols;
+        private int[] waitOffsets;
+        private int[] waitItems;
+        private int[] leoRules;
+        private int[] leoOrigins;
+
+        void add(int rule, int origin, int node) {
+            int mask = this.slots.length - 1;
+            int slot = hash(rule, origin, node) & mask;
+            for (int item; (item = this.slots[slot]) != 0; slot = (slot + 1) & mask) {
+                item--;
+                if (this.rules[item] == rule && this.origins[item] == origin && this.nodes[item] == node) {
+                    return;
+                }
+            }
+            if (this.size == this.rules.length) {
+                this.rules = Arrays.copyOf(this.rules, this.size * 2);
+                this.origins = Arrays.copyOf(this.origins, this.size * 2);
+                this.nodes = Arrays.copyOf(this.nodes, this.size * 2);
+            }
+            this.rules[this.size] = rule;
+            this.origins[this.size] = origin;
+            this.nodes[this.size] = node;
+            this.slots[slot] = ++this.size;
+            if (this.size * 2 > this.slots.length) {
+                rehash();
+            }
+        }
+
+        // Entry of the non-terminal in the wait index, -1 if no item waits on it
+        int waiting(int symbol) {
+            int entry = Arrays.binarySearch(this.waitSymbols, symbol);
+            return entry < 0 ? -1 : entry;
+        }
+
+        private void rehash() {
+            this.slots = new int[this.slots.length * 2];
+            int mask = this.slots.length - 1;
+            for (int item = 0; item < this.size; item++) {
+                int slot = hash(this.rules[item], this.origins[item], this.nodes[item]) & mask;
+                while (this.slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                this.slots[slot] = item + 1;
+            }
+        }
+
+        private static int hash(int rule, int origin, int node) {
+            int hash = rule * 0x9E3779B1 + origin * 0x85EBCA6B + node * 0xC2B2AE35;
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
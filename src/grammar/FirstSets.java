@@ -0,0 +1,56 @@
+package grammar;
+
+import java.util.BitSet;
+
+// Nullable non-terminals and FIRST sets of a compiled grammar, computed to a fixpoint.
+// FIRST sets are indexed by non-terminal id and hold terminal indexes (symbol id - non-terminal count).
+final class FirstSets {
+    private final SymbolTable symbols;
+    private final boolean[] nullable;
+    private final BitSet[] first;
+
+    FirstSets(CompiledGrammar grammar) {
+        SymbolTable symbols = grammar.symbols();
+        int[] leftSides = grammar.leftSides();
+        int[][] rightSides = grammar.rightSides();
+        this.symbols = symbols;
+        this.nullable = new boolean[symbols.nonTerminalCount()];
+        this.first = new BitSet[symbols.nonTerminalCount()];
+        for (int i = 0; i < this.first.length; i++) {
+            this.first[i] = new BitSet();
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int p = 0; p < rightSides.length; p++) {
+                int left = leftSides[p];
+                int before = this.first[left].cardinality();
+                if (addFirst(rightSides[p], 0, this.first[left]) && !this.nullable[left]) {
+                    this.nullable[left] = true;
+                    changed = true;
+                }
+                changed |= this.first[left].cardinality() != before;
+            }
+        }
+    }
+
+    boolean isNullable(int nonTerminal) { return this.nullable[nonTerminal]; }
+    BitSet first(int nonTerminal) { return this.first[nonTerminal]; }
+
+    // Adds FIRST of symbols[from..] to set and returns whether that suffix derives the empty word
+    boolean addFirst(int[] symbols, int from, BitSet set) {
+        for (int i = from; i < symbols.length; i++) {
+            int symbol = symbols[i];
+            if (!this.symbols.isNonTerminal(symbol)) {
+                set.set(symbol - this.symbols.nonTerminalCount());
+                return false;
+            }
+            set.or(this.first[symbol]);
+            if (!this.nullable[symbol]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
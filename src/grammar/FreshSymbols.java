@@ -0,0 +1,44 @@
+package grammar;
+
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+// Supplier of non-terminal names unused by a grammar: the letters from M on, then the same letters with
+// a subscript counter (M₁, N₁, ..., M₂, ...), so there is no limit. A name that is a prefix of a declared
+// symbol is skipped too, since right-hand sides are split by longest match.
+final class FreshSymbols {
+    private static final String LETTERS = "MNOPQRSTUVWXYZABCDEFGHIJKL";
+
+    private final NavigableSet<String> used = new TreeSet<>();
+    private int next;
+
+    FreshSymbols(String[] nonTerminals, String[] terminals) {
+        this.used.addAll(List.of(nonTerminals));
+        this.used.addAll(List.of(terminals));
+    }
+
+    String next() {
+        while (true) {
+            String name = candidate(this.next++);
+            String following = this.used.ceiling(name);
+            if (following == null || !following.startsWith(name)) {
+                this.used.add(name);
+                return name;
+            }
+        }
+    }
+
+    private static String candidate(int index) {
+        String letter = String.valueOf(LETTERS.charAt(index % LETTERS.length()));
+        int round = index / LETTERS.length();
+        if (round == 0) {
+            return letter;
+        }
+        StringBuilder name = new StringBuilder(letter);
+        for (char digit : Integer.toString(round).toCharArray()) {
+            name.append((char) ('₀' + digit - '0'));
+        }
+        return name.toString();
+    }
+}
@@ -4,12 +4,15 @@ import automaton.FiniteAutomaton;
 import automaton.Transition;
 
 import java.util.*;
+import java.util.stream.Stream;
 
 public class Grammar {
     private String[] nonTerminalVariables;
     private final String[] terminalVariables;
     private       Production[] productions;
-    private final String startingCharacter;
+    private String startingCharacter;
+    private CompiledGrammar compiled;
+    private WordGenerator wordGenerator;
 
     public Grammar(String[] nonTerminalVariables, String[] terminalVariables,
                    Production[] productions, String startingCharacter) {
@@ -24,6 +27,17 @@ public class Grammar {
     public Production[] getProductions() { return this.productions; }
     public String getStartingCharacter() { return this.startingCharacter; }
 
+    // Indexed form of the grammar; compiled again once a transformation has replaced the productions or
+    // the non-terminals
+    public CompiledGrammar compile() {
+        CompiledGrammar compiled = this.compiled;
+        if (compiled == null || !compiled.isCompiledFrom(this)) {
+            compiled = new CompiledGrammar(this);
+            this.compiled = compiled;
+        }
+        return compiled;
+    }
+
     public static Grammar createBaseGrammar() {
         return new Grammar(
                 new String[]{"S", "I", "J", "K"},
@@ -44,43 +58,21 @@ public class Grammar {
     }
 
     public String generateWord() {
-        return generateWord(this.startingCharacter);
+        return wordGenerator().generate();
     }
 
-    private String generateWord(String symbol) {
-        StringBuilder result = new StringBuilder();
-
-        ArrayList<Production> possibleProductions = new ArrayList<>();
-        for (Production production : this.productions) {
-            if (Objects.equals(production.getLeftSide(), symbol)) {
-                possibleProductions.add(production);
-            }
-        }
-
-        Random random = new Random();
-        int randomIndex = random.nextInt(possibleProductions.size());
-        String rightSide = possibleProductions.get(randomIndex).getRightSide();
-        int nonTerminalLength = this.nonTerminalVariables[0].length();
-
-        for (int i = 0; i <= rightSide.length() - nonTerminalLength; i++) {
-            String currentSymbol = rightSide.substring(i, i + nonTerminalLength);
-            if (isNonTerminal(currentSymbol)) {
-                result.append(generateWord(currentSymbol));
-            } else {
-                result.append(currentSymbol.charAt(0));
-            }
-        }
-
-        return result.toString();
+    // count random words, generated in parallel; the same seed always gives the same words
+    public Stream<String> generateWords(long count, long seed) {
+        return wordGenerator().words(count, seed);
     }
 
-    private boolean isNonTerminal(String symbol) {
-        for (String nonTerminal : this.nonTerminalVariables) {
-            if (Objects.equals(nonTerminal, symbol)) {
-                return true;
-            }
+    private WordGenerator wordGenerator() {
+        WordGenerator generator = this.wordGenerator;
+        if (generator == null || !generator.isFor(compile())) {
+            generator = new WordGenerator(this);
+            this.wordGenerator = generator;
         }
-        return false;
+        return generator;
     }
 
     public FiniteAutomaton toFiniteAutomaton() {
@@ -185,287 +177,29 @@ public class Grammar {
         return true;
     }
 
+    // Rewrites this grammar into Chomsky normal form in place; toChomskyNormalForm returns the result as a
+    // new grammar instead
     public void convertToChomskyNormalForm() {
-        System.out.println("\n===== Initial grammar =====");
-        System.out.println(this);
-        this.removeEpsilonProductions();
-        System.out.println("\n===== Removed epsilon productions =====");
-        System.out.println(this);
-        this.removeUnitProductions();
-        System.out.println("\n===== Removed unit productions =====");
-        System.out.println(this);
-        this.removeNonproductiveSymbols();
-        System.out.println("\n===== Removed nonproductive symbols =====");
-        System.out.println(this);
-        this.removeInaccessibleSymbols();
-        System.out.println("\n===== Removed inaccessible symbols =====");
-        System.out.println(this);
-        this.toChomskyNormalFormStep();
-        System.out.println("\n===== Chomsky Normal Form =====");
-        System.out.println(this);
+        replaceWith(toChomskyNormalForm());
     }
 
-    private void removeEpsilonProductions() {
-        // For now this works only for grammars with one nullable non-terminal
-        String nullableNonTerminal = "";
-        for (Production production : productions) {
-            if (production.getRightSide().equals("ε")) {
-                nullableNonTerminal = production.getLeftSide();
-            }
-        }
-
-        // If there are no nullable non-terminals, we don't need to do anything
-        if (nullableNonTerminal.equals("")) {
-            System.out.println("No nullable non-terminals");
-            return;
-        }
-
-        // Replace all nullable non-terminals with ε
-        List<Production> newProductions = new ArrayList<>();
-        for (Production production : productions) {
-            if (production.getRightSide().equals("ε")) {
-                continue;
-            }
-
-            if (production.getRightSide().contains(nullableNonTerminal)) {
-                String newRightSide = production.getRightSide().replace(nullableNonTerminal, "");
-                newProductions.add(production);
-                newProductions.add(new Production(production.getLeftSide(), newRightSide));
-                continue;
-            }
-
-            newProductions.add(production);
-        }
-
-        this.productions = new Production[newProductions.size()];
-        newProductions.toArray(productions);
-    }
-
-    private void removeUnitProductions() {
-        // Find all unit productions
-        List<Production> unitProductions = new ArrayList<>();
-        for (Production production : productions) {
-            if (production.isUnitProduction()) {
-                unitProductions.add(production);
-            }
-        }
-
-        List<Production> newProductions = new ArrayList<>();
-        // My variant: S -> A, A -> B
-        for (Production unitProduction : unitProductions) {
-            for (Production production : productions) {
-                // When A -> Y, where Y is any symbol
-                // Add to new productions: S -> Y
-                if (production.getLeftSide().equals(unitProduction.getRightSide())) {
-                    // If Y is a terminal symbol
-                    // i.e. A -> Y -> x
-                    if (production.isUnitProduction()) {
-                        for (Production p : productions) {
-                            if (p.getLeftSide().equals(production.getRightSide())) {
-                                newProductions.add(new Production(unitProduction.getLeftSide(), p.getRightSide()));
-                            }
-                        }
-
-                        continue;
-                    }
-
-                    newProductions.add(new Production(unitProduction.getLeftSide(), production.getRightSide()));
-                    continue;
-                }
-
-                // Skip unit productions
-                if (production.isUnitProduction()) {
-                    continue;
-                }
-
-                // Doesn't allow duplicates
-                if(!newProductions.contains(production)) {
-                    newProductions.add(production);
-                }
-            }
-        }
-
-        productions = new Production[newProductions.size()];
-        newProductions.toArray(productions);
-    }
-
-
-    private void removeNonproductiveSymbols() {
-        // Initialize all non-terminal variables as non-productive
-        Map<String, Boolean> productiveSymbols = new HashMap<>();
-        for (String nonTerminal : nonTerminalVariables) {
-            productiveSymbols.put(nonTerminal, false);
-        }
-
-        // Find all productive symbols
-        for (Production production : productions) {
-            if (production.getRightSide().length() == 1
-                    && Character.isLowerCase(production.getRightSide().charAt(0))) {
-                productiveSymbols.put(production.getLeftSide(), true);
-            }
-        }
-
-        // Find all symbols that can be derived from productive symbols
-        for (Production production : productions) {
-            String rightSide = production.getRightSide();
-            boolean isProductive = true;
-
-            // Check if all non-terminals on the right side are already productive
-            for (int i = 0; i < rightSide.length(); i++) {
-                char symbol = rightSide.charAt(i);
-                if (Character.isUpperCase(symbol) && !productiveSymbols.get(String.valueOf(symbol))) {
-                    isProductive = false;
-                    break;
-                }
-            }
-
-            // If all symbols on the right side are productive, then the left side is also productive
-            if (isProductive) {
-                productiveSymbols.put(production.getLeftSide(), true);
-            }
-        }
-
-        // Update production rules
-        List<Production> newProductions = new ArrayList<>();
-        for (Production production : productions) {
-            if(productiveSymbols.get(production.getLeftSide())) {
-                newProductions.add(production);
-            }
-        }
-        productions = new Production[newProductions.size()];
-        newProductions.toArray(productions);
+    public Grammar toChomskyNormalForm() {
+        return GrammarPipeline.chomskyNormalForm().apply(this);
     }
 
     public void removeInaccessibleSymbols() {
-        // Step 1: Find all reachable symbols
-        Set<String> reachableSymbols = new HashSet<>();
-        Deque<String> stack = new ArrayDeque<>();
-
-        // Start with the starting symbol
-        stack.push(this.startingCharacter);
-
-        while (!stack.isEmpty()) {
-            String symbol = stack.pop();
-            // Add the symbol to the set of reachable symbols if it hasn't been added already
-            if (!reachableSymbols.contains(symbol)) {
-                reachableSymbols.add(symbol);
-                // Add all symbols on the right-hand side of each production for this symbol to the stack
-                List<Production> productionsList = getProductionsForSymbol(symbol);
-                for (Production production : productionsList) {
-                    for (char c : production.getRightSide().toCharArray()) {
-                        if (Character.isUpperCase(c)) {
-                            stack.push(String.valueOf(c));
-                        }
-                    }
-                }
-            }
-        }
-
-        // Step 2: Remove all productions that contain unreachable symbols
-        List<Production> newProductionsList = new ArrayList<>();
-        for (Production production : this.productions) {
-            // Add the production to the new list if its left-hand side symbol is reachable
-            if (reachableSymbols.contains(production.getLeftSide())) {
-                String rightSide = production.getRightSide();
-                StringBuilder newRightSide = new StringBuilder();
-                // Construct the new right-hand side by removing all unreachable symbols
-                for (char c : rightSide.toCharArray()) {
-                    if (reachableSymbols.contains(String.valueOf(c)) || Arrays.asList(this.terminalVariables).contains(String.valueOf(c))) {
-                        newRightSide.append(c);
-                    }
-                }
-                // Add the new production to the new list
-                newProductionsList.add(new Production(production.getLeftSide(), newRightSide.toString()));
-            }
-        }
-
-        // Update the list of productions in the Grammar object
-        this.productions = newProductionsList.toArray(new Production[0]);
-        this.nonTerminalVariables = reachableSymbols.toArray(new String[0]);
-    }
-
-    // Returns a list of all productions in the grammar that have the given symbol on the left-hand side.
-    private List<Production> getProductionsForSymbol(String symbol) {
-        List<Production> productionsList = new ArrayList<>();
-        for (Production production : this.productions) {
-            if (production.getLeftSide().equals(symbol)) {
-                productionsList.add(production);
-            }
-        }
-        return productionsList;
+        replaceWith(GrammarTransformations.removeInaccessibleSymbols(this));
     }
 
     public void toChomskyNormalFormStep() {
-        List<String> newNonTerminalVariables = new ArrayList<>(List.of(this.nonTerminalVariables));
-        List<Production> newProductions = new ArrayList<>();
-        // Map<oldNonTerminal, newNonTerminal>
-        Map<String, String> ProductionsMap = new HashMap<>();
-
-        // With what new non-terminal variable should we start
-        char newNonTerminalStart = 'M';
-
-        for (Production production : productions) {
-            // If the right side has more than 2 symbols
-            if(production.getRightSide().length() > 2 &&
-               production.getRightSide().matches("[A-Z][A-Z][A-Z]+")) {
-                String oldNonTerminal = production.getRightSide().substring(0, 2);
-
-                // If we already have a new non-terminal for this old non-terminal
-                if (ProductionsMap.containsKey(oldNonTerminal)) {
-                    newProductions.add(new Production(production.getLeftSide(),
-                            ProductionsMap.get(oldNonTerminal) + production.getRightSide().substring(2)));
-                    continue;
-                }
-
-                // If we don't have a new non-terminal for this old non-terminal
-                String newNonTerminal = String.valueOf(newNonTerminalStart);
-                ProductionsMap.put(oldNonTerminal, newNonTerminal);
-                newNonTerminalVariables.add(newNonTerminal);
-                newProductions.add(new Production(production.getLeftSide(),
-                        newNonTerminal + production.getRightSide().substring(2)));
-                newNonTerminalStart++;
-
-                continue;
-            }
-
-            // If the right side has 2 symbols and the first is a terminal and the second is a non-terminal
-            if (production.getRightSide().matches("[a-z][A-Z]")) {
-                String oldTerminal = production.getRightSide().substring(0, 1);
-
-                // If we already have a new non-terminal for this old terminal
-                if (ProductionsMap.containsKey(oldTerminal)) {
-                        newProductions.add(new Production(production.getLeftSide(),
-                                ProductionsMap.get(oldTerminal) + production.getRightSide().substring(1)));
-                        continue;
-                }
-
-                // If we don't have a new non-terminal for this old terminal
-                String newNonTerminal = String.valueOf(newNonTerminalStart);
-                ProductionsMap.put(oldTerminal, newNonTerminal);
-                newNonTerminalVariables.add(newNonTerminal);
-                newProductions.add(new Production(production.getLeftSide(),
-                        newNonTerminal + production.getRightSide().substring(1)));
-                newNonTerminalStart++;
-
-                continue;
-            }
-
-            newProductions.add(production);
-        }
-
-        // Add the new productions to the list of productions
-        for (Map.Entry<String, String> entry : ProductionsMap.entrySet()) {
-            String oldProduction = entry.getKey();
-            String newProduction = entry.getValue();
-            newProductions.add(new Production(newProduction, oldProduction));
-        }
-
-        // Update the list of productions in the Grammar object
-        this.productions = newProductions.toArray(new Production[0]);
-        this.nonTerminalVariables = newNonTerminalVariables.toArray(new String[0]);
+        replaceWith(GrammarTransformations.binarize(this));
     }
 
-
+    private void replaceWith(Grammar grammar) {
+        this.nonTerminalVariables = grammar.nonTerminalVariables;
+        this.productions = grammar.productions;
+        this.startingCharacter = grammar.startingCharacter;
+    }
 
     @Override
     public String toString() {
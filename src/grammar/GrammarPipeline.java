@@ -0,0 +1,79 @@
+package grammar;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+// Named transformations applied one after another. A pipeline is immutable: then and withListener
+// return new ones. Stages are only timed and reported when a listener is set.
+public final class GrammarPipeline implements GrammarTransformation {
+    // Told about every stage once it has run, with the grammar it produced
+    @FunctionalInterface
+    public interface Listener {
+        Listener NONE = (stage, result, nanos) -> {};
+
+        void stageFinished(String stage, Grammar result, long nanos);
+
+        // Prints each stage's name, time and resulting grammar
+        static Listener printing(PrintStream out) {
+            return (stage, result, nanos) -> {
+                out.printf("%n===== %s (%.3f ms) =====%n", stage, nanos / 1e6);
+                out.println(result);
+            };
+        }
+    }
+
+    private final List<String> names;
+    private final List<GrammarTransformation> stages;
+    private final Listener listener;
+
+    public GrammarPipeline() {
+        this(List.of(), List.of(), Listener.NONE);
+    }
+
+    private GrammarPipeline(List<String> names, List<GrammarTransformation> stages, Listener listener) {
+        this.names = names;
+        this.stages = stages;
+        this.listener = listener;
+    }
+
+    // Binarization, epsilon removal, unit removal and useless-symbol removal. Binarizing first leaves at
+    // most two symbols on every right-hand side, so epsilon removal copies a production at most four
+    // times instead of once per subset of its nullable symbols; the productions it shortens to one
+    // symbol are units that the next stage removes.
+    public static GrammarPipeline chomskyNormalForm() {
+        return new GrammarPipeline()
+                .then("Binarized right-hand sides", GrammarTransformations::binarize)
+                .then("Removed epsilon productions", GrammarTransformations::removeEpsilonProductions)
+                .then("Removed unit productions", GrammarTransformations::removeUnitProductions)
+                .then("Removed nonproductive symbols", GrammarTransformations::removeNonproductiveSymbols)
+                .then("Removed inaccessible symbols", GrammarTransformations::removeInaccessibleSymbols);
+    }
+
+    public GrammarPipeline then(String name, GrammarTransformation stage) {
+        List<String> names = new ArrayList<>(this.names);
+        List<GrammarTransformation> stages = new ArrayList<>(this.stages);
+        names.add(name);
+        stages.add(stage);
+        return new GrammarPipeline(List.copyOf(names), List.copyOf(stages), this.listener);
+    }
+
+    public GrammarPipeline withListener(Listener listener) {
+        return new GrammarPipeline(this.names, this.stages, listener);
+    }
+
+    public List<String> getStageNames() { return this.names; }
+
+    @Override
+    public Grammar apply(Grammar grammar) {
+        boolean traced = this.listener != Listener.NONE;
+        for (int i = 0; i < this.stages.size(); i++) {
+            long start = traced ? System.nanoTime() : 0;
+            grammar = this.stages.get(i).apply(grammar);
+            if (traced) {
+                this.listener.stageFinished(this.names.get(i), grammar, System.nanoTime() - start);
+            }
+        }
+        return grammar;
+    }
+}
@@ -0,0 +1,11 @@
+package grammar;
+
+// Rewriting step from one grammar to another; the grammar it is applied to is left unchanged
+@FunctionalInterface
+public interface GrammarTransformation {
+    Grammar apply(Grammar grammar);
+
+    default GrammarTransformation andThen(GrammarTransformation next) {
+        return grammar -> next.apply(apply(grammar));
+    }
+}
@@ -0,0 +1,336 @@
+package grammar;
+
+import java.util.*;
+
+// Pure grammar transformations behind Chomsky normal form. Each one returns a new grammar and leaves its
+// argument unchanged, so they compose freely; GrammarPipeline.chomskyNormalForm chains them in order.
+// They run over the compiled grammar: nullable and productive symbols are worklist fixpoints, unit
+// closures and reachability breadth-first searches.
+public final class GrammarTransformations {
+    private GrammarTransformations() {}
+
+    // Removes ε-productions, for any number of nullable non-terminals. Each production is copied once for
+    // every way of leaving out its nullable occurrences, the copy keeping all of them first, and copies
+    // that would be empty are dropped; that is 2^k copies for k nullable occurrences, so chomskyNormalForm
+    // binarizes first. A nullable starting symbol keeps S -> ε, behind a fresh starting
+    // symbol when it also occurs on a right-hand side.
+    public static Grammar removeEpsilonProductions(Grammar grammar) {
+        CompiledGrammar compiled = grammar.compile();
+        boolean[] nullable = markNonTerminals(compiled, false);
+        int start = compiled.getStart();
+
+        String[] nonTerminals = grammar.getNonTerminalVariables();
+        String startingSymbol = grammar.getStartingCharacter();
+        List<Production> newProductions = new ArrayList<>();
+        if (nullable[start]) {
+            if (occursOnRightSide(compiled, start)) {
+                String newStart = new FreshSymbols(nonTerminals, grammar.getTerminalVariables()).next();
+                List<String> newNonTerminals = new ArrayList<>(List.of(nonTerminals));
+                newNonTerminals.add(0, newStart);
+                newProductions.add(new Production(newStart, startingSymbol));
+                nonTerminals = newNonTerminals.toArray(new String[0]);
+                startingSymbol = newStart;
+            }
+            newProductions.add(new Production(startingSymbol, "ε"));
+        }
+
+        Set<String> added = new HashSet<>();
+        List<String> variants = new ArrayList<>();
+        for (int p = 0; p < compiled.getProductionCount(); p++) {
+            // Every symbol is appended to each variant so far; a nullable one also leaves a copy without it
+            variants.clear();
+            variants.add("");
+            for (int i = 0; i < compiled.getRightSideLength(p); i++) {
+                int symbol = compiled.getRightSymbol(p, i);
+                String name = compiled.getSymbolName(symbol);
+                int count = variants.size();
+                for (int v = 0; v < count; v++) {
+                    String variant = variants.get(v);
+                    variants.set(v, variant + name);
+                    if (compiled.isNonTerminal(symbol) && nullable[symbol]) {
+                        variants.add(variant);
+                    }
+                }
+            }
+
+            String leftSide = compiled.getProduction(p).getLeftSide();
+            for (String variant : variants) {
+                if (!variant.isEmpty() && added.add(leftSide + " -> " + variant)) {
+                    newProductions.add(new Production(leftSide, variant));
+                }
+            }
+        }
+
+        return new Grammar(nonTerminals, grammar.getTerminalVariables(),
+                newProductions.toArray(new Production[0]), startingSymbol);
+    }
+
+    // Replaces unit productions A -> B by the other productions of every non-terminal that A reaches
+    // through unit productions, found by a breadth-first search from each non-terminal. The productions
+    // of a non-terminal stay together: its own first, then those of its closure in declaration order,
+    // each right-hand side once.
+    public static Grammar removeUnitProductions(Grammar grammar) {
+        CompiledGrammar compiled = grammar.compile();
+        int nonTerminalCount = compiled.getNonTerminalCount();
+        List<Production> newProductions = new ArrayList<>();
+        BitSet closure = new BitSet(nonTerminalCount);
+        int[] queue = new int[nonTerminalCount];
+        Set<String> rightSides = new HashSet<>();
+
+        for (int nonTerminal = 0; nonTerminal < nonTerminalCount; nonTerminal++) {
+            closure.clear();
+            closure.set(nonTerminal);
+            queue[0] = nonTerminal;
+            int tail = 1;
+            for (int head = 0; head < tail; head++) {
+                int symbol = queue[head];
+                for (int k = 0; k < compiled.getAlternativeCount(symbol); k++) {
+                    int production = compiled.getAlternative(symbol, k);
+                    if (isUnitProduction(compiled, production)) {
+                        int target = compiled.getRightSymbol(production, 0);
+                        if (!closure.get(target)) {
+                            closure.set(target);
+                            queue[tail++] = target;
+                        }
+                    }
+                }
+            }
+
+            rightSides.clear();
+            String leftSide = compiled.getSymbolName(nonTerminal);
+            addNonUnitProductions(compiled, nonTerminal, leftSide, rightSides, newProductions);
+            for (int member = closure.nextSetBit(0); member >= 0; member = closure.nextSetBit(member + 1)) {
+                if (member != nonTerminal) {
+                    addNonUnitProductions(compiled, member, leftSide, rightSides, newProductions);
+                }
+            }
+        }
+
+        return withProductions(grammar, newProductions);
+    }
+
+    private static boolean isUnitProduction(CompiledGrammar compiled, int production) {
+        return compiled.getRightSideLength(production) == 1
+                && compiled.isNonTerminal(compiled.getRightSymbol(production, 0));
+    }
+
+    // Adds leftSide -> x for every production from -> x that is not a unit production, unless x was added
+    private static void addNonUnitProductions(CompiledGrammar compiled, int from, String leftSide,
+                                              Set<String> rightSides, List<Production> productions) {
+        for (int k = 0; k < compiled.getAlternativeCount(from); k++) {
+            int production = compiled.getAlternative(from, k);
+            String rightSide = compiled.getProduction(production).getRightSide();
+            if (!isUnitProduction(compiled, production) && rightSides.add(rightSide)) {
+                productions.add(new Production(leftSide, rightSide));
+            }
+        }
+    }
+
+    // Removes the non-terminals that derive no terminal word, with every production using them
+    public static Grammar removeNonproductiveSymbols(Grammar grammar) {
+        CompiledGrammar compiled = grammar.compile();
+        boolean[] productiveSymbols = markNonTerminals(compiled, true);
+
+        List<Production> newProductions = new ArrayList<>();
+        for (int p = 0; p < compiled.getProductionCount(); p++) {
+            boolean isProductive = productiveSymbols[compiled.getLeftSide(p)];
+            for (int i = 0; i < compiled.getRightSideLength(p) && isProductive; i++) {
+                int symbol = compiled.getRightSymbol(p, i);
+                isProductive = !compiled.isNonTerminal(symbol) || productiveSymbols[symbol];
+            }
+            if (isProductive) {
+                newProductions.add(compiled.getProduction(p));
+            }
+        }
+        return withProductions(grammar, newProductions);
+    }
+
+    // Non-terminals marked by the least fixpoint of "A is marked once some A -> x has only marked
+    // non-terminals in x": the productive ones, or the nullable ones when productions with terminals do
+    // not count. Each production counts its unmarked occurrences and a non-terminal is queued when one of
+    // its counts reaches zero, so every occurrence is visited once.
+    private static boolean[] markNonTerminals(CompiledGrammar compiled, boolean allowTerminals) {
+        int nonTerminalCount = compiled.getNonTerminalCount();
+        int productionCount = compiled.getProductionCount();
+        // Productions using each non-terminal, once per occurrence: uses[useOffsets[n] .. useOffsets[n + 1])
+        int[] useOffsets = new int[nonTerminalCount + 1];
+        int[] remaining = new int[productionCount];
+        for (int p = 0; p < productionCount; p++) {
+            for (int i = 0; i < compiled.getRightSideLength(p) && remaining[p] >= 0; i++) {
+                int symbol = compiled.getRightSymbol(p, i);
+                if (compiled.isNonTerminal(symbol)) {
+                    remaining[p]++;
+                } else if (!allowTerminals) {
+                    remaining[p] = -1;
+                }
+            }
+            if (remaining[p] > 0) {
+                for (int i = 0; i < compiled.getRightSideLength(p); i++) {
+                    int symbol = compiled.getRightSymbol(p, i);
+                    if (compiled.isNonTerminal(symbol)) {
+                        useOffsets[symbol + 1]++;
+                    }
+                }
+            }
+        }
+        for (int n = 0; n < nonTerminalCount; n++) {
+            useOffsets[n + 1] += useOffsets[n];
+        }
+
+        int[] uses = new int[useOffsets[nonTerminalCount]];
+        int[] filled = Arrays.copyOf(useOffsets, nonTerminalCount);
+        boolean[] marked = new boolean[nonTerminalCount];
+        int[] queue = new int[nonTerminalCount];
+        int tail = 0;
+        for (int p = 0; p < productionCount; p++) {
+            if (remaining[p] > 0) {
+                for (int i = 0; i < compiled.getRightSideLength(p); i++) {
+                    int symbol = compiled.getRightSymbol(p, i);
+                    if (compiled.isNonTerminal(symbol)) {
+                        uses[filled[symbol]++] = p;
+                    }
+                }
+            } else if (remaining[p] == 0 && !marked[compiled.getLeftSide(p)]) {
+                marked[compiled.getLeftSide(p)] = true;
+                queue[tail++] = compiled.getLeftSide(p);
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int symbol = queue[head];
+            for (int i = useOffsets[symbol]; i < useOffsets[symbol + 1]; i++) {
+                int p = uses[i];
+                int left = compiled.getLeftSide(p);
+                if (--remaining[p] == 0 && !marked[left]) {
+                    marked[left] = true;
+                    queue[tail++] = left;
+                }
+            }
+        }
+        return marked;
+    }
+
+    private static boolean occursOnRightSide(CompiledGrammar compiled, int symbol) {
+        for (int p = 0; p < compiled.getProductionCount(); p++) {
+            for (int i = 0; i < compiled.getRightSideLength(p); i++) {
+                if (compiled.getRightSymbol(p, i) == symbol) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Removes the non-terminals that no derivation from the starting symbol reaches, with their productions
+    public static Grammar removeInaccessibleSymbols(Grammar grammar) {
+        CompiledGrammar compiled = grammar.compile();
+        int nonTerminalCount = compiled.getNonTerminalCount();
+        boolean[] reachable = new boolean[nonTerminalCount];
+        int[] queue = new int[nonTerminalCount];
+        int tail = 0;
+        reachable[compiled.getStart()] = true;
+        queue[tail++] = compiled.getStart();
+        for (int head = 0; head < tail; head++) {
+            int symbol = queue[head];
+            for (int k = 0; k < compiled.getAlternativeCount(symbol); k++) {
+                int production = compiled.getAlternative(symbol, k);
+                for (int i = 0; i < compiled.getRightSideLength(production); i++) {
+                    int next = compiled.getRightSymbol(production, i);
+                    if (compiled.isNonTerminal(next) && !reachable[next]) {
+                        reachable[next] = true;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+
+        List<Production> newProductions = new ArrayList<>();
+        for (int p = 0; p < compiled.getProductionCount(); p++) {
+            if (reachable[compiled.getLeftSide(p)]) {
+                newProductions.add(compiled.getProduction(p));
+            }
+        }
+        List<String> newNonTerminalVariables = new ArrayList<>();
+        for (int n = 0; n < nonTerminalCount; n++) {
+            if (reachable[n]) {
+                newNonTerminalVariables.add(compiled.getSymbolName(n));
+            }
+        }
+
+        return new Grammar(newNonTerminalVariables.toArray(new String[0]), grammar.getTerminalVariables(),
+                newProductions.toArray(new Production[0]), grammar.getStartingCharacter());
+    }
+
+    // Removes nonproductive, then inaccessible symbols: what is left derives a terminal word and is reachable
+    public static Grammar removeUselessSymbols(Grammar grammar) {
+        return removeInaccessibleSymbols(removeNonproductiveSymbols(grammar));
+    }
+
+    // Leaves at most two symbols on every right-hand side, and no terminal on those of two, which is the
+    // form A -> BC or A -> a once ε- and unit productions are gone. A terminal in a longer right-hand side is
+    // replaced by a fresh non-terminal deriving just that terminal, and right-hand sides longer than two
+    // are folded from the left, A -> XYZ becoming A -> NZ with N -> XY. Equal terminals and pairs share
+    // one fresh non-terminal, whose production comes after all the others.
+    public static Grammar binarize(Grammar grammar) {
+        CompiledGrammar compiled = grammar.compile();
+        FreshSymbols freshSymbols = new FreshSymbols(grammar.getNonTerminalVariables(), grammar.getTerminalVariables());
+        List<String> newNonTerminalVariables = new ArrayList<>(List.of(grammar.getNonTerminalVariables()));
+        List<Production> newProductions = new ArrayList<>();
+        List<Production> freshProductions = new ArrayList<>();
+
+        // Names by symbol id, fresh non-terminals after the declared symbols. A fresh non-terminal is
+        // found by the terminal it replaces, or by the pair it derives as (first + 1) << 32 | second.
+        List<String> names = new ArrayList<>();
+        for (int id = 0; id < compiled.getSymbolCount(); id++) {
+            names.add(compiled.getSymbolName(id));
+        }
+        Map<Long, Integer> replacements = new HashMap<>();
+
+        for (int p = 0; p < compiled.getProductionCount(); p++) {
+            int length = compiled.getRightSideLength(p);
+            if (length < 2) {
+                newProductions.add(compiled.getProduction(p));
+                continue;
+            }
+
+            int[] symbols = new int[length];
+            for (int i = 0; i < length; i++) {
+                int symbol = compiled.getRightSymbol(p, i);
+                if (!compiled.isNonTerminal(symbol)) {
+                    symbol = replacements.computeIfAbsent((long) symbol,
+                            key -> addFreshSymbol(names.get(key.intValue()), names, freshSymbols,
+                                    newNonTerminalVariables, freshProductions));
+                }
+                symbols[i] = symbol;
+            }
+            int first = symbols[0];
+            for (int i = 1; i < length - 1; i++) {
+                int second = symbols[i];
+                int pair = first;
+                first = replacements.computeIfAbsent(((long) (pair + 1) << 32) | second,
+                        key -> addFreshSymbol(names.get(pair) + names.get(second), names, freshSymbols,
+                                newNonTerminalVariables, freshProductions));
+            }
+            newProductions.add(new Production(compiled.getProduction(p).getLeftSide(),
+                    names.get(first) + names.get(symbols[length - 1])));
+        }
+        newProductions.addAll(freshProductions);
+
+        return new Grammar(newNonTerminalVariables.toArray(new String[0]), grammar.getTerminalVariables(),
+                newProductions.toArray(new Production[0]), grammar.getStartingCharacter());
+    }
+
+    // Id of a new non-terminal deriving rightSide
+    private static int addFreshSymbol(String rightSide, List<String> names, FreshSymbols freshSymbols,
+                                      List<String> nonTerminals, List<Production> productions) {
+        String name = freshSymbols.next();
+        nonTerminals.add(name);
+        productions.add(new Production(name, rightSide));
+        names.add(name);
+        return names.size() - 1;
+    }
+
+    private static Grammar withProductions(Grammar grammar, List<Production> productions) {
+        return new Grammar(grammar.getNonTerminalVariables(), grammar.getTerminalVariables(),
+                productions.toArray(new Production[0]), grammar.getStartingCharacter());
+    }
+}
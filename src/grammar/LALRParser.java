@@ -0,0 +1,387 @@
+package grammar;
+
+import java.util.*;
+
+// LALR(1) parser generated from a context-free grammar, left recursion included. The LR(1) item sets
+// are built from the augmented grammar S' -> S and merged by core as they are found: reaching a known
+// core only adds lookaheads to the existing state, which is then processed again to pass them on.
+// ACTION and GOTO are compressed by row displacement. Shift/reduce conflicts are resolved as a shift
+// and reduce/reduce conflicts in favour of the production listed first; both are reported.
+// Parsing is a shift-reduce loop over an int stack of states.
+public class LALRParser {
+    private final Grammar grammar;
+    private final SymbolTable symbols;
+    private final int start;
+    // Productions of the grammar followed by the augmented one, S' -> S, whose left side id is
+    // nonTerminalCount
+    private final int[] leftSides;
+    private final int[][] rightSides;
+    private final int augmented;
+
+    // Items (production, dot) are numbered consecutively: itemOffsets[p] + dot
+    private final int[] itemOffsets;
+    private final int[] itemProductions;
+    // Productions of each non-terminal, byLeftSide[byLeftSideOffsets[n] .. byLeftSideOffsets[n + 1])
+    private final int[] byLeftSideOffsets;
+    private final int[] byLeftSide;
+    private final FirstSets first;
+
+    // State construction: sorted kernel items, one lookahead set per kernel item, and transitions by
+    // symbol id (-1 for none)
+    private final List<int[]> kernels = new ArrayList<>();
+    private final List<BitSet[]> kernelLookaheads = new ArrayList<>();
+    private final List<int[]> transitions = new ArrayList<>();
+    private final Map<Core, Integer> statesByCore = new HashMap<>();
+
+    // ACTION cells are shift to s as s + 1 and reduce by p as -(p + 1), reducing the augmented
+    // production accepts. GOTO cells are the target state + 1. 0 is an error in both.
+    private final int stateCount;
+    private final int actionColumns;
+    private final RowDisplacementTable action;
+    private final RowDisplacementTable gotoTable;
+    private final List<String> conflicts = new ArrayList<>();
+
+    public LALRParser(Grammar grammar) {
+        this.grammar = grammar;
+        CompiledGrammar compiled = grammar.compile();
+        this.symbols = compiled.symbols();
+        this.start = compiled.getStart();
+        int nonTerminalCount = this.symbols.nonTerminalCount();
+        this.augmented = compiled.getProductionCount();
+        this.leftSides = Arrays.copyOf(compiled.leftSides(), this.augmented + 1);
+        this.rightSides = Arrays.copyOf(compiled.rightSides(), this.augmented + 1);
+        this.leftSides[this.augmented] = nonTerminalCount;
+        this.rightSides[this.augmented] = new int[]{this.start};
+
+        this.itemOffsets = new int[this.rightSides.length + 1];
+        for (int p = 0; p < this.rightSides.length; p++) {
+            this.itemOffsets[p + 1] = this.itemOffsets[p] + this.rightSides[p].length + 1;
+        }
+        this.itemProductions = new int[this.itemOffsets[this.rightSides.length]];
+        for (int p = 0; p < this.rightSides.length; p++) {
+            Arrays.fill(this.itemProductions, this.itemOffsets[p], this.itemOffsets[p + 1], p);
+        }
+        // The augmented production is left out of both, S' never appears on a right-hand side
+        this.byLeftSideOffsets = compiled.alternativeOffsets();
+        this.byLeftSide = compiled.alternatives();
+        this.first = new FirstSets(compiled);
+
+        buildStates();
+        this.stateCount = this.kernels.size();
+        this.actionColumns = this.symbols.terminalCount() + 1;
+        int[][] actions = new int[this.stateCount][this.actionColumns];
+        int[][] gotos = new int[this.stateCount][nonTerminalCount];
+        buildTables(actions, gotos);
+        this.action = new RowDisplacementTable(actions, this.actionColumns);
+        this.gotoTable = new RowDisplacementTable(gotos, nonTerminalCount);
+    }
+
+    public Grammar getGrammar() { return this.grammar; }
+    public int getStateCount() { return this.stateCount; }
+    public List<String> getConflicts() { return Collections.unmodifiableList(this.conflicts); }
+    public boolean isLALR1() { return this.conflicts.isEmpty(); }
+
+    // Index of a terminal in the token ids parse takes, -1 if it is not a terminal of the grammar
+    public int terminalId(String terminal) {
+        return this.symbols.terminalId(terminal);
+    }
+
+    public boolean accepts(String word) {
+        int[] tokens = this.symbols.terminals(word);
+        return tokens != null && reduce(tokens, false) != null;
+    }
+
+    // Productions in the order they are reduced, the rightmost derivation of word in reverse
+    public int[] parse(String word) {
+        return reduce(this.symbols.tokens(word), true);
+    }
+
+    // Productions in the order they are reduced for a token stream of terminal ids
+    public int[] parse(int[] tokens) {
+        this.symbols.checkTokens(tokens);
+        return reduce(tokens, true);
+    }
+
+    private int[] reduce(int[] tokens, boolean throwOnError) {
+        int endOfInput = this.actionColumns - 1;
+        int[] stack = new int[64];
+        int top = 0;
+        int[] reductions = new int[16];
+        int count = 0;
+        int position = 0;
+
+        while (true) {
+            int state = stack[top];
+            int lookahead = position < tokens.length ? tokens[position] : endOfInput;
+            int cell = this.action.get(state, lookahead);
+            if (cell > 0) {
+                if (++top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top] = cell - 1;
+                position++;
+            } else if (cell < 0) {
+                int production = -cell - 1;
+                if (production == this.augmented) {
+                    return Arrays.copyOf(reductions, count);
+                }
+                if (count == reductions.length) {
+                    reductions = Arrays.copyOf(reductions, count * 2);
+                }
+                reductions[count++] = production;
+                top -= this.rightSides[production].length;
+                int target = this.gotoTable.get(stack[top], this.leftSides[production]) - 1;
+                if (++top == stack.length) {
+                    stack = Arrays.copyOf(stack, top * 2);
+                }
+                stack[top] = target;
+            } else {
+                if (!throwOnError) {
+                    return null;
+                }
+                String found = lookahead == endOfInput ? "end of input" : "'" + terminalName(lookahead) + "'";
+                List<String> expected = new ArrayList<>();
+                for (int column = 0; column < this.actionColumns; column++) {
+                    if (this.action.get(state, column) != 0) {
+                        expected.add(terminalName(column));
+                    }
+                }
+                throw new IllegalArgumentException("Unexpected " + found + " at position " + position
+                        + ", expected one of " + expected);
+            }
+        }
+    }
+
+    private void buildStates() {
+        int[] initial = {this.itemOffsets[this.augmented]};
+        BitSet endOfInput = new BitSet();
+        endOfInput.set(this.symbols.terminalCount());
+        addState(initial, new BitSet[]{endOfInput});
+
+        Closure closure = new Closure();
+        Deque<Integer> worklist = new ArrayDeque<>();
+        boolean[] queued = new boolean[16];
+        worklist.add(0);
+        queued[0] = true;
+        while (!worklist.isEmpty()) {
+            int state = worklist.poll();
+            queued[state] = false;
+            closure.compute(state);
+
+            // Kernel of the state reached by each symbol after a dot, carrying the items' lookaheads.
+            // Sorting the closure by (symbol after the dot, item) groups each kernel in item order.
+            int[] targets = this.transitions.get(state);
+            Integer[] order = new Integer[closure.size];
+            int movable = 0;
+            for (int i = 0; i < closure.size; i++) {
+                if (symbolAfterDot(closure.items[i]) >= 0) {
+                    order[movable++] = i;
+                }
+            }
+            Arrays.sort(order, 0, movable, Comparator.<Integer>comparingInt(i -> symbolAfterDot(closure.items[i]))
+                    .thenComparingInt(i -> closure.items[i]));
+            for (int from = 0, to; from < movable; from = to) {
+                int symbol = symbolAfterDot(closure.items[order[from]]);
+                to = from + 1;
+                while (to < movable && symbolAfterDot(closure.items[order[to]]) == symbol) {
+                    to++;
+                }
+                int[] kernel = new int[to - from];
+                BitSet[] lookaheads = new BitSet[to - from];
+                for (int k = 0; k < kernel.length; k++) {
+                    kernel[k] = closure.items[order[from + k]] + 1;
+                    lookaheads[k] = (BitSet) closure.lookaheads[order[from + k]].clone();
+                }
+
+                Integer existing = this.statesByCore.get(new Core(kernel));
+                int target;
+                boolean changed;
+                if (existing == null) {
+                    target = addState(kernel, lookaheads);
+                    changed = true;
+                } else {
+                    target = existing;
+                    changed = false;
+                    BitSet[] known = this.kernelLookaheads.get(target);
+                    for (int k = 0; k < kernel.length; k++) {
+                        int before = known[k].cardinality();
+                        known[k].or(lookaheads[k]);
+                        changed |= known[k].cardinality() != before;
+                    }
+                }
+                targets[symbol] = target;
+                if (changed) {
+                    if (target >= queued.length) {
+                        queued = Arrays.copyOf(queued, Math.max(queued.length * 2, target + 1));
+                    }
+                    if (!queued[target]) {
+                        queued[target] = true;
+                        worklist.add(target);
+                    }
+                }
+            }
+        }
+    }
+
+    private int addState(int[] kernel, BitSet[] lookaheads) {
+        int state = this.kernels.size();
+        this.kernels.add(kernel);
+        this.kernelLookaheads.add(lookaheads);
+        int[] targets = new int[this.symbols.size()];
+        Arrays.fill(targets, -1);
+        this.transitions.add(targets);
+        this.statesByCore.put(new Core(kernel), state);
+        return state;
+    }
+
+    private void buildTables(int[][] actions, int[][] gotos) {
+        Closure closure = new Closure();
+        int nonTerminalCount = this.symbols.nonTerminalCount();
+        for (int state = 0; state < this.stateCount; state++) {
+            int[] targets = this.transitions.get(state);
+            for (int symbol = 0; symbol < targets.length; symbol++) {
+                if (targets[symbol] < 0) {
+                    continue;
+                }
+                if (this.symbols.isNonTerminal(symbol)) {
+                    gotos[state][symbol] = targets[symbol] + 1;
+                } else {
+                    actions[state][symbol - nonTerminalCount] = targets[symbol] + 1;
+                }
+            }
+
+            closure.compute(state);
+            for (int i = 0; i < closure.size; i++) {
+                int item = closure.items[i];
+                if (symbolAfterDot(item) >= 0) {
+                    continue;
+                }
+                int production = this.itemProductions[item];
+                BitSet lookaheads = closure.lookaheads[i];
+                for (int column = lookaheads.nextSetBit(0); column >= 0; column = lookaheads.nextSetBit(column + 1)) {
+                    int claimed = actions[state][column];
+                    if (claimed == 0) {
+                        actions[state][column] = -(production + 1);
+                    } else if (claimed > 0) {
+                        this.conflicts.add("Shift/reduce conflict in state " + state + " on " + terminalName(column)
+                                + ": shift or reduce " + productionName(production));
+                    } else if (claimed != -(production + 1)) {
+                        int other = -claimed - 1;
+                        this.conflicts.add("Reduce/reduce conflict in state " + state + " on " + terminalName(column)
+                                + ": " + productionName(other) + " or " + productionName(production));
+                        if (production < other) {
+                            actions[state][column] = -(production + 1);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Symbol id right after the dot of an item, -1 when the dot is at the end
+    private int symbolAfterDot(int item) {
+        int production = this.itemProductions[item];
+        int dot = item - this.itemOffsets[production];
+        int[] rightSide = this.rightSides[production];
+        return dot < rightSide.length ? rightSide[dot] : -1;
+    }
+
+    private String terminalName(int terminal) {
+        return terminal == this.actionColumns - 1
+                ? LL1Parser.END_OF_INPUT
+                : this.symbols.name(terminal + this.symbols.nonTerminalCount());
+    }
+
+    private String productionName(int production) {
+        return production == this.augmented ? "accept" : this.grammar.getProductions()[production].toString();
+    }
+
+    // LR(1) closure of one state: its items with their lookahead sets, built on arrays indexed by item id
+    // that are reused from state to state
+    private final class Closure {
+        private final int[] slots = new int[itemProductions.length];
+        private int[] items = new int[16];
+        private BitSet[] lookaheads = new BitSet[16];
+        private int size;
+        private final BitSet scratch = new BitSet();
+
+        Closure() {
+            Arrays.fill(this.slots, -1);
+        }
+
+        void compute(int state) {
+            for (int i = 0; i < this.size; i++) {
+                this.slots[this.items[i]] = -1;
+            }
+            this.size = 0;
+            int[] kernel = kernels.get(state);
+            BitSet[] kernelSets = kernelLookaheads.get(state);
+            for (int k = 0; k < kernel.length; k++) {
+                add(kernel[k], kernelSets[k]);
+            }
+
+            // Items whose lookaheads grew are visited again until nothing changes
+            Deque<Integer> pending = new ArrayDeque<>();
+            for (int i = 0; i < this.size; i++) {
+                pending.add(i);
+            }
+            while (!pending.isEmpty()) {
+                int index = pending.poll();
+                int item = this.items[index];
+                int next = symbolAfterDot(item);
+                if (next < 0 || !symbols.isNonTerminal(next)) {
+                    continue;
+                }
+                int production = itemProductions[item];
+                int dot = item - itemOffsets[production];
+                this.scratch.clear();
+                if (first.addFirst(rightSides[production], dot + 1, this.scratch)) {
+                    this.scratch.or(this.lookaheads[index]);
+                }
+                for (int j = byLeftSideOffsets[next]; j < byLeftSideOffsets[next + 1]; j++) {
+                    int added = itemOffsets[byLeftSide[j]];
+                    int slot = this.slots[added];
+                    if (slot < 0) {
+                        pending.add(add(added, this.scratch));
+                    } else {
+                        int before = this.lookaheads[slot].cardinality();
+                        this.lookaheads[slot].or(this.scratch);
+                        if (this.lookaheads[slot].cardinality() != before) {
+                            pending.add(slot);
+                        }
+                    }
+                }
+            }
+        }
+
+        private int add(int item, BitSet lookahead) {
+            if (this.size == this.items.length) {
+                this.items = Arrays.copyOf(this.items, this.size * 2);
+                this.lookaheads = Arrays.copyOf(this.lookaheads, this.size * 2);
+            }
+            this.items[this.size] = item;
+            this.lookaheads[this.size] = (BitSet) lookahead.clone();
+            this.slots[item] = this.size;
+            return this.size++;
+        }
+    }
+
+    // Kernel items of a state, the key merging LR(1) states into LALR(1) ones
+    private static final class Core {
+        private final int[] items;
+        private final int hash;
+
+        Core(int[] items) {
+            this.items = items;
+            this.hash = Arrays.hashCode(items);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Core core && Arrays.equals(this.items, core.items);
+        }
+
+        @Override
+        public int hashCode() { return this.hash; }
+    }
+}
@@ -0,0 +1,235 @@
+package grammar;
+
+import java.util.*;
+
+// Table-driven LL(1) parser generated from a context-free grammar. Nullable, FIRST and FOLLOW sets are
+// computed to a fixpoint, then the predict table maps (non-terminal, lookahead) to the production to
+// expand, with one extra lookahead column for the end of input. A cell claimed by two productions is
+// reported as a conflict and keeps the production listed first in the grammar.
+// Parsing runs on an explicit int stack, so deeply nested input cannot overflow the Java stack.
+public class LL1Parser {
+    static final String END_OF_INPUT = "$";
+    private static final int NO_PRODUCTION = -1;
+
+    private final Grammar grammar;
+    private final SymbolTable symbols;
+    private final int start;
+    private final int[] leftSides;
+    private final int[][] rightSides;
+
+    // FOLLOW sets by non-terminal id, with bit terminalCount for the end of input
+    private final FirstSets first;
+    private final BitSet[] follow;
+
+    // Production index of (non-terminal, lookahead) at nonTerminal * columns + lookahead
+    private final int columns;
+    private final int[] table;
+    private final List<String> conflicts = new ArrayList<>();
+
+    public LL1Parser(Grammar grammar) {
+        this.grammar = grammar;
+        CompiledGrammar compiled = grammar.compile();
+        this.symbols = compiled.symbols();
+        this.start = compiled.getStart();
+        this.leftSides = compiled.leftSides();
+        this.rightSides = compiled.rightSides();
+
+        int nonTerminalCount = this.symbols.nonTerminalCount();
+        this.first = new FirstSets(compiled);
+        this.follow = new BitSet[nonTerminalCount];
+        for (int i = 0; i < nonTerminalCount; i++) {
+            this.follow[i] = new BitSet();
+        }
+        computeFollow();
+
+        this.columns = this.symbols.terminalCount() + 1;
+        this.table = new int[nonTerminalCount * this.columns];
+        Arrays.fill(this.table, NO_PRODUCTION);
+        buildTable();
+    }
+
+    public Grammar getGrammar() { return this.grammar; }
+    public List<String> getConflicts() { return Collections.unmodifiableList(this.conflicts); }
+    public boolean isLL1() { return this.conflicts.isEmpty(); }
+
+    // FIRST set of a non-terminal, with "ε" in it when the non-terminal derives the empty word
+    public Set<String> getFirst(String nonTerminal) {
+        int id = nonTerminalId(nonTerminal);
+        Set<String> set = terminalNames(this.first.first(id));
+        if (this.first.isNullable(id)) {
+            set.add(SymbolTable.EPSILON);
+        }
+        return set;
+    }
+
+    // FOLLOW set of a non-terminal, with "$" in it when the non-terminal can end the input
+    public Set<String> getFollow(String nonTerminal) {
+        return terminalNames(this.follow[nonTerminalId(nonTerminal)]);
+    }
+
+    // Index of a terminal in the token ids parse takes, -1 if it is not a terminal of the grammar
+    public int terminalId(String terminal) {
+        return this.symbols.terminalId(terminal);
+    }
+
+    // accepts and parse need an LL(1) table: with a conflict the cell keeps only the first production, and a
+    // left-recursive one would predict itself forever
+    public boolean accepts(String word) {
+        checkLL1();
+        int[] tokens = this.symbols.terminals(word);
+        return tokens != null && derive(tokens, false) != null;
+    }
+
+    // Leftmost derivation of word, as indexes into the grammar's productions
+    public int[] parse(String word) {
+        checkLL1();
+        return derive(this.symbols.tokens(word), true);
+    }
+
+    // Leftmost derivation of a token stream of terminal ids, as indexes into the grammar's productions
+    public int[] parse(int[] tokens) {
+        checkLL1();
+        this.symbols.checkTokens(tokens);
+        return derive(tokens, true);
+    }
+
+    private void checkLL1() {
+        if (!isLL1()) {
+            throw new IllegalStateException("Grammar is not LL(1): " + String.join("; ", this.conflicts));
+        }
+    }
+
+    private int[] derive(int[] tokens, boolean throwOnError) {
+        int nonTerminalCount = this.symbols.nonTerminalCount();
+        int endOfInput = this.columns - 1;
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = this.start;
+        int[] derivation = new int[16];
+        int steps = 0;
+        int position = 0;
+
+        while (top > 0) {
+            int symbol = stack[--top];
+            int lookahead = position < tokens.length ? tokens[position] : endOfInput;
+            if (!this.symbols.isNonTerminal(symbol)) {
+                if (symbol - nonTerminalCount != lookahead) {
+                    return fail(throwOnError, position, lookahead, List.of(this.symbols.name(symbol)));
+                }
+                position++;
+                continue;
+            }
+
+            int production = this.table[symbol * this.columns + lookahead];
+            if (production == NO_PRODUCTION) {
+                return fail(throwOnError, position, lookahead, expected(symbol));
+            }
+            if (steps == derivation.length) {
+                derivation = Arrays.copyOf(derivation, steps * 2);
+            }
+            derivation[steps++] = production;
+
+            int[] rightSide = this.rightSides[production];
+            if (top + rightSide.length > stack.length) {
+                stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + rightSide.length));
+            }
+            for (int i = rightSide.length - 1; i >= 0; i--) {
+                stack[top++] = rightSide[i];
+            }
+        }
+
+        if (position < tokens.length) {
+            return fail(throwOnError, position, tokens[position], List.of(END_OF_INPUT));
+        }
+        return Arrays.copyOf(derivation, steps);
+    }
+
+    private int[] fail(boolean throwOnError, int position, int lookahead, List<String> expected) {
+        if (!throwOnError) {
+            return null;
+        }
+        String found = lookahead == this.columns - 1 ? "end of input" : "'" + terminalName(lookahead) + "'";
+        throw new IllegalArgumentException("Unexpected " + found + " at position " + position
+                + ", expected one of " + expected);
+    }
+
+    // Lookaheads with an entry in the row of a non-terminal
+    private List<String> expected(int nonTerminal) {
+        List<String> expected = new ArrayList<>();
+        for (int column = 0; column < this.columns; column++) {
+            if (this.table[nonTerminal * this.columns + column] != NO_PRODUCTION) {
+                expected.add(terminalName(column));
+            }
+        }
+        return expected;
+    }
+
+    private void computeFollow() {
+        this.follow[this.start].set(this.symbols.terminalCount());
+        BitSet rest = new BitSet();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int p = 0; p < this.rightSides.length; p++) {
+                int[] rightSide = this.rightSides[p];
+                for (int i = 0; i < rightSide.length; i++) {
+                    int symbol = rightSide[i];
+                    if (!this.symbols.isNonTerminal(symbol)) {
+                        continue;
+                    }
+                    int before = this.follow[symbol].cardinality();
+                    rest.clear();
+                    if (this.first.addFirst(rightSide, i + 1, rest)) {
+                        rest.or(this.follow[this.leftSides[p]]);
+                    }
+                    this.follow[symbol].or(rest);
+                    changed |= this.follow[symbol].cardinality() != before;
+                }
+            }
+        }
+    }
+
+    private void buildTable() {
+        Production[] productions = this.grammar.getProductions();
+        BitSet lookaheads = new BitSet();
+        for (int p = 0; p < this.rightSides.length; p++) {
+            int left = this.leftSides[p];
+            lookaheads.clear();
+            if (this.first.addFirst(this.rightSides[p], 0, lookaheads)) {
+                lookaheads.or(this.follow[left]);
+            }
+            for (int column = lookaheads.nextSetBit(0); column >= 0; column = lookaheads.nextSetBit(column + 1)) {
+                int cell = left * this.columns + column;
+                int claimed = this.table[cell];
+                if (claimed == NO_PRODUCTION) {
+                    this.table[cell] = p;
+                } else if (claimed != p) {
+                    this.conflicts.add("Conflict at (" + this.symbols.name(left) + ", " + terminalName(column)
+                            + "): " + productions[claimed] + " and " + productions[p]);
+                }
+            }
+        }
+    }
+
+    private int nonTerminalId(String nonTerminal) {
+        int id = this.symbols.id(nonTerminal);
+        if (id < 0 || !this.symbols.isNonTerminal(id)) {
+            throw new IllegalArgumentException(nonTerminal + " is not a non-terminal of the grammar");
+        }
+        return id;
+    }
+
+    private String terminalName(int terminal) {
+        return terminal == this.columns - 1
+                ? END_OF_INPUT
+                : this.symbols.name(terminal + this.symbols.nonTerminalCount());
+    }
+
+    private Set<String> terminalNames(BitSet set) {
+        Set<String> names = new LinkedHashSet<>();
+        for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+            names.add(terminalName(i));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,270 @@
+package grammar;
+
+import java.util.*;
+
+// Shared packed parse forest: every way the input derives from the starting symbol, with each
+// (symbol, start, end) stored once. A node is a grammar symbol over the tokens [start, end) or an
+// intermediate node for a partly matched production, and each of its families is one way to derive it
+// from at most two children: the intermediate node or symbol for the part before the last symbol, and
+// the last symbol itself. A family without children derives the empty word. Ambiguous input only adds
+// families, so the forest stays polynomial in size where the number of trees grows exponentially.
+public class ParseForest {
+    private static final int NONE = -1;
+
+    // Symbol names followed by dotted rules; node labels index into it
+    private final String[] labelNames;
+    private final int symbolCount;
+
+    private int[] labels = new int[64];
+    private int[] starts = new int[64];
+    private int[] ends = new int[64];
+    private int[] firstFamilies = new int[64];
+    private int size;
+
+    // Families of a node form a linked list through familyNext
+    private int[] familyLeft = new int[64];
+    private int[] familyRight = new int[64];
+    private int[] familyNext = new int[64];
+    private int familyCount;
+
+    private int root = NONE;
+
+    ParseForest(String[] labelNames, int symbolCount) {
+        this.labelNames = labelNames;
+        this.symbolCount = symbolCount;
+    }
+
+    int addNode(int label, int start, int end) {
+        if (this.size == this.labels.length) {
+            int capacity = this.size * 2;
+            this.labels = Arrays.copyOf(this.labels, capacity);
+            this.starts = Arrays.copyOf(this.starts, capacity);
+            this.ends = Arrays.copyOf(this.ends, capacity);
+            this.firstFamilies = Arrays.copyOf(this.firstFamilies, capacity);
+        }
+        this.labels[this.size] = label;
+        this.starts[this.size] = start;
+        this.ends[this.size] = end;
+        this.firstFamilies[this.size] = NONE;
+        return this.size++;
+    }
+
+    // Adds the family (left, right) to node unless it already has it; NONE stands for a missing child
+    void addFamily(int node, int left, int right) {
+        for (int family = this.firstFamilies[node]; family != NONE; family = this.familyNext[family]) {
+            if (this.familyLeft[family] == left && this.familyRight[family] == right) {
+                return;
+            }
+        }
+        if (this.familyCount == this.familyLeft.length) {
+            int capacity = this.familyCount * 2;
+            this.familyLeft = Arrays.copyOf(this.familyLeft, capacity);
+            this.familyRight = Arrays.copyOf(this.familyRight, capacity);
+            this.familyNext = Arrays.copyOf(this.familyNext, capacity);
+        }
+        this.familyLeft[this.familyCount] = left;
+        this.familyRight[this.familyCount] = right;
+        this.familyNext[this.familyCount] = this.firstFamilies[node];
+        this.firstFamilies[node] = this.familyCount++;
+    }
+
+    void setRoot(int root) {
+        this.root = root;
+    }
+
+    public int getRoot() { return this.root; }
+    public int size() { return this.size; }
+    public int getStart(int node) { return this.starts[node]; }
+    public int getEnd(int node) { return this.ends[node]; }
+
+    // Symbol name, or the dotted production of an intermediate node
+    public String getLabel(int node) { return this.labelNames[this.labels[node]]; }
+
+    public boolean isIntermediate(int node) { return this.labels[node] >= this.symbolCount; }
+
+    // Child node ids of every family of node; an empty array is the family of the empty word
+    public List<int[]> getFamilies(int node) {
+        List<int[]> families = new ArrayList<>();
+        for (int family = this.firstFamilies[node]; family != NONE; family = this.familyNext[family]) {
+            families.add(children(family));
+        }
+        Collections.reverse(families);
+        return families;
+    }
+
+    // Whether some node can be derived in more than one way
+    public boolean isAmbiguous() {
+        for (int node = 0; node < this.size; node++) {
+            int family = this.firstFamilies[node];
+            if (family != NONE && this.familyNext[family] != NONE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Number of distinct parse trees, Long.MAX_VALUE when there are more, -1 when there are infinitely
+    // many because the forest has a cycle (A =>+ A)
+    public long countTrees() {
+        long[] counts = new long[this.size];
+        byte[] states = new byte[this.size];
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(this.root);
+        while (!stack.isEmpty()) {
+            int node = stack.peek();
+            if (states[node] == 0) {
+                states[node] = 1;
+                for (int family = this.firstFamilies[node]; family != NONE; family = this.familyNext[family]) {
+                    for (int child : children(family)) {
+                        if (states[child] == 1) {
+                            return -1;
+                        }
+                        if (states[child] == 0) {
+                            stack.push(child);
+                        }
+                    }
+                }
+                continue;
+            }
+            stack.pop();
+            if (states[node] == 2) {
+                continue;
+            }
+            states[node] = 2;
+            if (this.firstFamilies[node] == NONE) {
+                counts[node] = 1;
+                continue;
+            }
+            long total = 0;
+            for (int family = this.firstFamilies[node]; family != NONE; family = this.familyNext[family]) {
+                long product = 1;
+                for (int child : children(family)) {
+                    product = saturatedMultiply(product, counts[child]);
+                }
+                total = total > Long.MAX_VALUE - product ? Long.MAX_VALUE : total + product;
+            }
+            counts[node] = total;
+        }
+        return counts[this.root];
+    }
+
+    // One parse tree of the input. Every node takes the family of its shallowest derivation, found in
+    // order of increasing height, so the tree is finite even when the forest has cycles; it is built
+    // from the leaves up without recursion.
+    public ParseTree getTree() {
+        // Parents of each node, as families, to visit once all of a family's children are done
+        int[] parentOffsets = new int[this.size + 1];
+        int[] owners = new int[this.familyCount];
+        for (int node = 0; node < this.size; node++) {
+            for (int family = this.firstFamilies[node]; family != NONE; family = this.familyNext[family]) {
+                owners[family] = node;
+                for (int child : children(family)) {
+                    parentOffsets[child + 1]++;
+                }
+            }
+        }
+        for (int node = 0; node < this.size; node++) {
+            parentOffsets[node + 1] += parentOffsets[node];
+        }
+        int[] parentFamilies = new int[parentOffsets[this.size]];
+        int[] filled = Arrays.copyOf(parentOffsets, this.size);
+        int[] remaining = new int[this.familyCount];
+        for (int family = 0; family < this.familyCount; family++) {
+            for (int child : children(family)) {
+                parentFamilies[filled[child]++] = family;
+                remaining[family]++;
+            }
+        }
+
+        // Knuth's generalization of Dijkstra: height of a family is 1 + the height of its highest child
+        int[] heights = new int[this.size];
+        int[] chosen = new int[this.size];
+        Arrays.fill(heights, Integer.MAX_VALUE);
+        Arrays.fill(chosen, NONE);
+        PriorityQueue<long[]> queue = new PriorityQueue<>(Comparator.comparingLong(entry -> entry[0]));
+        for (int node = 0; node < this.size; node++) {
+            if (this.firstFamilies[node] == NONE) {
+                heights[node] = 0;
+                queue.add(new long[]{0, node});
+            }
+        }
+        for (int family = 0; family < this.familyCount; family++) {
+            if (remaining[family] == 0 && heights[owners[family]] > 1) {
+                heights[owners[family]] = 1;
+                chosen[owners[family]] = family;
+                queue.add(new long[]{1, owners[family]});
+            }
+        }
+        boolean[] done = new boolean[this.size];
+        int[] order = new int[this.size];
+        int ordered = 0;
+        while (!queue.isEmpty()) {
+            int node = (int) queue.poll()[1];
+            if (done[node]) {
+                continue;
+            }
+            done[node] = true;
+            order[ordered++] = node;
+            for (int i = parentOffsets[node]; i < parentOffsets[node + 1]; i++) {
+                int family = parentFamilies[i];
+                if (--remaining[family] == 0) {
+                    int owner = owners[family];
+                    int height = heights[node] + 1;
+                    if (!done[owner] && height < heights[owner]) {
+                        heights[owner] = height;
+                        chosen[owner] = family;
+                        queue.add(new long[]{height, owner});
+                    }
+                }
+            }
+        }
+
+        // Children are finished before their parents; an intermediate node keeps the flattened list of
+        // the children it stands for
+        ParseTree[] trees = new ParseTree[this.size];
+        List<List<ParseTree>> sequences = new ArrayList<>(Collections.nCopies(this.size, null));
+        for (int i = 0; i < ordered; i++) {
+            int node = order[i];
+            List<ParseTree> children = new ArrayList<>();
+            int family = chosen[node];
+            if (family != NONE) {
+                int left = this.familyLeft[family];
+                int right = this.familyRight[family];
+                if (left == NONE && right == NONE) {
+                    children.add(new ParseTree(SymbolTable.EPSILON, this.starts[node], this.starts[node], List.of()));
+                }
+                if (left != NONE) {
+                    if (isIntermediate(left)) {
+                        children.addAll(sequences.get(left));
+                    } else {
+                        children.add(trees[left]);
+                    }
+                }
+                if (right != NONE) {
+                    children.add(trees[right]);
+                }
+            }
+            if (isIntermediate(node)) {
+                sequences.set(node, children);
+            } else {
+                trees[node] = new ParseTree(getLabel(node), this.starts[node], this.ends[node], children);
+            }
+        }
+        return trees[this.root];
+    }
+
+    private int[] children(int family) {
+        int left = this.familyLeft[family];
+        int right = this.familyRight[family];
+        if (left == NONE) {
+            return right == NONE ? new int[0] : new int[]{right};
+        }
+        return right == NONE ? new int[]{left} : new int[]{left, right};
+    }
+
+    private static long saturatedMultiply(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        return high != 0 || low < 0 ? Long.MAX_VALUE : low;
+    }
+}
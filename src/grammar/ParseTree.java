@@ -0,0 +1,56 @@
+package grammar;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+// Node of a parse tree: a grammar symbol covering the tokens [start, end) of the input. Terminals, and
+// "ε" under a non-terminal that derives the empty word, are the leaves.
+public class ParseTree {
+    private final String symbol;
+    private final int start;
+    private final int end;
+    private final List<ParseTree> children;
+
+    public ParseTree(String symbol, int start, int end, List<ParseTree> children) {
+        this.symbol = symbol;
+        this.start = start;
+        this.end = end;
+        this.children = List.copyOf(children);
+    }
+
+    public String getSymbol() { return this.symbol; }
+    public int getStart() { return this.start; }
+    public int getEnd() { return this.end; }
+    public List<ParseTree> getChildren() { return this.children; }
+    public boolean isLeaf() { return this.children.isEmpty(); }
+
+    // Bracketed form, S(A(a) B(b)); built without recursion, so deep trees print too
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            Object next = pending.pop();
+            if (next instanceof String text) {
+                result.append(text);
+                continue;
+            }
+            ParseTree tree = (ParseTree) next;
+            result.append(tree.symbol);
+            if (tree.isLeaf()) {
+                continue;
+            }
+            result.append('(');
+            pending.push(")");
+            for (int i = tree.children.size() - 1; i >= 0; i--) {
+                pending.push(tree.children.get(i));
+                if (i > 0) {
+                    pending.push(" ");
+                }
+            }
+        }
+        return result.toString();
+    }
+}
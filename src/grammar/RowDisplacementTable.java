@@ -0,0 +1,88 @@
+package grammar;
+
+import java.util.Arrays;
+
+// Sparse int[row][column] table compressed by row displacement: the rows are laid over each other in a
+// single array, each at the first offset where its non-empty cells land on free slots, and check records
+// which row owns every slot. Cells that are 0 in the dense rows read back as 0.
+final class RowDisplacementTable {
+    private final int[] offsets;
+    private final int[] values;
+    private final int[] check;
+
+    RowDisplacementTable(int[][] rows, int columns) {
+        this.offsets = new int[rows.length];
+        int[][] cells = new int[rows.length][];
+        Integer[] order = new Integer[rows.length];
+        for (int row = 0; row < rows.length; row++) {
+            order[row] = row;
+            int count = 0;
+            for (int value : rows[row]) {
+                if (value != 0) {
+                    count++;
+                }
+            }
+            cells[row] = new int[count];
+            count = 0;
+            for (int column = 0; column < columns; column++) {
+                if (rows[row][column] != 0) {
+                    cells[row][count++] = column;
+                }
+            }
+        }
+        // Dense rows first, the sparse ones fill the gaps they leave
+        Arrays.sort(order, (a, b) -> Integer.compare(cells[b].length, cells[a].length));
+
+        int[] values = new int[Math.max(16, columns * 2)];
+        int[] check = new int[values.length];
+        Arrays.fill(check, -1);
+        int firstFree = 0;
+        int length = columns;
+        for (int row : order) {
+            int[] used = cells[row];
+            if (used.length == 0) {
+                continue;
+            }
+            int offset = Math.max(0, firstFree - used[0]);
+            while (!fits(check, used, offset)) {
+                offset++;
+            }
+            if (offset + columns > values.length) {
+                int capacity = Math.max(values.length * 2, offset + columns);
+                values = Arrays.copyOf(values, capacity);
+                int previous = check.length;
+                check = Arrays.copyOf(check, capacity);
+                Arrays.fill(check, previous, capacity, -1);
+            }
+            for (int column : used) {
+                values[offset + column] = rows[row][column];
+                check[offset + column] = row;
+            }
+            this.offsets[row] = offset;
+            length = Math.max(length, offset + columns);
+            while (firstFree < check.length && check[firstFree] >= 0) {
+                firstFree++;
+            }
+        }
+        this.values = Arrays.copyOf(values, length);
+        this.check = Arrays.copyOf(check, length);
+    }
+
+    private static boolean fits(int[] check, int[] used, int offset) {
+        for (int column : used) {
+            int index = offset + column;
+            if (index < check.length && check[index] >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    int get(int row, int column) {
+        int index = this.offsets[row] + column;
+        return this.check[index] == row ? this.values[index] : 0;
+    }
+
+    // Slots in the compressed array
+    int size() { return this.values.length; }
+}
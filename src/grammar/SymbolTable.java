@@ -0,0 +1,140 @@
+package grammar;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Grammar symbols interned to ints: non-terminals get the ids [0, nonTerminalCount), terminals the ids
+// after them. Right-hand sides are split into declared symbols by longest match, so symbols may be longer
+// than one character; "ε" and the empty string are the empty right-hand side.
+final class SymbolTable {
+    static final String EPSILON = "ε";
+
+    private final String[] names;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final int nonTerminalCount;
+    private final int maxLength;
+    // Whether some symbol has each length, so split only looks up the lengths that can match
+    private final boolean[] lengths;
+
+    SymbolTable(String[] nonTerminals, String[] terminals) {
+        String[] names = new String[nonTerminals.length + terminals.length];
+        int count = 0;
+        int maxLength = 1;
+        for (String symbol : nonTerminals) {
+            if (this.ids.putIfAbsent(symbol, count) == null) {
+                names[count++] = symbol;
+                maxLength = Math.max(maxLength, symbol.length());
+            }
+        }
+        this.nonTerminalCount = count;
+        for (String symbol : terminals) {
+            if (this.ids.putIfAbsent(symbol, count) == null) {
+                names[count++] = symbol;
+                maxLength = Math.max(maxLength, symbol.length());
+            }
+        }
+        this.names = Arrays.copyOf(names, count);
+        this.maxLength = maxLength;
+        this.lengths = new boolean[maxLength + 1];
+        for (String name : this.names) {
+            this.lengths[name.length()] = true;
+        }
+    }
+
+    int size() { return this.names.length; }
+    int nonTerminalCount() { return this.nonTerminalCount; }
+    int terminalCount() { return this.names.length - this.nonTerminalCount; }
+    boolean isNonTerminal(int id) { return id < this.nonTerminalCount; }
+    String name(int id) { return this.names[id]; }
+
+    // Id of a declared symbol, -1 if there is none
+    int id(String symbol) {
+        Integer id = this.ids.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    // Symbol ids of text, longest declared symbol first at every position, or null if some part of the
+    // text is not a declared symbol
+    int[] split(String text) {
+        if (text.isEmpty() || text.equals(EPSILON)) {
+            return new int[0];
+        }
+        int[] symbols = new int[text.length()];
+        int count = 0;
+        int position = 0;
+        while (position < text.length()) {
+            int length = Math.min(this.maxLength, text.length() - position);
+            int id = -1;
+            while (length > 0 && (!this.lengths[length]
+                    || (id = id(text.substring(position, position + length))) < 0)) {
+                length--;
+            }
+            if (id < 0) {
+                return null;
+            }
+            symbols[count++] = id;
+            position += length;
+        }
+        return Arrays.copyOf(symbols, count);
+    }
+
+    // Terminal indexes (symbol id - non-terminal count) of word, or null if it is not made of terminals
+    int[] terminals(String word) {
+        int[] tokens = word.isEmpty() ? new int[0] : split(word);
+        if (tokens == null) {
+            return null;
+        }
+        for (int i = 0; i < tokens.length; i++) {
+            if (isNonTerminal(tokens[i])) {
+                return null;
+            }
+            tokens[i] -= this.nonTerminalCount;
+        }
+        return tokens;
+    }
+
+    // Terminal index of a symbol, the token id parsers take for it, or -1 if it is not a terminal
+    int terminalId(String terminal) {
+        int id = id(terminal);
+        return id < 0 || isNonTerminal(id) ? -1 : id - this.nonTerminalCount;
+    }
+
+    // terminals of a word that has to be made of terminals
+    int[] tokens(String word) {
+        int[] tokens = terminals(word);
+        if (tokens == null) {
+            throw new IllegalArgumentException("'" + word + "' is not made of terminals of the grammar");
+        }
+        return tokens;
+    }
+
+    // Rejects the first token id that is not a terminal index
+    void checkTokens(int[] tokens) {
+        int terminalCount = terminalCount();
+        for (int i = 0; i < tokens.length; i++) {
+            if (tokens[i] < 0 || tokens[i] >= terminalCount) {
+                throw new IllegalArgumentException("Token id " + tokens[i] + " at position " + i
+                        + " is not a terminal of the grammar");
+            }
+        }
+    }
+
+    // Symbol ids of a production's right-hand side
+    int[] rightSide(Production production) {
+        int[] symbols = split(production.getRightSide());
+        if (symbols == null) {
+            throw new IllegalArgumentException("Production " + production + " uses an undeclared symbol");
+        }
+        return symbols;
+    }
+
+    // Id of a production's left-hand side, which has to be a single declared non-terminal
+    int leftSide(Production production) {
+        int id = id(production.getLeftSide());
+        if (id < 0 || !isNonTerminal(id)) {
+            throw new IllegalArgumentException("Production " + production + " does not rewrite a single non-terminal");
+        }
+        return id;
+    }
+}
@@ -0,0 +1,124 @@
+package grammar;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+// Random words of a grammar, in bulk for fuzzing. Each step picks one of a non-terminal's alternatives
+// uniformly, as Grammar.generateWord always has. The alternatives and right-hand sides are flat int
+// arrays, derivations run on an explicit stack so that long ones cannot overflow the Java stack, and
+// each thread keeps its own SplittableRandom, stack and StringBuilder across words.
+public final class WordGenerator {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    // Capacity a thread's StringBuilder may keep after an unusually long word
+    private static final int RETAINED_CAPACITY = 1 << 16;
+
+    private final CompiledGrammar compiled;
+    private final int start;
+    private final int nonTerminalCount;
+    // Alternatives of non-terminal n: choices[choiceOffsets[n] .. choiceOffsets[n + 1])
+    private final int[] choiceOffsets;
+    private final int[] choices;
+    // Right-hand side of production p: symbols[symbolOffsets[p] .. symbolOffsets[p + 1])
+    private final int[] symbolOffsets;
+    private final int[] symbols;
+    private final String[] names;
+
+    private final ThreadLocal<SplittableRandom> randoms = ThreadLocal.withInitial(SplittableRandom::new);
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    public WordGenerator(Grammar grammar) {
+        this.compiled = grammar.compile();
+        this.start = this.compiled.getStart();
+        this.nonTerminalCount = this.compiled.getNonTerminalCount();
+        this.choiceOffsets = this.compiled.alternativeOffsets();
+        this.choices = this.compiled.alternatives();
+
+        int[][] rightSides = this.compiled.rightSides();
+        this.symbolOffsets = new int[rightSides.length + 1];
+        for (int p = 0; p < rightSides.length; p++) {
+            this.symbolOffsets[p + 1] = this.symbolOffsets[p] + rightSides[p].length;
+        }
+        this.symbols = new int[this.symbolOffsets[rightSides.length]];
+        for (int p = 0; p < rightSides.length; p++) {
+            System.arraycopy(rightSides[p], 0, this.symbols, this.symbolOffsets[p], rightSides[p].length);
+        }
+        this.names = new String[this.compiled.getSymbolCount()];
+        for (int id = 0; id < this.names.length; id++) {
+            this.names[id] = this.compiled.getSymbolName(id);
+        }
+    }
+
+    boolean isFor(CompiledGrammar compiled) {
+        return this.compiled == compiled;
+    }
+
+    // One word, drawn with this thread's random generator
+    public String generate() {
+        return generate(this.randoms.get());
+    }
+
+    public String generate(SplittableRandom random) {
+        Buffers buffers = this.buffers.get();
+        StringBuilder word = buffers.word;
+        int[] stack = buffers.stack;
+        int top = 0;
+        stack[top++] = this.start;
+        while (top > 0) {
+            int symbol = stack[--top];
+            if (symbol >= this.nonTerminalCount) {
+                word.append(this.names[symbol]);
+                continue;
+            }
+            int from = this.choiceOffsets[symbol];
+            int count = this.choiceOffsets[symbol + 1] - from;
+            if (count == 0) {
+                word.setLength(0);
+                throw new IllegalArgumentException("Non-terminal " + this.names[symbol] + " has no productions");
+            }
+            int production = this.choices[count == 1 ? from : from + random.nextInt(count)];
+            int begin = this.symbolOffsets[production];
+            int end = this.symbolOffsets[production + 1];
+            if (top + end - begin > stack.length) {
+                stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + end - begin));
+                buffers.stack = stack;
+            }
+            // Pushed last symbol first, so the leftmost one is expanded next
+            for (int i = end - 1; i >= begin; i--) {
+                stack[top++] = this.symbols[i];
+            }
+        }
+
+        String result = word.toString();
+        word.setLength(0);
+        if (word.capacity() > RETAINED_CAPACITY) {
+            word.trimToSize();
+        }
+        return result;
+    }
+
+    // count words generated in parallel, each thread drawing from its own random generator
+    public Stream<String> words(long count) {
+        return LongStream.range(0, count).parallel().mapToObj(i -> generate());
+    }
+
+    // count words generated in parallel and reproducibly: word i is drawn from a generator seeded by
+    // seed and i alone, so the same seed gives the same words in the same order on any number of threads
+    public Stream<String> words(long count, long seed) {
+        return LongStream.range(0, count).parallel()
+                .mapToObj(i -> generate(new SplittableRandom(mix(seed + i * GOLDEN_GAMMA))));
+    }
+
+    // SplitMix64 finalizer, so that consecutive indexes give unrelated seeds
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class Buffers {
+        private final StringBuilder word = new StringBuilder();
+        private int[] stack = new int[64];
+    }
+}
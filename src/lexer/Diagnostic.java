@@ -0,0 +1,31 @@
+package lexer;
+
+// An error found while lexing or parsing with error recovery, covering the source characters [start, end)
+public class Diagnostic {
+  private final int start;
+  private final int end;
+  private final String message;
+
+  public Diagnostic(int start, int end, String message) {
+    this.start = start;
+    this.end = end;
+    this.message = message;
+  }
+
+  public int getStart() {
+    return this.start;
+  }
+
+  public int getEnd() {
+    return this.end;
+  }
+
+  public String getMessage() {
+    return this.message;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d-%d: %s", start, end, message);
+  }
+}
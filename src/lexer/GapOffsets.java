@@ -0,0 +1,108 @@
+package lexer;
+
+import java.util.Arrays;
+
+// Increasing source offsets of a run of items, such as tokens or statements, kept in one array with a gap
+// at the last replaced index. Offsets before the gap are stored as they are and offsets after it as their
+// distance back from the end of the text, so an edit that changes the length of the text moves none of
+// them. Replacing items first moves the gap there, which costs the number of items between two edits
+// rather than the number after one. Subclasses keep per-item data in arrays laid out like the offsets,
+// indexed by slot, and move it along in moveData and resize.
+public abstract class GapOffsets {
+  private int[] offsets;
+  private int gapStart;
+  private int gapEnd;
+  private int textLength;
+
+  protected GapOffsets(int capacity) {
+    this.offsets = new int[capacity];
+    this.gapEnd = capacity;
+  }
+
+  public int size() {
+    return this.offsets.length - (this.gapEnd - this.gapStart);
+  }
+
+  public int getOffset(int index) {
+    return index < this.gapStart ? this.offsets[index] : this.offsets[slot(index)] + this.textLength;
+  }
+
+  // Index of the first item at or after offset, size() if there is none
+  public int indexAtOrAfter(int offset) {
+    int low = 0;
+    int high = size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (getOffset(middle) < offset) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  // Index of the item at offset, -1 if no item starts there
+  public int indexOf(int offset) {
+    int index = indexAtOrAfter(offset);
+    return index < size() && getOffset(index) == offset ? index : -1;
+  }
+
+  // Array index of an item's data
+  protected int slot(int index) {
+    return index < this.gapStart ? index : index + this.gapEnd - this.gapStart;
+  }
+
+  // Replaces items [from, to) by count items for a text that is now textLength long; the offsets of the
+  // new ones are then set with setOffset and their data stored at slot(from) to slot(from + count - 1),
+  // which are consecutive
+  protected void replace(int from, int to, int count, int textLength) {
+    moveGap(to);
+    this.gapStart = from;
+    if (this.gapEnd - this.gapStart < count) {
+      int after = this.offsets.length - this.gapEnd;
+      int capacity = Math.max(this.offsets.length * 2, size() + count + 16);
+      this.offsets = Arrays.copyOf(this.offsets, capacity);
+      resize(capacity);
+      System.arraycopy(this.offsets, this.gapEnd, this.offsets, capacity - after, after);
+      moveData(this.gapEnd, capacity - after, after);
+      this.gapEnd = capacity - after;
+    }
+    this.gapStart += count;
+    this.textLength = textLength;
+  }
+
+  // Offset of one of the items added by the last replace
+  protected void setOffset(int index, int offset) {
+    this.offsets[index] = offset;
+  }
+
+  // Copies count items of data from slot from to slot to, like System.arraycopy within each array
+  protected abstract void moveData(int from, int to, int count);
+
+  // Grows the data arrays to capacity slots, keeping the existing slots where they are
+  protected abstract void resize(int capacity);
+
+  // Moves the items between the gap and index across it, so that the gap starts at index
+  private void moveGap(int index) {
+    if (index < this.gapStart) {
+      int count = this.gapStart - index;
+      int target = this.gapEnd - count;
+      // Backwards, since the target range may overlap the end of the source range
+      for (int i = count - 1; i >= 0; i--) {
+        this.offsets[target + i] = this.offsets[index + i] - this.textLength;
+      }
+      moveData(index, target, count);
+      this.gapStart = index;
+      this.gapEnd = target;
+    } else if (index > this.gapStart) {
+      int count = index - this.gapStart;
+      for (int i = 0; i < count; i++) {
+        this.offsets[this.gapStart + i] = this.offsets[this.gapEnd + i] + this.textLength;
+      }
+      moveData(this.gapEnd, this.gapStart, count);
+      this.gapStart = index;
+      this.gapEnd += count;
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package lexer;
+
+import java.util.Arrays;
+
+// Tokens of a source text that is edited in place. An edit only relexes from the first token whose match
+// could have read the edited characters, and stops as soon as a new token starts where an old one did
+// after the edit; from there on the old tokens are kept. The text is a gap buffer and the token starts a
+// GapOffsets, so the tokens after an edit are neither copied nor moved. Tokens cover the source without
+// gaps, WHITESPACE tokens included, so a token ends where the next one starts.
+public class IncrementalLexer {
+  private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+  private final TokenAutomaton automaton;
+  private final TextBuffer source;
+  private final Tokens tokens = new Tokens();
+
+  // Relexed range of the last edit, [damageStart, damageEnd) in the new text
+  private int damageStart;
+  private int damageEnd;
+  private int relexedTokens;
+
+  public IncrementalLexer(String source) {
+    this.automaton = Lexer.TOKEN_AUTOMATON;
+    this.source = new TextBuffer("");
+    edit(0, 0, source);
+  }
+
+  // The current text, which later edits change in place; toString takes a copy
+  public CharSequence getSource() { return this.source; }
+  public int size() { return this.tokens.size(); }
+  public TokenType getType(int index) { return TOKEN_TYPES[this.tokens.types[this.tokens.slot(index)]]; }
+  public int getStart(int index) { return this.tokens.getOffset(index); }
+  public int getLength(int index) { return getEnd(index) - getStart(index); }
+  public int getDamageStart() { return this.damageStart; }
+  public int getDamageEnd() { return this.damageEnd; }
+  public int getRelexedTokens() { return this.relexedTokens; }
+
+  private int getEnd(int index) {
+    return index + 1 < size() ? getStart(index + 1) : this.source.length();
+  }
+
+  // Token at index, or END_OF_INPUT at the end of the source for index == size()
+  public Token getToken(int index) {
+    if (index == size()) {
+      return new Token(TokenType.END_OF_INPUT, "", this.source.length());
+    }
+    int start = getStart(index);
+    return new Token(getType(index), this.source.subSequence(start, getEnd(index)), start);
+  }
+
+  // Index of the first token that starts at or after offset, size() if there is none
+  public int tokenAtOrAfter(int offset) {
+    return this.tokens.indexAtOrAfter(offset);
+  }
+
+  // Replaces source[offset, offset + removedLength) with insertedText and returns the replaced text, which
+  // undoes the edit when put back. If the new text cannot be lexed, throws IllegalArgumentException and
+  // keeps the previous text and tokens.
+  public String edit(int offset, int removedLength, String insertedText) {
+    int oldLength = this.source.length();
+    if (offset < 0 || removedLength < 0 || offset + removedLength > oldLength) {
+      throw new IllegalArgumentException("Edit [" + offset + ", " + (offset + removedLength)
+              + ") is outside of the source of length " + oldLength);
+    }
+    String removed = this.source.subSequence(offset, offset + removedLength);
+    int delta = insertedText.length() - removedLength;
+
+    // Tokens ending more than lookahead characters before the edit never read an edited character
+    int lookahead = this.automaton.lookahead();
+    int size = size();
+    int first = 0;
+    if (lookahead != Integer.MAX_VALUE) {
+      int low = 0;
+      int high = size;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if ((long) getEnd(middle) + lookahead > offset) {
+          high = middle;
+        } else {
+          low = middle + 1;
+        }
+      }
+      first = low;
+    }
+    // The last token always reaches the edit, so first < size unless the source was empty
+    int from = first < size ? getStart(first) : 0;
+
+    // Relex into separate arrays, so that a lexing error leaves the previous tokens untouched
+    this.source.replace(offset, removedLength, insertedText);
+    int editEnd = offset + insertedText.length();
+    TokenCursor cursor = new TokenCursor(this.automaton, this.source, from, this.source.length());
+    byte[] newTypes = new byte[16];
+    int[] newStarts = new int[16];
+    int count = 0;
+    int resume = size;
+    try {
+      while (true) {
+        int position = cursor.tokenEnd();
+        if (position >= editEnd) {
+          int old = this.tokens.indexOf(position - delta);
+          if (old >= 0) {
+            resume = old;
+            break;
+          }
+        }
+        TokenType type = cursor.advance();
+        if (type == TokenType.END_OF_INPUT) {
+          break;
+        }
+        if (count == newTypes.length) {
+          newTypes = Arrays.copyOf(newTypes, count * 2);
+          newStarts = Arrays.copyOf(newStarts, count * 2);
+        }
+        newTypes[count] = (byte) type.ordinal();
+        newStarts[count] = cursor.tokenStart();
+        count++;
+      }
+    } catch (IllegalArgumentException e) {
+      this.source.replace(offset, insertedText.length(), removed);
+      throw e;
+    }
+
+    // Tokens [first, resume) are replaced by the relexed ones; the later ones keep their distance from
+    // the end of the text, which the edit did not change
+    this.tokens.replace(first, resume, count, this.source.length());
+    for (int i = 0; i < count; i++) {
+      this.tokens.setOffset(first + i, newStarts[i]);
+      this.tokens.types[first + i] = newTypes[i];
+    }
+
+    this.damageStart = from;
+    this.damageEnd = first + count < size() ? getStart(first + count) : this.source.length();
+    this.relexedTokens = count;
+    return removed;
+  }
+
+  // Token starts with the type of each token as its data
+  private static final class Tokens extends GapOffsets {
+    private byte[] types = new byte[16];
+
+    Tokens() {
+      super(16);
+    }
+
+    @Override
+    protected void moveData(int from, int to, int count) {
+      System.arraycopy(this.types, from, this.types, to, count);
+    }
+
+    @Override
+    protected void resize(int capacity) {
+      this.types = Arrays.copyOf(this.types, capacity);
+    }
+  }
+}
@@ -1,57 +1,83 @@
 package lexer;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ForkJoinPool;
 
 public class Lexer {
+  static final TokenAutomaton TOKEN_AUTOMATON = new TokenAutomaton(Lexer::getTokenPattern);
+
+  // The source text, or null when tokens are read from a Reader
   private final String input;
+  private final TokenCursor cursor;
 
   public Lexer(String input) {
     this.input = input;
+    this.cursor = new TokenCursor(TOKEN_AUTOMATON, input);
   }
 
-  public List<Token> tokenize() {
-    List<Token> tokens = new ArrayList<>();
-    int position = 0;
-
-    while (position < this.input.length()) {
-      int maxMatchLength = 0;
-      TokenType tokenType = null;
+  // Lexes a stream lazily; tokens can only be pulled once since the reader is consumed
+  public Lexer(Reader reader) {
+    this.input = null;
+    this.cursor = new TokenCursor(TOKEN_AUTOMATON, reader);
+  }
 
-      for (TokenType type : TokenType.values()) {
-        String pattern = getTokenPattern(type);
+  // Lexes a UTF-8 source file; the file is closed once the last token has been read
+  public Lexer(Path path) throws IOException {
+    this(Files.newBufferedReader(path));
+  }
 
-        if (pattern != null) {
-          Pattern regex = Pattern.compile(pattern);
-          Matcher matcher = regex.matcher(input.substring(position));
+  // With a list, nextToken reports runs of invalid characters there and skips them instead of throwing;
+  // null restores throwing on the first invalid character
+  public void setDiagnostics(List<Diagnostic> diagnostics) {
+    this.cursor.setDiagnostics(diagnostics);
+  }
 
-          if (matcher.lookingAt()) {
-            int matchLength = matcher.end();
+  // Pulls the next token, END_OF_INPUT once the input is exhausted
+  public Token nextToken() {
+    return this.cursor.next();
+  }
 
-            if (matchLength > maxMatchLength) {
-              maxMatchLength = matchLength;
-              tokenType = type;
-            }
-          }
-        }
-      }
+  public List<Token> tokenize() {
+    List<Token> tokens = new ArrayList<>();
+    TokenCursor tokenCursor = freshCursor();
+    Token token;
+    do {
+      token = tokenCursor.next();
+      tokens.add(token);
+    } while (token.getType() != TokenType.END_OF_INPUT);
+    return tokens;
+  }
 
-      if (maxMatchLength == 0) {
-        throw new IllegalArgumentException("Invalid input at position " + position);
-      }
+  // Same tokens as tokenize, lexed in chunks on the common fork-join pool. Text shorter than one chunk
+  // and Reader input are lexed sequentially.
+  public List<Token> tokenizeParallel() {
+    return tokenizeParallel(ForkJoinPool.commonPool());
+  }
 
-      String lexeme = input.substring(position, position + maxMatchLength);
-      tokens.add(new Token(tokenType, lexeme));
-      position += maxMatchLength;
+  public List<Token> tokenizeParallel(ForkJoinPool pool) {
+    if (this.input == null || this.input.length() <= ParallelTokenizer.CHUNK_SIZE) {
+      return tokenize();
     }
+    return new ParallelTokenizer(TOKEN_AUTOMATON, pool).tokenize(this.input);
+  }
 
-    tokens.add(new Token(TokenType.END_OF_INPUT, ""));
-    return tokens;
+  // Same tokens as tokenize, stored as primitive arrays over the source with lexemes built on demand;
+  // skipWhitespace drops WHITESPACE tokens while lexing
+  public TokenStream tokenizeCompact(boolean skipWhitespace) {
+    return TokenStream.from(freshCursor(), this.input, skipWhitespace);
+  }
+
+  // Text input is re-read from the start, so tokenize and printTokens leave nextToken untouched
+  private TokenCursor freshCursor() {
+    return this.input != null ? new TokenCursor(TOKEN_AUTOMATON, this.input) : this.cursor;
   }
 
-  private String getTokenPattern(TokenType type) {
+  static String getTokenPattern(TokenType type) {
     return switch (type) {
       case PRINT -> "print";
       case PRINTLN -> "println";
@@ -62,7 +88,8 @@ public class Lexer {
       case RETURN -> "return";
       case INT -> "\\d+";
       case CHAR -> "'.'";
-      case STRING -> "\".*?\"";
+      // Same as "\".*?\"" for a match starting at the opening quote, without a lazy quantifier
+      case STRING -> "\"[^\"\\r\\n\u0085\u2028\u2029]*\"";
       case FLOAT -> "\\d+\\.\\d+";
       case DOUBLE -> "\\d+\\.\\d+";
       case VOID -> "void";
@@ -95,9 +122,11 @@ public class Lexer {
   }
 
   public void printTokens() {
-    List<Token> tokens = this.tokenize();
-    for (Token token : tokens) {
+    TokenCursor tokenCursor = freshCursor();
+    Token token;
+    do {
+      token = tokenCursor.next();
       System.out.print(token + ", ");
-    }
+    } while (token.getType() != TokenType.END_OF_INPUT);
   }
 }
@@ -0,0 +1,124 @@
+package lexer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Tokenizes a large text in chunks on a fork-join pool. Chunks start right after a newline that is
+// followed by a non-whitespace character: only WHITESPACE can contain a newline (STRING and CHAR
+// cannot), and that whitespace token ends right before the next character, so every chunk start is a
+// token boundary of the sequential lexer and the stitched result is identical to it.
+class ParallelTokenizer {
+  // Target chunk length in characters; a chunk ends at the first safe boundary after it
+  static final int CHUNK_SIZE = 64 * 1024;
+
+  private final TokenAutomaton automaton;
+  private final ForkJoinPool pool;
+
+  ParallelTokenizer(TokenAutomaton automaton, ForkJoinPool pool) {
+    this.automaton = automaton;
+    this.pool = pool;
+  }
+
+  List<Token> tokenize(String input) {
+    int[] bounds = chunkBounds(input);
+    int chunkCount = bounds.length - 1;
+    // Each task only sets its own slot, which the join makes visible here
+    List<List<Token>> chunks = new ArrayList<>(Collections.nCopies(chunkCount, null));
+    int[] errors = new int[chunkCount];
+    this.pool.invoke(new ChunkTask(input, bounds, chunks, errors, 0, chunkCount));
+
+    // Every chunk before the first failing one lexed cleanly, so its error is the sequential one
+    int tokenCount = 1;
+    for (int chunk = 0; chunk < chunkCount; chunk++) {
+      if (errors[chunk] >= 0) {
+        throw new IllegalArgumentException("Invalid input at position " + errors[chunk]);
+      }
+      tokenCount += chunks.get(chunk).size();
+    }
+
+    List<Token> tokens = new ArrayList<>(tokenCount);
+    for (List<Token> chunk : chunks) {
+      tokens.addAll(chunk);
+    }
+    tokens.add(new Token(TokenType.END_OF_INPUT, "", input.length()));
+    return tokens;
+  }
+
+  // Chunk i is input[bounds[i], bounds[i + 1])
+  static int[] chunkBounds(String input) {
+    List<Integer> bounds = new ArrayList<>();
+    bounds.add(0);
+    int position = CHUNK_SIZE;
+    while (position < input.length()) {
+      int boundary = nextBoundary(input, position);
+      if (boundary < 0) {
+        break;
+      }
+      bounds.add(boundary);
+      position = boundary + CHUNK_SIZE;
+    }
+    bounds.add(input.length());
+    return bounds.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private static int nextBoundary(String input, int from) {
+    for (int i = Math.max(from, 1); i < input.length(); i++) {
+      if (input.charAt(i - 1) == '\n' && !isWhitespace(input.charAt(i))) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // The characters of \s in WHITESPACE's pattern
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || (c >= '\t' && c <= '\r');
+  }
+
+  private class ChunkTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final String input;
+    private final int[] bounds;
+    private final List<List<Token>> chunks;
+    private final int[] errors;
+    private final int from;
+    private final int to;
+
+    ChunkTask(String input, int[] bounds, List<List<Token>> chunks, int[] errors, int from, int to) {
+      this.input = input;
+      this.bounds = bounds;
+      this.chunks = chunks;
+      this.errors = errors;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.to - this.from > 1) {
+        int middle = (this.from + this.to) >>> 1;
+        invokeAll(new ChunkTask(this.input, this.bounds, this.chunks, this.errors, this.from, middle),
+                new ChunkTask(this.input, this.bounds, this.chunks, this.errors, middle, this.to));
+        return;
+      }
+
+      // Errors are recorded instead of thrown, so the earliest one can be reported as is
+      TokenCursor cursor = new TokenCursor(automaton, this.input, this.bounds[this.from], this.bounds[this.to]);
+      List<Token> tokens = new ArrayList<>();
+      this.errors[this.from] = -1;
+      try {
+        Token token;
+        while ((token = cursor.next()).getType() != TokenType.END_OF_INPUT) {
+          tokens.add(token);
+        }
+      } catch (IllegalArgumentException e) {
+        this.errors[this.from] = (int) cursor.inputOffset();
+      }
+      this.chunks.set(this.from, tokens);
+    }
+  }
+}
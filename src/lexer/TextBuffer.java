@@ -0,0 +1,87 @@
+package lexer;
+
+import java.util.Arrays;
+
+// Text that is edited in place, stored as a gap buffer: the characters before and after the last edit sit
+// at both ends of one array with the free space between them, so an edit copies the inserted text plus
+// the characters between it and the previous edit, not the whole text.
+public final class TextBuffer implements CharSequence {
+  private char[] chars;
+  private int gapStart;
+  private int gapEnd;
+
+  public TextBuffer(CharSequence text) {
+    this.chars = new char[Math.max(16, text.length() * 2)];
+    this.gapEnd = this.chars.length;
+    replace(0, 0, text);
+  }
+
+  @Override
+  public int length() {
+    return this.chars.length - (this.gapEnd - this.gapStart);
+  }
+
+  @Override
+  public char charAt(int index) {
+    return index < this.gapStart ? this.chars[index] : this.chars[index + this.gapEnd - this.gapStart];
+  }
+
+  @Override
+  public String subSequence(int start, int end) {
+    if (start < 0 || start > end || end > length()) {
+      throw new IndexOutOfBoundsException("Range [" + start + ", " + end + ") out of bounds for length " + length());
+    }
+    if (end <= this.gapStart) {
+      return new String(this.chars, start, end - start);
+    }
+    if (start >= this.gapStart) {
+      return new String(this.chars, start + this.gapEnd - this.gapStart, end - start);
+    }
+    char[] text = new char[end - start];
+    System.arraycopy(this.chars, start, text, 0, this.gapStart - start);
+    System.arraycopy(this.chars, this.gapEnd, text, this.gapStart - start, end - this.gapStart);
+    return new String(text);
+  }
+
+  // Replaces [offset, offset + removedLength) with inserted
+  public void replace(int offset, int removedLength, CharSequence inserted) {
+    if (offset < 0 || removedLength < 0 || offset + removedLength > length()) {
+      throw new IndexOutOfBoundsException("Range [" + offset + ", " + (offset + removedLength)
+              + ") out of bounds for length " + length());
+    }
+    moveGap(offset);
+    this.gapEnd += removedLength;
+    int insertedLength = inserted.length();
+    if (this.gapEnd - this.gapStart < insertedLength) {
+      int after = this.chars.length - this.gapEnd;
+      int capacity = Math.max(this.chars.length * 2, length() + insertedLength + 16);
+      char[] chars = Arrays.copyOf(this.chars, capacity);
+      System.arraycopy(this.chars, this.gapEnd, chars, capacity - after, after);
+      this.chars = chars;
+      this.gapEnd = capacity - after;
+    }
+    for (int i = 0; i < insertedLength; i++) {
+      this.chars[this.gapStart++] = inserted.charAt(i);
+    }
+  }
+
+  // Moves the characters between the gap and offset across it, so that the gap starts at offset
+  private void moveGap(int offset) {
+    if (offset < this.gapStart) {
+      int count = this.gapStart - offset;
+      System.arraycopy(this.chars, offset, this.chars, this.gapEnd - count, count);
+      this.gapStart -= count;
+      this.gapEnd -= count;
+    } else if (offset > this.gapStart) {
+      int count = offset - this.gapStart;
+      System.arraycopy(this.chars, this.gapEnd, this.chars, this.gapStart, count);
+      this.gapStart += count;
+      this.gapEnd += count;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return subSequence(0, length());
+  }
+}
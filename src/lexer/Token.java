@@ -3,10 +3,17 @@ package lexer;
 public class Token {
   private final TokenType type;
   private final String lexeme;
+  // Offset of the first character in the source, -1 when unknown
+  private final int start;
 
   public Token(TokenType type, String lexeme) {
+    this(type, lexeme, -1);
+  }
+
+  public Token(TokenType type, String lexeme, int start) {
     this.type = type;
     this.lexeme = lexeme;
+    this.start = start;
   }
 
   public TokenType getType() {
@@ -17,6 +24,14 @@ public class Token {
     return this.lexeme;
   }
 
+  public int getStart() {
+    return this.start;
+  }
+
+  public int getEnd() {
+    return this.start + this.lexeme.length();
+  }
+
   @Override
   public String toString() {
     return String.format("(%s, %s)", type, lexeme);
@@ -0,0 +1,468 @@
+package lexer;
+
+import automaton.CompiledAutomaton;
+import automaton.DenseDfa;
+import automaton.FiniteAutomaton;
+import automaton.Transition;
+
+import java.util.*;
+import java.util.function.Function;
+
+// All token patterns compiled into one DFA, used for single-pass maximal munch tokenization.
+//
+// Every pattern is turned into an epsilon-free position (Glushkov) automaton; the positions of all
+// patterns share one start state, which gives a FiniteAutomaton that is determinized with the automaton
+// package. Characters are first mapped to classes of characters that no pattern distinguishes, and every
+// class is a transition label from the private use area, so labels never clash with the "e" epsilon label.
+// An accepting DFA state reports the token type with the lowest ordinal among the patterns it accepts.
+class TokenAutomaton {
+  private static final char CLASS_LABEL_BASE = '\uE000';
+  private static final int CHAR_COUNT = Character.MAX_VALUE + 1;
+  private static final int[] ANY_BUT_LINE_TERMINATORS =
+          complement(new int[]{'\n', '\n', '\r', '\r', '\u0085', '\u0085', '\u2028', '\u2029'});
+  private static final int[] DIGITS = {'0', '9'};
+  private static final int[] SPACES = {'\t', '\r', ' ', ' '};
+  private static final int[] WORD_CHARACTERS = {'0', '9', 'A', 'Z', '_', '_', 'a', 'z'};
+  private static final TokenType[] TOKEN_TYPES = TokenType.values();
+  static final long NEED_MORE_INPUT = -2;
+
+  // DFA symbol of every character plus one, 0 when no pattern can read the character
+  private final char[] symbolOfChar = new char[CHAR_COUNT];
+  private final int symbolCount;
+  private final int[] transitions;
+  private final TokenType[] acceptedType;
+  // Characters a match can read past the end of the token it returns, Integer.MAX_VALUE if unbounded
+  private final int lookahead;
+
+  // Glushkov construction state
+  private final List<int[]> positionRanges = new ArrayList<>();
+  private final List<BitSet> follow = new ArrayList<>();
+  private final List<TokenType> positionType = new ArrayList<>();
+  private final BitSet startPositions = new BitSet();
+  private final BitSet finalPositions = new BitSet();
+  private String pattern;
+  private int cursor;
+
+  TokenAutomaton(Function<TokenType, String> patterns) {
+    for (TokenType type : TokenType.values()) {
+      String tokenPattern = patterns.apply(type);
+      if (tokenPattern != null) {
+        addPattern(type, tokenPattern);
+      }
+    }
+
+    // Characters that every position treats alike share a class
+    int[] boundaries = classBoundaries();
+    BitSet[] signatures = new BitSet[boundaries.length - 1];
+    for (int i = 0; i < signatures.length; i++) {
+      signatures[i] = new BitSet();
+    }
+    for (int position = 0; position < this.positionRanges.size(); position++) {
+      int[] ranges = this.positionRanges.get(position);
+      for (int r = 0; r < ranges.length; r += 2) {
+        int from = Arrays.binarySearch(boundaries, ranges[r]);
+        int to = Arrays.binarySearch(boundaries, ranges[r + 1] + 1);
+        for (int interval = from; interval < to; interval++) {
+          signatures[interval].set(position);
+        }
+      }
+    }
+    Map<BitSet, Integer> classIds = new HashMap<>();
+    int[] classOfInterval = new int[signatures.length];
+    List<List<Integer>> classesOfPosition = new ArrayList<>();
+    for (int position = 0; position < this.positionRanges.size(); position++) {
+      classesOfPosition.add(new ArrayList<>());
+    }
+    for (int interval = 0; interval < signatures.length; interval++) {
+      Integer id = classIds.get(signatures[interval]);
+      if (id == null) {
+        id = classIds.size();
+        classIds.put(signatures[interval], id);
+        for (int position = signatures[interval].nextSetBit(0); position >= 0;
+             position = signatures[interval].nextSetBit(position + 1)) {
+          classesOfPosition.get(position).add(id);
+        }
+      }
+      classOfInterval[interval] = id;
+    }
+
+    CompiledAutomaton nfa = toFiniteAutomaton(classesOfPosition).compile();
+    DenseDfa dfa = DenseDfa.determinize(nfa);
+
+    this.symbolCount = dfa.getSymbolCount();
+    for (int interval = 0; interval < signatures.length; interval++) {
+      int symbol = nfa.symbolOf((char) (CLASS_LABEL_BASE + classOfInterval[interval]));
+      Arrays.fill(this.symbolOfChar, boundaries[interval], boundaries[interval + 1], (char) (symbol + 1));
+    }
+
+    this.transitions = new int[dfa.getStateCount() * this.symbolCount];
+    this.acceptedType = new TokenType[dfa.getStateCount()];
+    for (int state = 0; state < dfa.getStateCount(); state++) {
+      for (int symbol = 0; symbol < this.symbolCount; symbol++) {
+        this.transitions[state * this.symbolCount + symbol] = dfa.next(state, symbol);
+      }
+      long[] subset = dfa.getSubset(state);
+      for (int position = this.finalPositions.nextSetBit(0); position >= 0;
+           position = this.finalPositions.nextSetBit(position + 1)) {
+        int id = nfa.stateId("p" + position);
+        if ((subset[id >>> 6] & (1L << id)) != 0) {
+          TokenType type = this.positionType.get(position);
+          if (this.acceptedType[state] == null || type.ordinal() < this.acceptedType[state].ordinal()) {
+            this.acceptedType[state] = type;
+          }
+        }
+      }
+    }
+    this.lookahead = computeLookahead();
+  }
+
+  int lookahead() { return this.lookahead; }
+
+  // After the last accepting state a match reads one more character, plus one for every non-accepting
+  // state it passes through before the DFA dies; a cycle of non-accepting states makes that unbounded
+  private int computeLookahead() {
+    int stateCount = this.acceptedType.length;
+    int[] depth = new int[stateCount];
+    int lookahead = 1;
+    for (int state = 0; state < stateCount; state++) {
+      if (this.acceptedType[state] == null) {
+        continue;
+      }
+      for (int symbol = 0; symbol < this.symbolCount; symbol++) {
+        int target = this.transitions[state * this.symbolCount + symbol];
+        if (target >= 0 && this.acceptedType[target] == null) {
+          int run = nonAcceptingRun(target, depth);
+          lookahead = run == Integer.MAX_VALUE ? run : Math.max(lookahead, run + 1);
+          if (lookahead == Integer.MAX_VALUE) {
+            return lookahead;
+          }
+        }
+      }
+    }
+    return lookahead;
+  }
+
+  // Longest path through non-accepting states from state, memoized in depth (-1 while on the stack)
+  private int nonAcceptingRun(int state, int[] depth) {
+    if (depth[state] != 0) {
+      return depth[state] < 0 ? Integer.MAX_VALUE : depth[state];
+    }
+    depth[state] = -1;
+    int longest = 0;
+    for (int symbol = 0; symbol < this.symbolCount; symbol++) {
+      int target = this.transitions[state * this.symbolCount + symbol];
+      if (target >= 0 && this.acceptedType[target] == null) {
+        int run = nonAcceptingRun(target, depth);
+        if (run == Integer.MAX_VALUE) {
+          return run;
+        }
+        longest = Math.max(longest, run);
+      }
+    }
+    depth[state] = longest + 1;
+    return depth[state];
+  }
+
+  static int matchEnd(long match) { return (int) match; }
+  static TokenType matchType(long match) { return TOKEN_TYPES[(int) (match >>> 32)]; }
+
+  // Longest token starting at position, packed as (type ordinal, end offset); -1 if no token matches
+  long longestMatch(CharSequence input, int position) {
+    return longestMatch(input, position, input.length(), true);
+  }
+
+  // Same, for input that may continue after limit: returns NEED_MORE_INPUT when the DFA is still alive
+  // at limit, because a longer token could follow
+  long longestMatch(CharSequence input, int position, int limit, boolean endOfInput) {
+    int state = 0;
+    int matchEnd = -1;
+    TokenType matchType = null;
+    int i = position;
+
+    for (; i < limit; i++) {
+      int symbol = this.symbolOfChar[input.charAt(i)] - 1;
+      if (symbol < 0) {
+        break;
+      }
+      state = this.transitions[state * this.symbolCount + symbol];
+      if (state < 0) {
+        break;
+      }
+      if (this.acceptedType[state] != null) {
+        matchEnd = i + 1;
+        matchType = this.acceptedType[state];
+      }
+    }
+
+    if (i == limit && !endOfInput) {
+      return NEED_MORE_INPUT;
+    }
+    return matchEnd < 0 ? -1 : ((long) matchType.ordinal() << 32) | matchEnd;
+  }
+
+  private FiniteAutomaton toFiniteAutomaton(List<List<Integer>> classesOfPosition) {
+    int positionCount = this.positionRanges.size();
+    String[] states = new String[positionCount + 1];
+    states[0] = "s";
+    List<Transition> transitions = new ArrayList<>();
+    for (int position = 0; position < positionCount; position++) {
+      states[position + 1] = "p" + position;
+    }
+    for (int position = this.startPositions.nextSetBit(0); position >= 0;
+         position = this.startPositions.nextSetBit(position + 1)) {
+      for (int classId : classesOfPosition.get(position)) {
+        transitions.add(new Transition("s", classLabel(classId), "p" + position));
+      }
+    }
+    for (int position = 0; position < positionCount; position++) {
+      BitSet next = this.follow.get(position);
+      for (int target = next.nextSetBit(0); target >= 0; target = next.nextSetBit(target + 1)) {
+        for (int classId : classesOfPosition.get(target)) {
+          transitions.add(new Transition("p" + position, classLabel(classId), "p" + target));
+        }
+      }
+    }
+
+    List<String> finalStates = new ArrayList<>();
+    for (int position = this.finalPositions.nextSetBit(0); position >= 0;
+         position = this.finalPositions.nextSetBit(position + 1)) {
+      finalStates.add("p" + position);
+    }
+    return new FiniteAutomaton(states, new String[0], transitions.toArray(new Transition[0]), "s",
+            finalStates.toArray(new String[0]));
+  }
+
+  private static String classLabel(int classId) {
+    return String.valueOf((char) (CLASS_LABEL_BASE + classId));
+  }
+
+  private int[] classBoundaries() {
+    TreeSet<Integer> boundaries = new TreeSet<>(List.of(0, CHAR_COUNT));
+    for (int[] ranges : this.positionRanges) {
+      for (int r = 0; r < ranges.length; r += 2) {
+        boundaries.add(ranges[r]);
+        boundaries.add(ranges[r + 1] + 1);
+      }
+    }
+    return boundaries.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  // Regex parsing straight into Glushkov sets. A fragment is (nullable, first positions, last positions);
+  // follow sets are filled in as fragments are concatenated or repeated.
+  private static final class Fragment {
+    boolean nullable = true;
+    final BitSet first = new BitSet();
+    final BitSet last = new BitSet();
+  }
+
+  private void addPattern(TokenType type, String tokenPattern) {
+    this.pattern = tokenPattern;
+    this.cursor = 0;
+    int firstPosition = this.positionRanges.size();
+    Fragment fragment = parseAlternation();
+    if (this.cursor != this.pattern.length()) {
+      throw error("Unexpected '" + this.pattern.charAt(this.cursor) + "'");
+    }
+    if (fragment.nullable) {
+      throw error("Token patterns must not match the empty string");
+    }
+    for (int position = firstPosition; position < this.positionRanges.size(); position++) {
+      this.positionType.add(type);
+    }
+    this.startPositions.or(fragment.first);
+    this.finalPositions.or(fragment.last);
+  }
+
+  private Fragment parseAlternation() {
+    Fragment result = parseConcatenation();
+    while (peek('|')) {
+      this.cursor++;
+      Fragment alternative = parseConcatenation();
+      result.nullable |= alternative.nullable;
+      result.first.or(alternative.first);
+      result.last.or(alternative.last);
+    }
+    return result;
+  }
+
+  private Fragment parseConcatenation() {
+    Fragment result = new Fragment();
+    while (this.cursor < this.pattern.length() && !peek('|') && !peek(')')) {
+      Fragment next = parseRepetition();
+      for (int position = result.last.nextSetBit(0); position >= 0;
+           position = result.last.nextSetBit(position + 1)) {
+        this.follow.get(position).or(next.first);
+      }
+      if (result.nullable) {
+        result.first.or(next.first);
+      }
+      if (!next.nullable) {
+        result.last.clear();
+      }
+      result.last.or(next.last);
+      result.nullable &= next.nullable;
+    }
+    return result;
+  }
+
+  private Fragment parseRepetition() {
+    Fragment atom = parseAtom();
+    while (peek('*') || peek('+') || peek('?')) {
+      char quantifier = this.pattern.charAt(this.cursor++);
+      if (peek('?')) {
+        throw error("Lazy quantifiers are not supported");
+      }
+      if (quantifier != '?') {
+        for (int position = atom.last.nextSetBit(0); position >= 0;
+             position = atom.last.nextSetBit(position + 1)) {
+          this.follow.get(position).or(atom.first);
+        }
+      }
+      if (quantifier != '+') {
+        atom.nullable = true;
+      }
+    }
+    return atom;
+  }
+
+  private Fragment parseAtom() {
+    char c = this.pattern.charAt(this.cursor++);
+    switch (c) {
+      case '(' -> {
+        Fragment group = parseAlternation();
+        if (!peek(')')) {
+          throw error("Missing ')'");
+        }
+        this.cursor++;
+        return group;
+      }
+      case '[' -> {
+        return position(parseClass());
+      }
+      case '.' -> {
+        return position(ANY_BUT_LINE_TERMINATORS);
+      }
+      case '\\' -> {
+        return position(parseEscape());
+      }
+      case '*', '+', '?', ')' -> throw error("Unexpected '" + c + "'");
+      default -> {
+        return position(new int[]{c, c});
+      }
+    }
+  }
+
+  private int[] parseClass() {
+    boolean negated = peek('^');
+    if (negated) {
+      this.cursor++;
+    }
+    List<int[]> items = new ArrayList<>();
+    while (!peek(']')) {
+      if (this.cursor >= this.pattern.length()) {
+        throw error("Missing ']'");
+      }
+      int[] item = this.pattern.charAt(this.cursor) == '\\'
+              ? escapeAfterBackslash()
+              : single(this.pattern.charAt(this.cursor++));
+      if (peek('-') && this.cursor + 1 < this.pattern.length() && this.pattern.charAt(this.cursor + 1) != ']') {
+        this.cursor++;
+        int[] upper = this.pattern.charAt(this.cursor) == '\\'
+                ? escapeAfterBackslash()
+                : single(this.pattern.charAt(this.cursor++));
+        item = new int[]{item[0], upper[upper.length - 1]};
+      }
+      items.add(item);
+    }
+    this.cursor++;
+
+    int[] ranges = normalize(items);
+    return negated ? complement(ranges) : ranges;
+  }
+
+  private int[] escapeAfterBackslash() {
+    this.cursor++;
+    return parseEscape();
+  }
+
+  private int[] parseEscape() {
+    if (this.cursor >= this.pattern.length()) {
+      throw error("Dangling '\\'");
+    }
+    char c = this.pattern.charAt(this.cursor++);
+    return switch (c) {
+      case 'd' -> DIGITS;
+      case 's' -> SPACES;
+      case 'w' -> WORD_CHARACTERS;
+      case 'n' -> single('\n');
+      case 'r' -> single('\r');
+      case 't' -> single('\t');
+      case 'f' -> single('\f');
+      default -> single(c);
+    };
+  }
+
+  private Fragment position(int[] ranges) {
+    int position = this.positionRanges.size();
+    this.positionRanges.add(ranges);
+    this.follow.add(new BitSet());
+    Fragment fragment = new Fragment();
+    fragment.nullable = false;
+    fragment.first.set(position);
+    fragment.last.set(position);
+    return fragment;
+  }
+
+  private boolean peek(char c) {
+    return this.cursor < this.pattern.length() && this.pattern.charAt(this.cursor) == c;
+  }
+
+  private IllegalArgumentException error(String message) {
+    return new IllegalArgumentException(message + " in token pattern " + this.pattern + " at " + this.cursor);
+  }
+
+  private static int[] single(char c) {
+    return new int[]{c, c};
+  }
+
+  // Sorts and merges a list of range arrays into one array of disjoint [from, to] pairs
+  private static int[] normalize(List<int[]> items) {
+    List<int[]> ranges = new ArrayList<>();
+    for (int[] item : items) {
+      for (int r = 0; r < item.length; r += 2) {
+        ranges.add(new int[]{item[r], item[r + 1]});
+      }
+    }
+    ranges.sort(Comparator.comparingInt(range -> range[0]));
+
+    int[] result = new int[ranges.size() * 2];
+    int size = 0;
+    for (int[] range : ranges) {
+      if (size > 0 && range[0] <= result[size - 1] + 1) {
+        result[size - 1] = Math.max(result[size - 1], range[1]);
+      } else {
+        result[size++] = range[0];
+        result[size++] = range[1];
+      }
+    }
+    return Arrays.copyOf(result, size);
+  }
+
+  private static int[] complement(int[] ranges) {
+    int[] result = new int[ranges.length + 2];
+    int size = 0;
+    int next = 0;
+    for (int r = 0; r < ranges.length; r += 2) {
+      if (ranges[r] > next) {
+        result[size++] = next;
+        result[size++] = ranges[r] - 1;
+      }
+      next = ranges[r + 1] + 1;
+    }
+    if (next < CHAR_COUNT) {
+      result[size++] = next;
+      result[size++] = CHAR_COUNT - 1;
+    }
+    return Arrays.copyOf(result, size);
+  }
+}
@@ -0,0 +1,166 @@
+package lexer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.util.List;
+
+// Pulls tokens one at a time from a String or from a Reader. Reader input goes through a sliding buffer:
+// consumed characters are dropped on every refill, and the buffer only grows for a single token that
+// does not fit, so memory stays bounded by the longest token rather than the input size.
+class TokenCursor {
+  private static final int BUFFER_SIZE = 8192;
+
+  private final TokenAutomaton automaton;
+  private final Reader reader;
+  private char[] buffer;
+  private CharSequence window;
+  private int position;
+  private int tokenStart;
+  private int limit;
+  private long offset;
+  private boolean endOfInput;
+  private boolean finished;
+
+  // When set, invalid characters are reported here and skipped instead of throwing; a run of invalid
+  // characters gives one diagnostic that starts at errorStart. The skipped characters are kept until the
+  // next token, since a refill may drop them from the buffer before it.
+  private List<Diagnostic> diagnostics;
+  private long errorStart = -1;
+  private final StringBuilder skipped = new StringBuilder();
+
+  TokenCursor(TokenAutomaton automaton, String input) {
+    this(automaton, input, 0, input.length());
+  }
+
+  // Lexes only input[from, to); to must be a token boundary of the whole input
+  TokenCursor(TokenAutomaton automaton, CharSequence input, int from, int to) {
+    this.automaton = automaton;
+    this.reader = null;
+    this.window = input;
+    this.position = from;
+    this.limit = to;
+    this.endOfInput = true;
+  }
+
+  TokenCursor(TokenAutomaton automaton, Reader reader) {
+    this.automaton = automaton;
+    this.reader = reader;
+    this.buffer = new char[BUFFER_SIZE];
+    this.window = CharBuffer.wrap(this.buffer);
+  }
+
+  Token next() {
+    TokenType type = advance();
+    String lexeme = type == TokenType.END_OF_INPUT
+            ? ""
+            : this.window.subSequence(this.tokenStart, this.position).toString();
+    return new Token(type, lexeme, intTokenOffset());
+  }
+
+  // Moves past the next token and returns its type, END_OF_INPUT once the input is exhausted. Until the
+  // next call the token's text is window()[tokenStart(), tokenEnd()), which allocates nothing per token.
+  TokenType advance() {
+    this.skipped.setLength(0);
+    while (!this.finished) {
+      if (this.position == this.limit) {
+        if (this.endOfInput) {
+          this.finished = true;
+          break;
+        }
+        fill();
+        continue;
+      }
+
+      // One maximal munch step over the combined token DFA; ties go to the earlier TokenType
+      long match = this.automaton.longestMatch(this.window, this.position, this.limit, this.endOfInput);
+      if (match == TokenAutomaton.NEED_MORE_INPUT) {
+        fill();
+        continue;
+      }
+      if (match < 0) {
+        if (this.diagnostics == null) {
+          throw new IllegalArgumentException("Invalid input at position " + inputOffset());
+        }
+        if (this.errorStart < 0) {
+          this.errorStart = inputOffset();
+        }
+        this.skipped.append(this.window.charAt(this.position));
+        this.position++;
+        continue;
+      }
+      reportInvalidInput();
+
+      this.tokenStart = this.position;
+      this.position = TokenAutomaton.matchEnd(match);
+      return TokenAutomaton.matchType(match);
+    }
+
+    reportInvalidInput();
+    this.tokenStart = this.position;
+    return TokenType.END_OF_INPUT;
+  }
+
+  void setDiagnostics(List<Diagnostic> diagnostics) {
+    this.diagnostics = diagnostics;
+  }
+
+  private void reportInvalidInput() {
+    if (this.errorStart >= 0) {
+      this.diagnostics.add(new Diagnostic((int) this.errorStart, (int) inputOffset(),
+              "Invalid input at position " + this.errorStart));
+      this.errorStart = -1;
+    }
+  }
+
+  CharSequence window() { return this.window; }
+  int tokenStart() { return this.tokenStart; }
+  int tokenEnd() { return this.position; }
+
+  // Invalid characters skipped right before the current token, empty unless diagnostics are set
+  CharSequence skipped() { return this.skipped; }
+
+  // Offset of the current token from the start of the whole input
+  long tokenOffset() { return this.offset + this.tokenStart; }
+
+  // tokenOffset for the int offsets of Token and TokenStream, which cannot address input past 2^31 - 1
+  int intTokenOffset() {
+    long offset = tokenOffset();
+    if (offset > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Token offset " + offset + " does not fit in an int");
+    }
+    return (int) offset;
+  }
+
+  // Offset of the first character not consumed yet, which is where lexing failed after an error
+  long inputOffset() { return this.offset + this.position; }
+
+  // Moves the unconsumed characters to the front of the buffer and reads more after them
+  private void fill() {
+    int remaining = this.limit - this.position;
+    if (remaining == this.buffer.length) {
+      char[] larger = new char[this.buffer.length * 2];
+      System.arraycopy(this.buffer, this.position, larger, 0, remaining);
+      this.buffer = larger;
+      this.window = CharBuffer.wrap(this.buffer);
+    } else {
+      System.arraycopy(this.buffer, this.position, this.buffer, 0, remaining);
+    }
+    this.offset += this.position;
+    this.position = 0;
+    this.limit = remaining;
+
+    try {
+      int read = this.reader.read(this.buffer, this.limit, this.buffer.length - this.limit);
+      if (read < 0) {
+        this.endOfInput = true;
+        this.reader.close();
+      } else {
+        this.limit += read;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
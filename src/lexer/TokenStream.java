@@ -0,0 +1,82 @@
+package lexer;
+
+import java.util.Arrays;
+
+// Tokens stored as parallel primitive arrays (type ordinal, start offset, length) over the source text.
+// No Token objects or lexeme strings are created while lexing; getLexeme and getToken build them on demand.
+// The last token is always END_OF_INPUT, with length 0 at the end of the source.
+public class TokenStream {
+  private static final TokenType[] TOKEN_TYPES = TokenType.values();
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final CharSequence source;
+  private final byte[] types;
+  private final int[] starts;
+  private final int[] lengths;
+  private final int size;
+
+  private TokenStream(CharSequence source, byte[] types, int[] starts, int[] lengths, int size) {
+    this.source = source;
+    this.types = types;
+    this.starts = starts;
+    this.lengths = lengths;
+    this.size = size;
+  }
+
+  // Drains a cursor into the arrays. Text input is kept as is; for a stream the source is rebuilt
+  // from the token texts and the invalid characters skipped between them, which together are the whole input.
+  static TokenStream from(TokenCursor cursor, String input, boolean skipWhitespace) {
+    StringBuilder streamed = input == null ? new StringBuilder() : null;
+    byte[] types = new byte[INITIAL_CAPACITY];
+    int[] starts = new int[INITIAL_CAPACITY];
+    int[] lengths = new int[INITIAL_CAPACITY];
+    int size = 0;
+
+    TokenType type;
+    do {
+      type = cursor.advance();
+      int length = cursor.tokenEnd() - cursor.tokenStart();
+      if (streamed != null) {
+        streamed.append(cursor.skipped());
+        streamed.append(cursor.window(), cursor.tokenStart(), cursor.tokenEnd());
+      }
+      if (skipWhitespace && type == TokenType.WHITESPACE) {
+        continue;
+      }
+      if (size == types.length) {
+        types = Arrays.copyOf(types, size * 2);
+        starts = Arrays.copyOf(starts, size * 2);
+        lengths = Arrays.copyOf(lengths, size * 2);
+      }
+      types[size] = (byte) type.ordinal();
+      starts[size] = cursor.intTokenOffset();
+      lengths[size] = length;
+      size++;
+    } while (type != TokenType.END_OF_INPUT);
+
+    return new TokenStream(streamed != null ? streamed : input, types, starts, lengths, size);
+  }
+
+  public int size() { return this.size; }
+  public CharSequence getSource() { return this.source; }
+  public TokenType getType(int index) { return TOKEN_TYPES[this.types[checkIndex(index)]]; }
+  public int getTypeOrdinal(int index) { return this.types[checkIndex(index)]; }
+  public int getStart(int index) { return this.starts[checkIndex(index)]; }
+  public int getLength(int index) { return this.lengths[checkIndex(index)]; }
+  public int getEnd(int index) { return this.starts[checkIndex(index)] + this.lengths[index]; }
+
+  public String getLexeme(int index) {
+    return this.source.subSequence(getStart(index), getEnd(index)).toString();
+  }
+
+  public Token getToken(int index) {
+    return new Token(getType(index), getLexeme(index), getStart(index));
+  }
+
+  private int checkIndex(int index) {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException("Token index " + index + " out of bounds for size " + this.size);
+    }
+    return index;
+  }
+}
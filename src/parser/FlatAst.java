@@ -0,0 +1,157 @@
+package parser;
+
+import lexer.TokenType;
+import parser.ast.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Syntax tree stored as parallel arrays indexed by node id, written by the parser without allocating a
+// node object per node. Nodes are stored in post-order, so the root is the last node. The children of
+// node i are children[childOffset(i) .. childOffset(i) + getChildCount(i)).
+// toTree builds the typed, immutable Node classes when they are needed.
+public class FlatAst {
+  private static final NodeKind[] NODE_KINDS = NodeKind.values();
+  private static final Operator[] OPERATORS = Operator.values();
+  private static final TokenType[] TOKEN_TYPES = TokenType.values();
+
+  private byte[] kinds = new byte[64];
+  private int[] starts = new int[64];
+  private int[] ends = new int[64];
+  // Operator ordinal of unary and binary expressions, TokenType ordinal of literals
+  private int[] data = new int[64];
+  // Identifier names and literal texts
+  private String[] values = new String[64];
+  private int[] childOffsets = new int[64];
+  private int[] childCounts = new int[64];
+  private int[] children = new int[64];
+  private int size;
+  private int childrenSize;
+
+  // Finished nodes that have no parent yet
+  private int[] pending = new int[64];
+  private int pendingSize;
+
+  // Adds a node whose children are the last childCount pending nodes, and leaves it pending in their place
+  int add(NodeKind kind, int start, int end, int nodeData, String value, int childCount) {
+    if (this.size == this.kinds.length) {
+      int capacity = this.size * 2;
+      this.kinds = Arrays.copyOf(this.kinds, capacity);
+      this.starts = Arrays.copyOf(this.starts, capacity);
+      this.ends = Arrays.copyOf(this.ends, capacity);
+      this.data = Arrays.copyOf(this.data, capacity);
+      this.values = Arrays.copyOf(this.values, capacity);
+      this.childOffsets = Arrays.copyOf(this.childOffsets, capacity);
+      this.childCounts = Arrays.copyOf(this.childCounts, capacity);
+    }
+    if (this.childrenSize + childCount > this.children.length) {
+      this.children = Arrays.copyOf(this.children, Math.max(this.children.length * 2, this.childrenSize + childCount));
+    }
+
+    int node = this.size++;
+    this.kinds[node] = (byte) kind.ordinal();
+    this.starts[node] = start;
+    this.ends[node] = end;
+    this.data[node] = nodeData;
+    this.values[node] = value;
+    this.childOffsets[node] = this.childrenSize;
+    this.childCounts[node] = childCount;
+    System.arraycopy(this.pending, this.pendingSize - childCount, this.children, this.childrenSize, childCount);
+    this.childrenSize += childCount;
+    this.pendingSize -= childCount;
+
+    if (this.pendingSize == this.pending.length) {
+      this.pending = Arrays.copyOf(this.pending, this.pendingSize * 2);
+    }
+    this.pending[this.pendingSize++] = node;
+    return node;
+  }
+
+  int pendingCount() {
+    return this.pendingSize;
+  }
+
+  // Drops every node added after the tree had size nodes and pendingCount pending ones
+  void truncate(int size, int pendingCount) {
+    this.size = size;
+    this.pendingSize = pendingCount;
+    this.childrenSize = size == 0 ? 0 : this.childOffsets[size - 1] + this.childCounts[size - 1];
+  }
+
+  public int size() { return this.size; }
+  public int getRoot() { return this.size - 1; }
+  public NodeKind getKind(int node) { return NODE_KINDS[this.kinds[node]]; }
+  public int getStart(int node) { return this.starts[node]; }
+  public int getEnd(int node) { return this.ends[node]; }
+  public String getValue(int node) { return this.values[node]; }
+  public int getChildCount(int node) { return this.childCounts[node]; }
+
+  public int getChild(int node, int index) {
+    if (index < 0 || index >= this.childCounts[node]) {
+      throw new IndexOutOfBoundsException("Child " + index + " out of bounds for node " + node);
+    }
+    return this.children[this.childOffsets[node] + index];
+  }
+
+  public Operator getOperator(int node) {
+    NodeKind kind = getKind(node);
+    return kind == NodeKind.BINARY_EXPRESSION || kind == NodeKind.UNARY_EXPRESSION ? OPERATORS[this.data[node]] : null;
+  }
+
+  public TokenType getLiteralType(int node) {
+    return getKind(node) == NodeKind.LITERAL ? TOKEN_TYPES[this.data[node]] : null;
+  }
+
+  public Program toTree() {
+    return (Program) toTree(getRoot());
+  }
+
+  // The subtree of a node as a tree of its own, whose root offset is its start in the source
+  public Node toTree(int node) {
+    return toTree(node, 0);
+  }
+
+  // Typed subtree of a node whose offset is counted from base: the end of its previous sibling, or the
+  // start of its parent
+  Node toTree(int node, int base) {
+    int offset = this.starts[node] - base;
+    int width = this.ends[node] - this.starts[node];
+    return switch (getKind(node)) {
+      case PROGRAM -> new Program(offset, width, statements(node));
+      case BLOCK -> new Block(offset, width, statements(node));
+      case PRINT_STATEMENT -> new PrintStatement(offset, width, expression(node, 0));
+      case ASSIGNMENT_STATEMENT -> new AssignmentStatement(offset, width, (Identifier) expression(node, 0),
+              expression(node, 1));
+      case IF_STATEMENT -> new IfStatement(offset, width, expression(node, 0), (Block) child(node, 1),
+              getChildCount(node) > 2 ? (Statement) child(node, 2) : null);
+      case WHILE_STATEMENT -> new WhileStatement(offset, width, expression(node, 0), (Block) child(node, 1));
+      case RETURN_STATEMENT -> new ReturnStatement(offset, width,
+              getChildCount(node) > 0 ? expression(node, 0) : null);
+      case EXPRESSION_STATEMENT -> new ExpressionStatement(offset, width, expression(node, 0));
+      case IDENTIFIER -> new Identifier(offset, width, this.values[node]);
+      case LITERAL -> new Literal(offset, width, getLiteralType(node), this.values[node]);
+      case BINARY_EXPRESSION -> new BinaryExpression(offset, width, getOperator(node), expression(node, 0),
+              expression(node, 1));
+      case UNARY_EXPRESSION -> new UnaryExpression(offset, width, getOperator(node), expression(node, 0));
+    };
+  }
+
+  // The index-th child, placed after the previous child or at the start of the node
+  private Node child(int node, int index) {
+    int base = index == 0 ? this.starts[node] : this.ends[getChild(node, index - 1)];
+    return toTree(getChild(node, index), base);
+  }
+
+  private Expression expression(int node, int index) {
+    return (Expression) child(node, index);
+  }
+
+  private List<Statement> statements(int node) {
+    List<Statement> statements = new ArrayList<>(getChildCount(node));
+    for (int i = 0; i < getChildCount(node); i++) {
+      statements.add((Statement) child(node, i));
+    }
+    return statements;
+  }
+}
@@ -0,0 +1,234 @@
+package parser;
+
+import lexer.GapOffsets;
+import lexer.IncrementalLexer;
+import lexer.Token;
+import lexer.TokenType;
+import parser.ast.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Keeps the tokens and the tree of a source text up to date across edits. After the lexer relexes the
+// damaged range, only the top-level statements around it are parsed again: parsing restarts at the
+// statement before the damage, since a statement can look one token past its end (an if checks for else),
+// and stops once the next statement starts where an old statement did after the damage. Nodes store their
+// positions relative to their previous sibling, so every other statement is reused as the same object
+// whatever the edit did to the length of the text; only the first statement after the damage is copied,
+// without its children, when its distance to the statement before it changed. The start of each top-level
+// statement is kept in a GapOffsets, which an edit does not have to update past the damage either.
+public class IncrementalParser {
+  private final IncrementalLexer lexer;
+  private final Statements statements = new Statements();
+  private Program program;
+  private int reparsedStatements;
+
+  public IncrementalParser(String source) {
+    this.lexer = new IncrementalLexer(source);
+    this.program = new Parser(tokensFrom(0)).parse();
+    List<Statement> parsed = this.program.getStatements();
+    this.statements.replace(0, 0, parsed.size(), source.length());
+    int previousEnd = this.program.getOffset();
+    for (int i = 0; i < parsed.size(); i++) {
+      int start = previousEnd + parsed.get(i).getOffset();
+      this.statements.set(i, start, parsed.get(i));
+      previousEnd = start + parsed.get(i).getWidth();
+    }
+    this.reparsedStatements = parsed.size();
+  }
+
+  // The current text, which later edits change in place; toString takes a copy
+  public CharSequence getSource() { return this.lexer.getSource(); }
+  public Program getAST() { return this.program; }
+  public IncrementalLexer getLexer() { return this.lexer; }
+
+  // Start in the source of the index-th top-level statement
+  public int getStatementStart(int index) { return this.statements.getOffset(index); }
+
+  // Top-level statements parsed by the last edit
+  public int getReparsedStatements() { return this.reparsedStatements; }
+
+  // Replaces source[offset, offset + removedLength) with insertedText and returns the updated tree.
+  // On a lexing or parsing error the exception is thrown and the text and tree are left unchanged.
+  public Program edit(int offset, int removedLength, String insertedText) {
+    String removed = this.lexer.edit(offset, removedLength, insertedText);
+    try {
+      this.program = reparse(insertedText.length() - removedLength);
+      return this.program;
+    } catch (IllegalArgumentException e) {
+      this.lexer.edit(offset, insertedText.length(), removed);
+      throw e;
+    }
+  }
+
+  // Until the parse succeeds, this.statements still holds the offsets of the text before the edit
+  private Program reparse(int delta) {
+    int damageStart = this.lexer.getDamageStart();
+    int damageEnd = this.lexer.getDamageEnd();
+    int oldDamageEnd = damageEnd - delta;
+    int size = this.statements.size();
+
+    // First statement to parse again: the one before the first statement reaching the damage
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (end(middle) < damageStart) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    int first = Math.max(0, low - 1);
+    int from = first < size ? Math.min(this.statements.getOffset(first), damageStart) : damageStart;
+
+    // Old statements from resume on start after the damage and are kept
+    int[] resume = {size};
+    Parser parser = new Parser(tokensFrom(this.lexer.tokenAtOrAfter(from)));
+    FlatAst reparsed = parser.parseStatements(start -> {
+      if (start < damageEnd) {
+        return false;
+      }
+      int index = this.statements.indexOf(start - delta);
+      if (index >= first && this.statements.getOffset(index) >= oldDamageEnd) {
+        resume[0] = index;
+        return true;
+      }
+      return false;
+    });
+
+    // Statements before first did not move; the reparsed ones are placed after them
+    int root = reparsed.getRoot();
+    int count = reparsed.getChildCount(root);
+    Statement[] parsed = new Statement[count + 1];
+    int[] starts = new int[count + 1];
+    boolean atStart = first == 0;
+    int previousEnd = atStart ? 0 : end(first - 1);
+    for (int i = 0; i < count; i++) {
+      int child = reparsed.getChild(root, i);
+      starts[i] = reparsed.getStart(child);
+      parsed[i] = (Statement) reparsed.toTree(child, atStart ? starts[i] : previousEnd);
+      previousEnd = reparsed.getEnd(child);
+      atStart = false;
+    }
+
+    // The first kept statement is copied when its distance to the statement before it changed
+    int replacedEnd = resume[0];
+    int added = count;
+    if (resume[0] < size) {
+      Statement kept = this.statements.get(resume[0]);
+      int start = this.statements.getOffset(resume[0]) + delta;
+      int offset = atStart ? 0 : start - previousEnd;
+      if (offset != kept.getOffset()) {
+        parsed[count] = moved(kept, offset);
+        starts[count] = start;
+        replacedEnd++;
+        added++;
+      }
+    }
+
+    this.statements.replace(first, replacedEnd, added, this.lexer.getSource().length());
+    for (int i = 0; i < added; i++) {
+      this.statements.set(first + i, starts[i], parsed[i]);
+    }
+    this.reparsedStatements = count;
+
+    int length = this.lexer.getSource().length();
+    int start = this.statements.size() == 0 ? firstTokenStart() : this.statements.getOffset(0);
+    return new Program(start, length - start, this.statements.toList());
+  }
+
+  // End in the text before the edit of the index-th top-level statement
+  private int end(int index) {
+    return this.statements.getOffset(index) + this.statements.get(index).getWidth();
+  }
+
+  // Start of the first token that is not WHITESPACE, where a program without statements starts
+  private int firstTokenStart() {
+    int index = 0;
+    while (index < this.lexer.size() && this.lexer.getType(index) == TokenType.WHITESPACE) {
+      index++;
+    }
+    return index < this.lexer.size() ? this.lexer.getStart(index) : this.lexer.getSource().length();
+  }
+
+  private Supplier<Token> tokensFrom(int index) {
+    int[] next = {index};
+    return () -> {
+      Token token = this.lexer.getToken(next[0]);
+      if (next[0] < this.lexer.size()) {
+        next[0]++;
+      }
+      return token;
+    };
+  }
+
+  // The same statement at another offset, sharing its children, whose positions are relative to it
+  private static Statement moved(Statement statement, int offset) {
+    int width = statement.getWidth();
+    return switch (statement.getKind()) {
+      case BLOCK -> new Block(offset, width, ((Block) statement).getStatements());
+      case PRINT_STATEMENT -> new PrintStatement(offset, width, ((PrintStatement) statement).getExpression());
+      case ASSIGNMENT_STATEMENT -> {
+        AssignmentStatement assignment = (AssignmentStatement) statement;
+        yield new AssignmentStatement(offset, width, assignment.getTarget(), assignment.getValue());
+      }
+      case IF_STATEMENT -> {
+        IfStatement ifStatement = (IfStatement) statement;
+        yield new IfStatement(offset, width, ifStatement.getCondition(), ifStatement.getThenBlock(),
+                ifStatement.getElseBranch());
+      }
+      case WHILE_STATEMENT -> {
+        WhileStatement loop = (WhileStatement) statement;
+        yield new WhileStatement(offset, width, loop.getCondition(), loop.getBody());
+      }
+      case RETURN_STATEMENT -> new ReturnStatement(offset, width, ((ReturnStatement) statement).getValue());
+      case EXPRESSION_STATEMENT -> new ExpressionStatement(offset, width,
+              ((ExpressionStatement) statement).getExpression());
+      default -> throw new IllegalArgumentException(statement.getKind() + " is not a statement");
+    };
+  }
+
+  // Top-level statement starts with the statements as their data
+  private static final class Statements extends GapOffsets {
+    private Statement[] statements = new Statement[16];
+
+    Statements() {
+      super(16);
+    }
+
+    Statement get(int index) {
+      return this.statements[slot(index)];
+    }
+
+    void set(int index, int start, Statement statement) {
+      setOffset(index, start);
+      this.statements[index] = statement;
+    }
+
+    List<Statement> toList() {
+      Statement[] list = new Statement[size()];
+      for (int i = 0; i < list.length; i++) {
+        list[i] = get(i);
+      }
+      return Arrays.asList(list);
+    }
+
+    // Overridden so that IncrementalParser, in this package, can call it
+    @Override
+    protected void replace(int from, int to, int count, int textLength) {
+      super.replace(from, to, count, textLength);
+    }
+
+    @Override
+    protected void moveData(int from, int to, int count) {
+      System.arraycopy(this.statements, from, this.statements, to, count);
+    }
+
+    @Override
+    protected void resize(int capacity) {
+      this.statements = Arrays.copyOf(this.statements, capacity);
+    }
+  }
+}
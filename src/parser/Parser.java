@@ -1,297 +1,499 @@
 package parser;
 
+import lexer.Diagnostic;
 import lexer.Lexer;
 import lexer.Token;
 import lexer.TokenType;
+import parser.ast.NodeKind;
+import parser.ast.Operator;
+import parser.ast.Program;
 
-import java.util.List;
+import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
 
 public class Parser {
+  // Tokens where panic mode stops skipping, since a new statement starts there
+  private static final Set<TokenType> STATEMENT_STARTS =
+          EnumSet.of(TokenType.PRINT, TokenType.IF, TokenType.WHILE, TokenType.RETURN);
+
+  // The lexer when parsing from one, so that it can report invalid characters during recovery
   private final Lexer lexer;
-  private List<Token> tokens;
-  private int currentTokenIndex;
-  private final StringBuilder AST = new StringBuilder();
+  private final Supplier<Token> tokens;
+  // Tokens are pulled from the lexer on demand, so only the current token and one token of lookahead
+  // are held; current becomes null once END_OF_INPUT has been consumed. WHITESPACE is never returned.
+  private Token current;
+  private Token next;
+  // End offset of the last consumed token, where the node being parsed ends
+  private int previousEnd;
+  // Whether a line break precedes the token, which lets recovery insert a missing ";" there
+  private boolean currentOnNewLine;
+  private boolean nextOnNewLine;
+  private boolean pulledOnNewLine;
+
+  private FlatAst ast;
+  private Program tree;
+  // Collected errors while parsing with recovery, null otherwise
+  private List<Diagnostic> diagnostics;
 
   public Parser(Lexer lexer) {
     this.lexer = lexer;
+    this.tokens = lexer::nextToken;
   }
 
-  public void printAST() {
-    System.out.println(this.AST);
+  // Parses tokens from any source that returns END_OF_INPUT at its end
+  Parser(Supplier<Token> tokens) {
+    this.lexer = null;
+    this.tokens = tokens;
   }
 
-  public void parse() {
-    tokens = lexer.tokenize();
-    currentTokenIndex = 0;
+  // Parses the input and returns the typed tree
+  public Program parse() {
+    parseFlat();
+    return getAST();
+  }
+
+  // Parses the input into the flat encoding only; the typed tree is built later by getAST if needed
+  public FlatAst parseFlat() {
+    ast = new FlatAst();
+    tree = null;
+    next = null;
+    current = pullToken();
+    currentOnNewLine = pulledOnNewLine;
 
     // Start the parsing process
     parseProgram();
 
     // Check if there are any remaining tokens
-    if (currentTokenIndex < tokens.size() - 1) {
+    if (current != null && current.getType() != TokenType.END_OF_INPUT) {
       throw new IllegalArgumentException("Unexpected token at the end of the input");
     }
+    return ast;
+  }
+
+  // Parses the whole input without stopping at the first error. Invalid characters are skipped by the
+  // lexer. A statement with a syntax error is reported and left out of the tree. Missing ";", ")" and "}"
+  // are inserted, and a single stray token before an expected one is deleted. Otherwise tokens are
+  // skipped up to the next ";", "}", block or statement keyword. The diagnostics are sorted by position.
+  public Program parseWithRecovery() {
+    diagnostics = new ArrayList<>();
+    if (lexer != null) {
+      lexer.setDiagnostics(diagnostics);
+    }
+    try {
+      parseFlat();
+    } finally {
+      if (lexer != null) {
+        lexer.setDiagnostics(null);
+      }
+    }
+    diagnostics.sort(Comparator.comparingInt(Diagnostic::getStart));
+    return getAST();
+  }
+
+  public List<Diagnostic> getDiagnostics() {
+    return diagnostics == null ? List.of() : Collections.unmodifiableList(diagnostics);
+  }
+
+  // Parses statements until END_OF_INPUT, or until stopAt accepts the start offset of the next statement.
+  // The statements become the children of the PROGRAM root; the tokens after them are not consumed.
+  FlatAst parseStatements(IntPredicate stopAt) {
+    ast = new FlatAst();
+    tree = null;
+    next = null;
+    current = pullToken();
+    currentOnNewLine = pulledOnNewLine;
+
+    int start = getCurrentToken().getStart();
+    int count = 0;
+    while (!checkToken(TokenType.END_OF_INPUT) && !stopAt.test(getCurrentToken().getStart())) {
+      parseStatement();
+      count++;
+    }
+    ast.add(NodeKind.PROGRAM, start, count > 0 ? previousEnd : start, 0, null, count);
+    return ast;
+  }
+
+  public Program getAST() {
+    if (tree == null && ast != null) {
+      tree = ast.toTree();
+    }
+    return tree;
+  }
+
+  public void printAST() {
+    System.out.print(getAST());
   }
 
   // Parser methods for each production rule
   private void parseProgram() {
-    // program -> statement*
-    while (currentTokenIndex < tokens.size()) {
+    // program -> statement* END_OF_INPUT
+    int start = getCurrentToken().getStart();
+    int count = 0;
+    while (!checkToken(TokenType.END_OF_INPUT)) {
+      if (parseStatementOrRecover()) {
+        count++;
+      }
+    }
+    consumeToken(TokenType.END_OF_INPUT);
+    ast.add(NodeKind.PROGRAM, start, previousEnd, 0, null, count);
+  }
+
+  // Parses a statement. With recovery, a statement that fails is reported and its nodes are dropped,
+  // and the tokens up to the next synchronization point are skipped; returns false in that case.
+  private boolean parseStatementOrRecover() {
+    if (diagnostics == null) {
+      parseStatement();
+      return true;
+    }
+
+    int nodes = ast.size();
+    int pending = ast.pendingCount();
+    Token first = current;
+    try {
       parseStatement();
+      return true;
+    } catch (IllegalArgumentException e) {
+      report(getCurrentToken(), e.getMessage());
+      ast.truncate(nodes, pending);
+      synchronize(first);
+      return false;
+    }
+  }
+
+  // Panic mode: skips tokens past the next ";" or balanced block, or up to a "}" or statement keyword
+  private void synchronize(Token first) {
+    if (current == first && !checkToken(TokenType.END_OF_INPUT)) {
+      // Nothing was consumed, so skip the offending token to make progress
+      consumeToken();
+    }
+    while (!checkToken(TokenType.END_OF_INPUT)) {
+      TokenType type = getCurrentToken().getType();
+      if (type == TokenType.SEMICOLON) {
+        consumeToken();
+        return;
+      }
+      if (type == TokenType.RIGHT_BRACE || STATEMENT_STARTS.contains(type)) {
+        return;
+      }
+      if (type == TokenType.LEFT_BRACE) {
+        skipBlock();
+        if (!checkToken(TokenType.ELSE)) {
+          return;
+        }
+      }
+      consumeToken();
+    }
+  }
+
+  private void skipBlock() {
+    int depth = 0;
+    do {
+      if (checkToken(TokenType.LEFT_BRACE)) {
+        depth++;
+      } else if (checkToken(TokenType.RIGHT_BRACE)) {
+        depth--;
+      }
+      consumeToken();
+    } while (depth > 0 && !checkToken(TokenType.END_OF_INPUT));
+  }
+
+  // Records a diagnostic at token, unless one was already reported at the same place
+  private void report(Token token, String message) {
+    Diagnostic last = diagnostics.isEmpty() ? null : diagnostics.get(diagnostics.size() - 1);
+    if (last == null || last.getStart() != token.getStart()) {
+      diagnostics.add(new Diagnostic(token.getStart(), token.getEnd(), message));
     }
   }
 
   private void parseStatement() {
-    // statement -> printStatement | ifStatement | whileStatement | assignmentStatement
+    // statement -> printStatement | ifStatement | whileStatement | returnStatement | assignmentStatement
+    //            | block | expressionStatement
     Token currentToken = getCurrentToken();
 
     switch (currentToken.getType()) {
       case PRINT -> parsePrintStatement();
+      case LEFT_BRACE -> parseBlock();
       case IF -> parseIfStatement();
       case WHILE -> parseWhileStatement();
-      case IDENTIFIER -> parseAssignmentStatement();
-      default -> throw new IllegalArgumentException("Unexpected token: " + currentToken);
+      case RETURN -> parseReturnStatement();
+      case IDENTIFIER -> {
+        if (getNextToken().getType() == TokenType.ASSIGNMENT) {
+          parseAssignmentStatement();
+        } else {
+          parseExpressionStatement();
+        }
+      }
+      default -> parseExpressionStatement();
     }
   }
 
   private void parsePrintStatement() {
     // printStatement -> "print" expression ";"
+    int start = getCurrentToken().getStart();
     consumeToken(TokenType.PRINT);
-    AST.append("PrintStatement { \n");
-    AST.append("\tExpression { \n");
     parseExpression();
-    AST.append("\t}\n");
     consumeToken(TokenType.SEMICOLON);
-    consumeToken(TokenType.END_OF_INPUT);
-    AST.append("}");
+    ast.add(NodeKind.PRINT_STATEMENT, start, previousEnd, 0, null, 1);
   }
 
   private void parseIfStatement() {
-    // ifStatement -> "if" "(" expression ")" "{" program "}" ["else" "{" program "}"]
-    AST.append("IfStatement { \n");
+    // ifStatement -> "if" "(" expression ")" block ["else" (block | ifStatement)]
+    int start = getCurrentToken().getStart();
     consumeToken(TokenType.IF);
     consumeToken(TokenType.LEFT_PAREN);
-
-    AST.append("\tExpression { \n");
-    parseExpression();
-    parseExpression();
     parseExpression();
     consumeToken(TokenType.RIGHT_PAREN);
-    consumeToken(TokenType.LEFT_BRACE);
-    AST.append("\t}\n");
-
-    AST.append("\tProgram { \n");
-    parseExpression();
-    consumeToken(TokenType.WHITESPACE);
-    parseExpression();
-    consumeToken(TokenType.SEMICOLON);
-    consumeToken(TokenType.RIGHT_BRACE);
-    AST.append("\t}\n");
-    AST.append("}\n");
+    parseBlock();
 
+    int children = 2;
     if (checkToken(TokenType.ELSE)) {
-      AST.append("ElseStatement { \n");
       consumeToken(TokenType.ELSE);
-      consumeToken(TokenType.LEFT_BRACE);
-      AST.append("\tProgram { \n");
-      parseExpression();
-      consumeToken(TokenType.WHITESPACE);
-      parseExpression();
-      AST.append("\t}\n");
-      consumeToken(TokenType.SEMICOLON);
-      consumeToken(TokenType.RIGHT_BRACE);
-      AST.append("}\n");
+      if (checkToken(TokenType.IF)) {
+        parseIfStatement();
+      } else {
+        parseBlock();
+      }
+      children++;
     }
-
-    consumeToken(TokenType.END_OF_INPUT);
+    ast.add(NodeKind.IF_STATEMENT, start, previousEnd, 0, null, children);
   }
 
   private void parseWhileStatement() {
-    // whileStatement -> "while" "(" expression ")" "{" program "}"
-    AST.append("WhileStatement { \n");
-
+    // whileStatement -> "while" "(" expression ")" block
+    int start = getCurrentToken().getStart();
     consumeToken(TokenType.WHILE);
     consumeToken(TokenType.LEFT_PAREN);
-
-    AST.append("\tExpression { \n");
-
-    parseExpression();
-    parseExpression();
     parseExpression();
     consumeToken(TokenType.RIGHT_PAREN);
-    consumeToken(TokenType.LEFT_BRACE);
-
-    AST.append("\t}\n");
+    parseBlock();
+    ast.add(NodeKind.WHILE_STATEMENT, start, previousEnd, 0, null, 2);
+  }
 
-    AST.append("\tProgram { \n");
-    consumeToken(TokenType.PRINT);
-    AST.append("\t\tPrintStatement { \n");
-    AST.append("\t\t\tExpression { \n\t");
-    parseExpression();
-    AST.append("\t\t}\n");
+  private void parseReturnStatement() {
+    // returnStatement -> "return" [expression] ";"
+    int start = getCurrentToken().getStart();
+    consumeToken(TokenType.RETURN);
+    int children = 0;
+    if (!checkToken(TokenType.SEMICOLON)) {
+      parseExpression();
+      children++;
+    }
     consumeToken(TokenType.SEMICOLON);
-
-    parseExpression();
-    parseExpression();
-    consumeToken(TokenType.RIGHT_BRACE);
-
-    AST.append("\t}\n");
-    AST.append("}\n");
-
-    consumeToken(TokenType.END_OF_INPUT);
+    ast.add(NodeKind.RETURN_STATEMENT, start, previousEnd, 0, null, children);
   }
 
   private void parseAssignmentStatement() {
     // assignmentStatement -> identifier "=" expression ";"
-    AST.append("AssignmentStatement { \n");
-    AST.append("\tExpression { \n");
-
-    // identifier
-    parseExpression();
+    int start = getCurrentToken().getStart();
+    parseIdentifier();
     consumeToken(TokenType.ASSIGNMENT);
-
-    // expression
     parseExpression();
-
     consumeToken(TokenType.SEMICOLON);
-    consumeToken(TokenType.END_OF_INPUT);
+    ast.add(NodeKind.ASSIGNMENT_STATEMENT, start, previousEnd, 0, null, 2);
+  }
 
-    AST.append("\t}\n");
-    AST.append("}");
+  private void parseExpressionStatement() {
+    // expressionStatement -> expression ";"
+    int start = getCurrentToken().getStart();
+    parseExpression();
+    consumeToken(TokenType.SEMICOLON);
+    ast.add(NodeKind.EXPRESSION_STATEMENT, start, previousEnd, 0, null, 1);
   }
 
-  private void parseExpression() {
-    // Skip any remaining whitespace tokens
-    while (checkToken(TokenType.WHITESPACE)) {
-      consumeToken();
+  private void parseBlock() {
+    // block -> "{" statement* "}"
+    int start = getCurrentToken().getStart();
+    consumeToken(TokenType.LEFT_BRACE);
+    int count = 0;
+    while (!checkToken(TokenType.RIGHT_BRACE) && !checkToken(TokenType.END_OF_INPUT)) {
+      if (parseStatementOrRecover()) {
+        count++;
+      }
     }
+    consumeToken(TokenType.RIGHT_BRACE);
+    ast.add(NodeKind.BLOCK, start, previousEnd, 0, null, count);
+  }
 
-    // expression -> additiveExpression
-    parseAdditiveExpression();
+  private void parseExpression() {
+    // expression -> unaryExpression { binaryOperator unaryExpression }, grouped by Operator precedence
+    parseBinaryExpression(1);
   }
 
-  private void parseAdditiveExpression() {
-    // additiveExpression -> multiplicativeExpression { ("+" | "-") multiplicativeExpression }
-    parseMultiplicativeExpression();
+  // Precedence climbing: parses operands joined by operators that bind at least as tightly as
+  // minPrecedence. Right operands only take tighter operators, so equal precedence groups to the left.
+  private void parseBinaryExpression(int minPrecedence) {
+    int start = getCurrentToken().getStart();
+    parseUnaryExpression();
 
-    while (checkToken(TokenType.PLUS) || checkToken(TokenType.MINUS)) {
-      if(getCurrentToken().getType() == TokenType.PLUS &&
-         getNextToken().getType() == TokenType.PLUS) {
-        AST.append("\t\tOperator { \n");
-        AST.append("\t\t\tValue: ++").append("\n");
-        AST.append("\t\t} \n");
-        consumeToken(TokenType.PLUS);
-        consumeToken(TokenType.PLUS);
-        break;
+    while (true) {
+      Operator operator = current == null ? null : Operator.binary(current.getType());
+      if (operator == null || operator.getPrecedence() < minPrecedence) {
+        return;
       }
-      parseMultiplicativeExpression();
+      consumeToken();
+      parseBinaryExpression(operator.getPrecedence() + 1);
+      ast.add(NodeKind.BINARY_EXPRESSION, start, previousEnd, operator.ordinal(), null, 2);
     }
   }
 
-  private void parseMultiplicativeExpression() {
-    // multiplicativeExpression -> primaryExpression { ("*" | "/") primaryExpression }
+  private void parseUnaryExpression() {
+    // unaryExpression -> ("!" | "-") unaryExpression | postfixExpression
+    int start = getCurrentToken().getStart();
+    if (checkToken(TokenType.NOT) || checkToken(TokenType.MINUS)) {
+      Operator operator = checkToken(TokenType.NOT) ? Operator.NOT : Operator.NEGATE;
+      consumeToken();
+      parseUnaryExpression();
+      ast.add(NodeKind.UNARY_EXPRESSION, start, previousEnd, operator.ordinal(), null, 1);
+      return;
+    }
+    parsePostfixExpression();
+  }
+
+  private void parsePostfixExpression() {
+    // postfixExpression -> primaryExpression { "++" | "--" }
+    int start = getCurrentToken().getStart();
     parsePrimaryExpression();
 
-    while (checkToken(TokenType.MULTIPLY) || checkToken(TokenType.DIVIDE)) {
+    // The lexer has no "++" token, so it is two adjacent PLUS tokens
+    while (isDoubled(TokenType.PLUS) || isDoubled(TokenType.MINUS)) {
+      Operator operator = checkToken(TokenType.PLUS) ? Operator.INCREMENT : Operator.DECREMENT;
       consumeToken();
-      parsePrimaryExpression();
+      consumeToken();
+      ast.add(NodeKind.UNARY_EXPRESSION, start, previousEnd, operator.ordinal(), null, 1);
     }
   }
 
   private void parsePrimaryExpression() {
-    // primaryExpression -> identifier | literal
+    // primaryExpression -> identifier | literal | "(" expression ")"
     Token currentToken = getCurrentToken();
 
-    if (currentToken.getType() == TokenType.IDENTIFIER) {
-      AST.append("\t\tIdentifier { \n");
-      consumeToken(TokenType.IDENTIFIER);
-      AST.append("\t\t\tValue: ").append(currentToken.getLexeme()).append("\n");
-      AST.append("\t\t} \n");
-    }
-    else if(currentToken.getType() == TokenType.LESS_THAN) {
-      AST.append("\t\tOperator { \n");
-      AST.append("\t\t\tValue: ").append(currentToken.getLexeme()).append("\n");
-      consumeToken(TokenType.LESS_THAN);
-      AST.append("\t\t} \n");
-    }
-    else if(currentToken.getType() == TokenType.EQUALS) {
-      AST.append("\t\tOperator { \n");
-      AST.append("\t\t\tValue: ").append(currentToken.getLexeme()).append("\n");
-      consumeToken(TokenType.EQUALS);
-      AST.append("\t\t} \n");
-    }
-    else if(currentToken.getType() == TokenType.RETURN) {
-      AST.append("\t\tKeyword { \n");
-      AST.append("\t\t\tValue: ").append(currentToken.getLexeme()).append("\n");
-      consumeToken(TokenType.RETURN);
-      AST.append("\t\t} \n");
-    }
-    else if(currentToken.getType() == TokenType.BOOLEAN) {
-      AST.append("\t\tBoolean { \n");
-      AST.append("\t\t\tValue: ").append(currentToken.getLexeme()).append("\n");
-      consumeToken(TokenType.BOOLEAN);
-      AST.append("\t\t} \n");
-    }
-    else if(currentToken.getType() == TokenType.SEMICOLON) {
-      consumeToken(TokenType.SEMICOLON);
-    }
-    else {
-      parseLiteral();
+    switch (currentToken.getType()) {
+      case IDENTIFIER -> parseIdentifier();
+      case LEFT_PAREN -> {
+        consumeToken(TokenType.LEFT_PAREN);
+        parseExpression();
+        consumeToken(TokenType.RIGHT_PAREN);
+      }
+      default -> parseLiteral();
     }
   }
 
+  private void parseIdentifier() {
+    Token currentToken = getCurrentToken();
+    consumeToken(TokenType.IDENTIFIER);
+    ast.add(NodeKind.IDENTIFIER, currentToken.getStart(), currentToken.getEnd(), 0, currentToken.getLexeme(), 0);
+  }
 
   private void parseLiteral() {
     // literal -> integerLiteral | charLiteral | stringLiteral | floatLiteral | doubleLiteral | booleanLiteral
     Token currentToken = getCurrentToken();
 
     switch (currentToken.getType()) {
-      case INT -> {
-        AST.append("\t\tInteger { \n");
-        AST.append("\t\t\tValue: ").append(currentToken.getLexeme()).append("\n");
-        AST.append("\t\t} \n");
-        consumeToken(TokenType.INT);
+      case INT, CHAR, STRING, FLOAT, DOUBLE, BOOLEAN -> {
+        consumeToken();
+        ast.add(NodeKind.LITERAL, currentToken.getStart(), currentToken.getEnd(), currentToken.getType().ordinal(),
+                currentToken.getLexeme(), 0);
       }
-      case STRING -> consumeToken(TokenType.STRING);
-      case FLOAT -> consumeToken(TokenType.FLOAT);
-      case DOUBLE -> consumeToken(TokenType.DOUBLE);
-      case BOOLEAN -> consumeToken(TokenType.BOOLEAN);
       default -> throw new IllegalArgumentException("Unexpected token: " + currentToken);
     }
   }
 
   // Helper methods
   private Token getCurrentToken() {
-    if (currentTokenIndex >= tokens.size()) {
+    if (current == null) {
       throw new IllegalArgumentException("No more tokens to parse");
     }
-    return tokens.get(currentTokenIndex);
+    return current;
   }
 
   private Token getNextToken() {
-    if (currentTokenIndex + 1 >= tokens.size()) {
+    if (getCurrentToken().getType() == TokenType.END_OF_INPUT) {
       throw new IllegalArgumentException("No more tokens to parse");
     }
-    return tokens.get(currentTokenIndex + 1);
+    if (next == null) {
+      next = pullToken();
+      nextOnNewLine = pulledOnNewLine;
+    }
+    return next;
   }
 
   private boolean checkToken(TokenType expectedTokenType) {
-    if (currentTokenIndex >= tokens.size()) {
+    if (current == null) {
       return false;
     }
     Token currentToken = getCurrentToken();
     return currentToken.getType() == expectedTokenType;
   }
 
+  // Whether the current and the next token are the same operator written without a gap, e.g. "++"
+  private boolean isDoubled(TokenType type) {
+    return checkToken(type) && getNextToken().getType() == type && next.getStart() == current.getEnd();
+  }
+
   private void consumeToken(TokenType expectedTokenType) {
+    if (!checkToken(expectedTokenType) && diagnostics != null && repair(expectedTokenType)) {
+      return;
+    }
     if (!checkToken(expectedTokenType)) {
       throw new IllegalArgumentException("Expected token of type " + expectedTokenType
               + ", but found " + getCurrentToken().getType());
     }
-    currentTokenIndex++;
+    consumeToken();
+  }
+
+  // Single token repairs during recovery: acts as if a missing closing token was there (";" also before
+  // a token on a new line), or deletes one stray token in front of the expected one. Returns false when
+  // neither applies.
+  private boolean repair(TokenType expectedTokenType) {
+    Token currentToken = getCurrentToken();
+    TokenType type = currentToken.getType();
+    String message = "Expected token of type " + expectedTokenType + ", but found " + type;
+
+    boolean missing = switch (expectedTokenType) {
+      case SEMICOLON -> type == TokenType.RIGHT_BRACE || type == TokenType.END_OF_INPUT
+              || STATEMENT_STARTS.contains(type) || currentOnNewLine;
+      case RIGHT_PAREN -> type == TokenType.LEFT_BRACE;
+      case RIGHT_BRACE -> type == TokenType.END_OF_INPUT;
+      default -> false;
+    };
+    if (missing) {
+      report(currentToken, message);
+      return true;
+    }
+
+    if (type != TokenType.END_OF_INPUT && getNextToken().getType() == expectedTokenType) {
+      report(currentToken, "Unexpected token: " + currentToken);
+      consumeToken();
+      consumeToken();
+      return true;
+    }
+    return false;
   }
 
   private void consumeToken() {
-    currentTokenIndex++;
+    if (current != null) {
+      previousEnd = current.getEnd();
+    }
+    if (current == null || current.getType() == TokenType.END_OF_INPUT) {
+      current = null;
+    } else if (next != null) {
+      current = next;
+      currentOnNewLine = nextOnNewLine;
+      next = null;
+    } else {
+      current = pullToken();
+      currentOnNewLine = pulledOnNewLine;
+    }
+  }
+
+  private Token pullToken() {
+    Token token = tokens.get();
+    pulledOnNewLine = false;
+    while (token.getType() == TokenType.WHITESPACE) {
+      pulledOnNewLine |= token.getLexeme().indexOf('\n') >= 0;
+      token = tokens.get();
+    }
+    return token;
   }
 }
@@ -0,0 +1,32 @@
+package parser.ast;
+
+import java.util.List;
+
+public final class AssignmentStatement extends Statement {
+  private final Identifier target;
+  private final Expression value;
+
+  public AssignmentStatement(int offset, int width, Identifier target, Expression value) {
+    super(offset, width);
+    this.target = target;
+    this.value = value;
+  }
+
+  public Identifier getTarget() {
+    return this.target;
+  }
+
+  public Expression getValue() {
+    return this.value;
+  }
+
+  @Override
+  public NodeKind getKind() {
+    return NodeKind.ASSIGNMENT_STATEMENT;
+  }
+
+  @Override
+  public List<Node> getChildren() {
+    return List.of(this.target, this.value);
+  }
+}
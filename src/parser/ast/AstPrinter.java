@@ -0,0 +1,36 @@
+package parser.ast;
+
+// Renders a tree as nested "Kind { ... }" blocks, one tab of indentation per level
+public final class AstPrinter {
+  private AstPrinter() {}
+
+  public static String print(Node node) {
+    StringBuilder out = new StringBuilder();
+    print(node, 0, out);
+    return out.toString();
+  }
+
+  private static void print(Node node, int depth, StringBuilder out) {
+    indent(depth, out).append(name(node.getKind())).append(" {\n");
+    if (node.getLabel() != null) {
+      indent(depth + 1, out).append("Value: ").append(node.getLabel()).append('\n');
+    }
+    for (Node child : node.getChildren()) {
+      print(child, depth + 1, out);
+    }
+    indent(depth, out).append("}\n");
+  }
+
+  // PRINT_STATEMENT -> PrintStatement
+  private static String name(NodeKind kind) {
+    StringBuilder name = new StringBuilder();
+    for (String part : kind.name().split("_")) {
+      name.append(part.charAt(0)).append(part.substring(1).toLowerCase());
+    }
+    return name.toString();
+  }
+
+  private static StringBuilder indent(int depth, StringBuilder out) {
+    return out.append("\t".repeat(depth));
+  }
+}
@@ -0,0 +1,43 @@
+package parser.ast;
+
+import java.util.List;
+
+public final class BinaryExpression extends Expression {
+  private final Operator operator;
+  private final Expression left;
+  private final Expression right;
+
+  public BinaryExpression(int offset, int width, Operator operator, Expression left, Expression right) {
+    super(offset, width);
+    this.operator = operator;
+    this.left = left;
+    this.right = right;
+  }
+
+  public Operator getOperator() {
+    return this.operator;
+  }
+
+  public Expression getLeft() {
+    return this.left;
+  }
+
+  public Expression getRight() {
+    return this.right;
+  }
+
+  @Override
+  public NodeKind getKind() {
+    return NodeKind.BINARY_EXPRESSION;
+  }
+
+  @Override
+  public List<Node> getChildren() {
+    return List.of(this.left, this.right);
+  }
+
+  @Override
+  public String getLabel() {
+    return this.operator.getSymbol();
+  }
+}
@@ -0,0 +1,27 @@
+package parser.ast;
+
+import java.util.List;
+
+// "{" statement* "}"
+public final class Block extends Statement {
+  private final List<Statement> statements;
+
+  public Block(int offset, int width, List<Statement> statements) {
+    super(offset, width);
+    this.statements = List.copyOf(statements);
+  }
+
+  public List<Statement> getStatements() {
+    return this.statements;
+  }
+
+  @Override
+  public NodeKind getKind() {
+    return NodeKind.BLOCK;
+  }
+
+  @Override
+  public List<Node> getChildren() {
+    return List.copyOf(this.statements);
+  }
+}
@@ -0,0 +1,7 @@
+package parser.ast;
+
+public abstract class Expression extends Node {
+  protected Expression(int offset, int width) {
+    super(offset, width);
+  }
+}
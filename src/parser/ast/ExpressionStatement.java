@@ -0,0 +1,27 @@
+package parser.ast;
+
+import java.util.List;
+
+// An expression evaluated for its side effect, e.g. "i++;"
+public final class ExpressionStatement extends Statement {
+  private final Expression expression;
+
+  public ExpressionStatement(int offset, int width, Expression expression) {
+    super(offset, width);
+    this.expression = expression;
+  }
+
+  public Expression getExpression() {
+    return this.expression;
+  }
+
+  @Override
+  public NodeKind getKind() {
+    return NodeKind.EXPRESSION_STATEMENT;
+  }
+
+  @Override
+  public List<Node> getChildren() {
+    return List.of(this.expression);
+  }
+}
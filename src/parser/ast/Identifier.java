@@ -0,0 +1,31 @@
+package parser.ast;
+
+import java.util.List;
+
+public final class Identifier extends Expression {
+  private final String name;
+
+  public Identifier(int offset, int width, String name) {
+    super(offset, width);
+    this.name = name;
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  @Override
+  public NodeKind getKind() {
+    return NodeKind.IDENTIFIER;
+  }
+
+  @Override
+  public List<Node> getChildren() {
+    return List.of();
+  }
+
+  @Override
+  public String getLabel() {
+    return this.name;
+  }
+}
@@ -0,0 +1,41 @@
+package parser.ast;
+
+import java.util.List;
+
+public final class IfStatement extends Statement {
+  private final Expression condition;
+  private final Block thenBlock;
+  // A Block, an IfStatement for "else if", or null when there is no else branch
+  private final Statement elseBranch;
+
+  public IfStatement(int offset, int width, Expression condition, Block thenBlock, Statement elseBranch) {
+    super(offset, width);
+    this.condition = condition;
+    this.thenBlock = thenBlock;
+    this.elseBranch = elseBranch;
+  }
+
+  public Expression getCondition() {
+    return this.condition;
+  }
+
+  public Block getThenBlock() {
+    return this.thenBlock;
+  }
+
+  public Statement getElseBranch() {
+    return this.elseBranch;
+  }
+
+  @Override
+  public NodeKind getKind() {
+    return NodeKind.IF_STATEMENT;
+  }
+
+  @Override
+  public List<Node> getChildren() {
+    return this.elseBranch == null
+            ? List.of(this.condition, this.thenBlock)
+            : List.of(this.condition, this.thenBlock, this.elseBranch);
+  }
+}
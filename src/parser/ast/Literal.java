@@ -0,0 +1,40 @@
+package parser.ast;
+
+import lexer.TokenType;
+
+import java.util.List;
+
+// INT, FLOAT, DOUBLE, CHAR, STRING or BOOLEAN literal, kept as its source text
+public final class Literal extends Expression {
+  private final TokenType type;
+  private final String text;
+
+  public Literal(int offset, int width, TokenType type, String text) {
+    super(offset, width);
+    this.type = type;
+    this.text = text;
+  }
+
+  public TokenType getType() {
+    return this.type;
+  }
+
+  public String getText() {
+    return this.text;
+  }
+
+  @Override
+  public NodeKind getKind() {
+    return NodeKind.LITERAL;
+  }
+
+  @Override
+  public List<Node> getChildren() {
+    return List.of();
+  }
+
+  @Override
+  public String getLabel() {
+    return this.text;
+  }
+}
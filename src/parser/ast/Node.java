@@ -0,0 +1,39 @@
+package parser.ast;
+
+import java.util.List;
+
+// Immutable syntax tree node covering width source characters. Its position is stored relative to its
+// surroundings: offset is the distance from the end of the previous sibling, or from the start of the
+// parent for a first child, and for a root its start in the source. A subtree therefore stays valid
+// wherever the text before it grows or shrinks, and Spans turns these into source offsets.
+public abstract class Node {
+  private final int offset;
+  private final int width;
+
+  protected Node(int offset, int width) {
+    this.offset = offset;
+    this.width = width;
+  }
+
+  public int getOffset() {
+    return this.offset;
+  }
+
+  public int getWidth() {
+    return this.width;
+  }
+
+  public abstract NodeKind getKind();
+
+  public abstract List<Node> getChildren();
+
+  // Identifier name, literal text or operator symbol; null for nodes that only have children
+  public String getLabel() {
+    return null;
+  }
+
+  @Override
+  public String toString() {
+    return AstPrinter.print(this);
+  }
+}
@@ -0,0 +1,10 @@
+package parser.ast;
+
+public enum NodeKind {
+  // Statements
+  PROGRAM, BLOCK, PRINT_STATEMENT, ASSIGNMENT_STATEMENT, IF_STATEMENT, WHILE_STATEMENT, RETURN_STATEMENT,
+  EXPRESSION_STATEMENT,
+
+  // Expressions
+  IDENTIFIER, LITERAL, BINARY_EXPRESSION, UNARY_EXPRESSION
+}
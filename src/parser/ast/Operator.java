@@ -0,0 +1,55 @@
+package parser.ast;
+
+import lexer.TokenType;
+
+public enum Operator {
+  // Binary operators, the precedence grows with binding strength
+  OR("||", 1), AND("&&", 2),
+  EQUALS("==", 3), NOT_EQUALS("!=", 3),
+  LESS_THAN("<", 4), LESS_THAN_OR_EQUAL_TO("<=", 4), GREATER_THAN(">", 4), GREATER_THAN_OR_EQUAL_TO(">=", 4),
+  ADD("+", 5), SUBTRACT("-", 5),
+  MULTIPLY("*", 6), DIVIDE("/", 6), MODULO("%", 6),
+
+  // Unary operators
+  NOT("!", 0), NEGATE("-", 0), INCREMENT("++", 0), DECREMENT("--", 0);
+
+  private final String symbol;
+  private final int precedence;
+
+  Operator(String symbol, int precedence) {
+    this.symbol = symbol;
+    this.precedence = precedence;
+  }
+
+  public String getSymbol() {
+    return this.symbol;
+  }
+
+  public int getPrecedence() {
+    return this.precedence;
+  }
+
+  public boolean isBinary() {
+    return this.precedence > 0;
+  }
+
+  // The binary operator written as the given token, or null if the token is not one
+  public static Operator binary(TokenType type) {
+    return switch (type) {
+      case OR -> OR;
+      case AND -> AND;
+      case EQUALS -> EQUALS;
+      case NOT_EQUALS -> NOT_EQUALS;
+      case LESS_THAN -> LESS_THAN;
+      case LESS_THAN_OR_EQUAL_TO -> LESS_THAN_OR_EQUAL_TO;
+      case GREATER_THAN -> GREATER_THAN;
+      case GREATER_THAN_OR_EQUAL_TO -> GREATER_THAN_OR_EQUAL_TO;
+      case PLUS -> ADD;
+      case MINUS -> SUBTRACT;
+      case MULTIPLY -> MULTIPLY;
+      case DIVIDE -> DIVIDE;
+      case MODULO -> MODULO;
+      default -> null;
+    };
+  }
+}
@@ -0,0 +1,26 @@
+package parser.ast;
+
+import java.util.List;
+
+public final class PrintStatement extends Statement {
+  private final Expression expression;
+
+  public PrintStatement(int offset, int width, Expression expression) {
+    super(offset, width);
+    this.expression = expression;
+  }
+
+  public Expression getExpression() {
+    return this.expression;
+  }
+
+  @Override
+  public NodeKind getKind() {
+    return NodeKind.PRINT_STATEMENT;
+  }
+
+  @Override
+  public List<Node> getChildren() {
+    return List.of(this.expression);
+  }
+}
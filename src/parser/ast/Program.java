@@ -0,0 +1,26 @@
+package parser.ast;
+
+import java.util.List;
+
+public final class Program extends Node {
+  private final List<Statement> statements;
+
+  public Program(int offset, int width, List<Statement> statements) {
+    super(offset, width);
+    this.statements = List.copyOf(statements);
+  }
+
+  public List<Statement> getStatements() {
+    return this.statements;
+  }
+
+  @Override
+  public NodeKind getKind() {
+    return NodeKind.PROGRAM;
+  }
+
+  @Override
+  public List<Node> getChildren() {
+    return List.copyOf(this.statements);
+  }
+}
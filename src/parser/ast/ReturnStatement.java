@@ -0,0 +1,27 @@
+package parser.ast;
+
+import java.util.List;
+
+public final class ReturnStatement extends Statement {
+  // null for a bare "return;"
+  private final Expression value;
+
+  public ReturnStatement(int offset, int width, Expression value) {
+    super(offset, width);
+    this.value = value;
+  }
+
+  public Expression getValue() {
+    return this.value;
+  }
+
+  @Override
+  public NodeKind getKind() {
+    return NodeKind.RETURN_STATEMENT;
+  }
+
+  @Override
+  public List<Node> getChildren() {
+    return this.value == null ? List.of() : List.of(this.value);
+  }
+}
@@ -0,0 +1,40 @@
+package parser.ast;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Source offsets of every node of a tree, found in one walk from the root by adding up the relative
+// offsets and widths the nodes store
+public final class Spans {
+  private final Map<Node, Integer> starts = new IdentityHashMap<>();
+
+  private Spans() {}
+
+  public static Spans of(Node root) {
+    Spans spans = new Spans();
+    spans.add(root, root.getOffset());
+    return spans;
+  }
+
+  private void add(Node node, int start) {
+    this.starts.put(node, start);
+    int previousEnd = start;
+    for (Node child : node.getChildren()) {
+      int childStart = previousEnd + child.getOffset();
+      add(child, childStart);
+      previousEnd = childStart + child.getWidth();
+    }
+  }
+
+  public int getStart(Node node) {
+    Integer start = this.starts.get(node);
+    if (start == null) {
+      throw new IllegalArgumentException("Node " + node.getKind() + " is not part of this tree");
+    }
+    return start;
+  }
+
+  public int getEnd(Node node) {
+    return getStart(node) + node.getWidth();
+  }
+}
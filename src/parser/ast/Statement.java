@@ -0,0 +1,7 @@
+package parser.ast;
+
+public abstract class Statement extends Node {
+  protected Statement(int offset, int width) {
+    super(offset, width);
+  }
+}
@@ -0,0 +1,42 @@
+package parser.ast;
+
+import java.util.List;
+
+// Prefix "!" and "-", postfix "++" and "--"
+public final class UnaryExpression extends Expression {
+  private final Operator operator;
+  private final Expression operand;
+
+  public UnaryExpression(int offset, int width, Operator operator, Expression operand) {
+    super(offset, width);
+    this.operator = operator;
+    this.operand = operand;
+  }
+
+  public Operator getOperator() {
+    return this.operator;
+  }
+
+  public Expression getOperand() {
+    return this.operand;
+  }
+
+  public boolean isPostfix() {
+    return this.operator == Operator.INCREMENT || this.operator == Operator.DECREMENT;
+  }
+
+  @Override
+  public NodeKind getKind() {
+    return NodeKind.UNARY_EXPRESSION;
+  }
+
+  @Override
+  public List<Node> getChildren() {
+    return List.of(this.operand);
+  }
+
+  @Override
+  public String getLabel() {
+    return this.operator.getSymbol();
+  }
+}
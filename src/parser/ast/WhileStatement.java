@@ -0,0 +1,32 @@
+package parser.ast;
+
+import java.util.List;
+
+public final class WhileStatement extends Statement {
+  private final Expression condition;
+  private final Block body;
+
+  public WhileStatement(int offset, int width, Expression condition, Block body) {
+    super(offset, width);
+    this.condition = condition;
+    this.body = body;
+  }
+
+  public Expression getCondition() {
+    return this.condition;
+  }
+
+  public Block getBody() {
+    return this.body;
+  }
+
+  @Override
+  public NodeKind getKind() {
+    return NodeKind.WHILE_STATEMENT;
+  }
+
+  @Override
+  public List<Node> getChildren() {
+    return List.of(this.condition, this.body);
+  }
+}
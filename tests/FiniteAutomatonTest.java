@@ -1,11 +1,30 @@
+import automaton.AutomatonMatcher;
+import automaton.AutomatonSearcher;
+import automaton.CompiledAutomaton;
+import automaton.DenseDfa;
+import automaton.DfaMinimizer;
 import automaton.FiniteAutomaton;
+import automaton.LazyDfa;
 import automaton.Transition;
 import grammar.Grammar;
 import grammar.Production;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -29,6 +48,269 @@ class FiniteAutomatonTest {
     Assertions.assertFalse(FA.isWordValid("cet"));
   }
 
+  @Test
+  void compile() {
+    FiniteAutomaton FA = Grammar.createBaseGrammar().toFiniteAutomaton();
+    CompiledAutomaton compiled = FA.compile();
+
+    // X only appears as a transition target and final state
+    Assertions.assertEquals(5, compiled.getStateCount());
+    Assertions.assertTrue(compiled.stateId("X") >= 0);
+    Assertions.assertFalse(compiled.isDeterministic());
+    Assertions.assertEquals(-1, compiled.symbolOf('z'));
+
+    AutomatonMatcher matcher = compiled.matcher();
+    for (String word : new String[]{"ce", "cm", "cenm", "cc", "acenm", "cet", ""}) {
+      Assertions.assertEquals(FA.isWordValid(word), matcher.matches(word), word);
+    }
+
+    FiniteAutomaton DFA = new FiniteAutomaton(
+            new String[]{"q0", "q1"},
+            new String[]{"a", "b"},
+            new Transition[]{
+                    new Transition("q0", "a", "q1"),
+                    new Transition("q1", "b", "q0"),
+            },
+            "q0",
+            new String[]{"q0"}
+    );
+    Assertions.assertTrue(DFA.compile().isDeterministic());
+    Assertions.assertTrue(DFA.isWordValid(""));
+    Assertions.assertTrue(DFA.isWordValid("abab"));
+    Assertions.assertFalse(DFA.isWordValid("aba"));
+    Assertions.assertFalse(DFA.isWordValid("abc"));
+  }
+
+  // Accepts words over {a, b} whose n-th symbol from the end is 'a'; its DFA has 2^n states
+  private static FiniteAutomaton nthFromEndIsA(int n) {
+    String[] states = new String[n + 1];
+    List<Transition> transitions = new ArrayList<>();
+    for (int i = 0; i <= n; i++) {
+      states[i] = "q" + i;
+    }
+    transitions.add(new Transition("q0", "a", "q0"));
+    transitions.add(new Transition("q0", "b", "q0"));
+    transitions.add(new Transition("q0", "a", "q1"));
+    for (int i = 1; i < n; i++) {
+      transitions.add(new Transition(states[i], "a", states[i + 1]));
+      transitions.add(new Transition(states[i], "b", states[i + 1]));
+    }
+    return new FiniteAutomaton(states, new String[]{"a", "b"}, transitions.toArray(new Transition[0]),
+            "q0", new String[]{states[n]});
+  }
+
+  @Test
+  void isWordValidLargeNfa() {
+    FiniteAutomaton NFA = nthFromEndIsA(150);
+    Assertions.assertFalse(NFA.compile().isDeterministic());
+
+    String tail = "b".repeat(149);
+    Assertions.assertTrue(NFA.isWordValid("a" + tail));
+    Assertions.assertTrue(NFA.isWordValid("bbab" + "a" + tail));
+    Assertions.assertFalse(NFA.isWordValid("b" + tail));
+    Assertions.assertFalse(NFA.isWordValid("a" + tail + "b"));
+    Assertions.assertFalse(NFA.isWordValid("a" + tail + "c"));
+  }
+
+  @Test
+  void toLazyDFA() {
+    FiniteAutomaton NFA = nthFromEndIsA(6);
+    LazyDfa lazyDfa = NFA.toLazyDFA(1 << 20);
+    Random random = new Random(42);
+    for (int i = 0; i < 500; i++) {
+      StringBuilder word = new StringBuilder();
+      int length = random.nextInt(20);
+      for (int j = 0; j < length; j++) {
+        word.append(random.nextBoolean() ? 'a' : 'b');
+      }
+      Assertions.assertEquals(NFA.isWordValid(word.toString()), lazyDfa.matches(word), word.toString());
+    }
+    // Only reachable subsets are ever built: 2^6 of them, not 2^7
+    Assertions.assertTrue(lazyDfa.getCachedStates() <= 64);
+    Assertions.assertEquals(0, lazyDfa.getEvictions());
+
+    // A tiny budget keeps the cache bounded and falls back to NFA simulation when it thrashes
+    FiniteAutomaton largeNFA = nthFromEndIsA(40);
+    LazyDfa boundedDfa = largeNFA.toLazyDFA(0);
+    String tail = "ab".repeat(200);
+    String word = tail + "a" + "b".repeat(39);
+    Assertions.assertTrue(boundedDfa.matches(word));
+    Assertions.assertFalse(boundedDfa.matches(word + "b"));
+    Assertions.assertTrue(boundedDfa.getCachedStates() <= boundedDfa.getCapacity());
+    Assertions.assertTrue(boundedDfa.getEvictions() > 0);
+    Assertions.assertTrue(boundedDfa.getFallbacks() > 0);
+  }
+
+  @Test
+  void validateWords() throws IOException {
+    FiniteAutomaton FA = Grammar.createBaseGrammar().toFiniteAutomaton();
+    Random random = new Random(3);
+    List<String> words = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      StringBuilder word = new StringBuilder("c");
+      int length = random.nextInt(10);
+      for (int j = 0; j < length; j++) {
+        word.append("bcefmn".charAt(random.nextInt(6)));
+      }
+      words.add(word.toString());
+    }
+
+    BitSet expected = new BitSet();
+    for (int i = 0; i < words.size(); i++) {
+      expected.set(i, FA.isWordValid(words.get(i)));
+    }
+    Assertions.assertEquals(expected, FA.validateWords(words));
+    Assertions.assertEquals(expected, FA.validateWords(words.stream()));
+    Assertions.assertEquals(expected, FA.validateWords(new LinkedList<>(words)));
+
+    // Longer than one chunk of a stream, which is validated a chunk at a time
+    int count = 150000;
+    BitSet repeated = new BitSet();
+    for (int i = 0; i < count; i++) {
+      repeated.set(i, expected.get(i % words.size()));
+    }
+    Assertions.assertEquals(repeated,
+            FA.validateWords(IntStream.range(0, count).mapToObj(i -> words.get(i % words.size()))));
+
+    Path file = Files.createTempFile("words", ".txt");
+    try {
+      Files.write(file, words);
+      Assertions.assertEquals(expected, FA.validateWords(file));
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  @Test
+  void matcherStreaming() throws IOException {
+    FiniteAutomaton NFA = nthFromEndIsA(100);
+    String input = "ab".repeat(500_000) + "a" + "b".repeat(99);
+
+    Assertions.assertTrue(NFA.isWordValid(new StringReader(input)));
+    Assertions.assertFalse(NFA.isWordValid(new StringReader(input + "b")));
+
+    AutomatonMatcher matcher = NFA.matcher();
+    CharBuffer chars = CharBuffer.wrap(input);
+    for (int start = 0; start < input.length(); start += 4096) {
+      Assertions.assertTrue(matcher.feed(chars.subSequence(start, Math.min(input.length(), start + 4096))));
+    }
+    Assertions.assertTrue(matcher.isAccepting());
+
+    matcher.reset();
+    ByteBuffer bytes = ByteBuffer.wrap(input.getBytes(StandardCharsets.ISO_8859_1));
+    bytes.limit(1000);
+    Assertions.assertTrue(matcher.feed(bytes));
+    bytes.limit(bytes.capacity());
+    Assertions.assertTrue(matcher.feed(bytes));
+    Assertions.assertTrue(matcher.isAccepting());
+
+    Assertions.assertFalse(matcher.reset().feed("abc"));
+    Assertions.assertFalse(matcher.isAlive());
+    Assertions.assertFalse(matcher.isAccepting());
+  }
+
+  @Test
+  void searcher() {
+    FiniteAutomaton FA = new FiniteAutomaton(
+            new String[]{"q0", "q1", "q2"},
+            new String[]{"a", "b"},
+            new Transition[]{
+                    new Transition("q0", "a", "q1"),
+                    new Transition("q1", "b", "q2"),
+                    new Transition("q2", "b", "q2"),
+            },
+            "q0",
+            new String[]{"q2"}
+    );
+    AutomatonSearcher searcher = FA.searcher();
+    Assertions.assertArrayEquals(new int[]{3, 4, 7, 9}, searcher.findMatchEnds("xabbyabab"));
+
+    long[] matches = searcher.findLeftmostLongest("xabbyabab");
+    Assertions.assertEquals(3, matches.length);
+    Assertions.assertEquals(1, AutomatonSearcher.matchStart(matches[0]));
+    Assertions.assertEquals(4, AutomatonSearcher.matchEnd(matches[0]));
+    Assertions.assertEquals(5, AutomatonSearcher.matchStart(matches[1]));
+    Assertions.assertEquals(7, AutomatonSearcher.matchEnd(matches[1]));
+    Assertions.assertEquals(7, AutomatonSearcher.matchStart(matches[2]));
+    Assertions.assertEquals(9, AutomatonSearcher.matchEnd(matches[2]));
+
+    // a|a*b over a run of a's: every match has to look to the end of the text for a b
+    FiniteAutomaton lookahead = new FiniteAutomaton(
+            new String[]{"q0", "q1", "q2"},
+            new String[]{"a", "b"},
+            new Transition[]{
+                    new Transition("q0", "a", "q1"),
+                    new Transition("q0", "a", "q2"),
+                    new Transition("q0", "b", "q1"),
+                    new Transition("q2", "a", "q2"),
+                    new Transition("q2", "b", "q1"),
+            },
+            "q0",
+            new String[]{"q1"}
+    );
+    long[] run = lookahead.searcher().findLeftmostLongest("a".repeat(200000));
+    Assertions.assertEquals(200000, run.length);
+    Assertions.assertEquals(199999, AutomatonSearcher.matchStart(run[199999]));
+    long[] withB = lookahead.searcher().findLeftmostLongest("aaab" + "a".repeat(3));
+    Assertions.assertEquals(4, withB.length);
+    Assertions.assertEquals(4, AutomatonSearcher.matchEnd(withB[0]));
+  }
+
+  @Test
+  void searcherMatchesBruteForce() {
+    Random random = new Random(11);
+    for (int i = 0; i < 200; i++) {
+      int stateCount = 1 + random.nextInt(5);
+      String[] states = new String[stateCount];
+      for (int j = 0; j < stateCount; j++) {
+        states[j] = "q" + j;
+      }
+      Transition[] transitions = new Transition[random.nextInt(3 * stateCount)];
+      for (int j = 0; j < transitions.length; j++) {
+        transitions[j] = new Transition(states[random.nextInt(stateCount)], random.nextBoolean() ? "a" : "b",
+                states[random.nextInt(stateCount)]);
+      }
+      FiniteAutomaton FA = new FiniteAutomaton(states, new String[]{"a", "b"}, transitions, "q0",
+              new String[]{states[random.nextInt(stateCount)]});
+
+      StringBuilder text = new StringBuilder();
+      int length = random.nextInt(12);
+      for (int j = 0; j < length; j++) {
+        text.append("abx".charAt(random.nextInt(3)));
+      }
+
+      List<Integer> expectedEnds = new ArrayList<>();
+      for (int end = 0; end <= text.length(); end++) {
+        for (int start = 0; start <= end; start++) {
+          if (FA.isWordValid(text.substring(start, end))) {
+            expectedEnds.add(end);
+            break;
+          }
+        }
+      }
+      Assertions.assertArrayEquals(expectedEnds.stream().mapToInt(Integer::intValue).toArray(),
+              FA.searcher().findMatchEnds(text));
+
+      List<Long> expectedMatches = new ArrayList<>();
+      int position = 0;
+      search:
+      while (position <= text.length()) {
+        for (int start = position; start <= text.length(); start++) {
+          for (int end = text.length(); end >= start; end--) {
+            if (FA.isWordValid(text.substring(start, end))) {
+              expectedMatches.add(((long) start << 32) | end);
+              position = end == start ? end + 1 : end;
+              continue search;
+            }
+          }
+        }
+        break;
+      }
+      Assertions.assertArrayEquals(expectedMatches.stream().mapToLong(Long::longValue).toArray(),
+              FA.searcher().findLeftmostLongest(text), text.toString());
+    }
+  }
+
   @Test
   void convertToRegularGrammar() {
     FiniteAutomaton FA = FiniteAutomaton.createBaseFiniteAutomaton();
@@ -60,6 +342,84 @@ class FiniteAutomatonTest {
     FiniteAutomaton DFA = FA.convertToDFA();
     Assertions.assertArrayEquals(DFA.getAlphabet(), new String[]{"a", "b"});
     Assertions.assertArrayEquals(DFA.getInitialState().toCharArray(), "q0".toCharArray());
+    Assertions.assertTrue(DFA.isDeterministic());
+    Assertions.assertArrayEquals(DFA.getStates(), new String[]{"q0", "q1", "[q1, q2]", "q4", "[q1, q2, q3]", "[q1, q4]"});
+    Assertions.assertArrayEquals(DFA.getFinalStates(), new String[]{"q4", "[q1, q4]"});
+    for (String word : new String[]{"aba", "abba", "abbbaba", "ab", "abab", "b", ""}) {
+      Assertions.assertEquals(FA.isWordValid(word), DFA.isWordValid(word), word);
+    }
+
+    // Only the 2^8 reachable subsets are built, not all 2^9 subsets of the power set
+    FiniteAutomaton smallDFA = nthFromEndIsA(8).convertToDFA();
+    Assertions.assertEquals(256, smallDFA.getStates().length);
+    Assertions.assertTrue(smallDFA.isWordValid("ba" + "b".repeat(7)));
+    Assertions.assertFalse(smallDFA.isWordValid("b".repeat(8)));
+  }
+
+  @Test
+  void minimize() {
+    // Counts a's modulo 2, with both parities duplicated
+    FiniteAutomaton DFA = new FiniteAutomaton(
+            new String[]{"p0", "p1", "r0", "r1"},
+            new String[]{"a", "b"},
+            new Transition[]{
+                    new Transition("p0", "a", "p1"),
+                    new Transition("p0", "b", "r0"),
+                    new Transition("p1", "a", "r0"),
+                    new Transition("p1", "b", "r1"),
+                    new Transition("r0", "a", "r1"),
+                    new Transition("r0", "b", "p0"),
+                    new Transition("r1", "a", "p0"),
+                    new Transition("r1", "b", "p1"),
+            },
+            "p0",
+            new String[]{"p0", "r0"}
+    );
+    FiniteAutomaton minimal = DFA.minimize();
+    Assertions.assertArrayEquals(new String[]{"p0", "p1"}, minimal.getStates());
+    Assertions.assertArrayEquals(new String[]{"p0"}, minimal.getFinalStates());
+    Assertions.assertTrue(minimal.isWordValid("abba"));
+    Assertions.assertFalse(minimal.isWordValid("abbb"));
+
+    // The determinized base automaton is already minimal
+    FiniteAutomaton FA = FiniteAutomaton.createBaseFiniteAutomaton();
+    Assertions.assertEquals(FA.convertToDFA().getStates().length, FA.minimize().getStates().length);
+
+    Assertions.assertEquals(256, nthFromEndIsA(8).minimize().getStates().length);
+  }
+
+  @Test
+  void minimizeMatchesMoore() {
+    Random random = new Random(7);
+    for (int i = 0; i < 200; i++) {
+      int stateCount = 1 + random.nextInt(8);
+      String[] states = new String[stateCount];
+      for (int j = 0; j < stateCount; j++) {
+        states[j] = "q" + j;
+      }
+      Transition[] transitions = new Transition[random.nextInt(3 * stateCount)];
+      for (int j = 0; j < transitions.length; j++) {
+        transitions[j] = new Transition(states[random.nextInt(stateCount)], random.nextBoolean() ? "a" : "b",
+                states[random.nextInt(stateCount)]);
+      }
+      FiniteAutomaton NFA = new FiniteAutomaton(states, new String[]{"a", "b"}, transitions, "q0",
+              new String[]{states[random.nextInt(stateCount)]});
+
+      DenseDfa dfa = DenseDfa.determinize(NFA.compile());
+      DenseDfa hopcroft = DfaMinimizer.hopcroft(dfa);
+      DenseDfa moore = DfaMinimizer.moore(dfa);
+      Assertions.assertEquals(moore.getStateCount(), hopcroft.getStateCount());
+
+      FiniteAutomaton minimal = NFA.minimize();
+      for (int j = 0; j < 20; j++) {
+        StringBuilder word = new StringBuilder();
+        int length = random.nextInt(8);
+        for (int l = 0; l < length; l++) {
+          word.append(random.nextBoolean() ? 'a' : 'b');
+        }
+        Assertions.assertEquals(NFA.isWordValid(word.toString()), minimal.isWordValid(word.toString()));
+      }
+    }
   }
 
   @Test
@@ -1,12 +1,27 @@
 import automaton.FiniteAutomaton;
 import automaton.Transition;
+import grammar.CYKParser;
 import grammar.ChomskyType;
+import grammar.CompiledGrammar;
+import grammar.EarleyParser;
 import grammar.Grammar;
+import grammar.GrammarPipeline;
+import grammar.GrammarTransformation;
+import grammar.GrammarTransformations;
+import grammar.LALRParser;
+import grammar.LL1Parser;
+import grammar.ParseForest;
+import grammar.ParseTree;
 import grammar.Production;
+import grammar.WordGenerator;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
 
 class GrammarTest {
 
@@ -30,6 +45,28 @@ class GrammarTest {
     }
   }
 
+  @Test
+  void generateWords() {
+    Grammar grammar = Grammar.createBaseGrammar();
+    List<String> words = grammar.generateWords(10000, 7).toList();
+    Assertions.assertEquals(10000, words.size());
+    Assertions.assertEquals(words, grammar.generateWords(10000, 7).toList());
+    Assertions.assertNotEquals(words, grammar.generateWords(10000, 8).toList());
+    EarleyParser parser = new EarleyParser(grammar);
+    for (String word : words) {
+      Assertions.assertTrue(parser.accepts(word), word);
+    }
+
+    // S -> aS is picked 99999 times in 100000: derivations far deeper than the Java stack
+    Production[] productions = new Production[100000];
+    Arrays.fill(productions, new Production("S", "aS"));
+    productions[0] = new Production("S", "b");
+    WordGenerator generator = new WordGenerator(new Grammar(new String[]{"S"}, new String[]{"a", "b"}, productions, "S"));
+    String word = generator.generate(new SplittableRandom(1));
+    Assertions.assertTrue(word.length() > 1000, String.valueOf(word.length()));
+    Assertions.assertTrue(word.matches("a*b"));
+  }
+
   @Test
   void toFiniteAutomaton() {
     Grammar grammar = Grammar.createBaseGrammar();
@@ -124,7 +161,7 @@ class GrammarTest {
     );
 
     grammar.convertToChomskyNormalForm();
-    Assertions.assertArrayEquals(grammar.getNonTerminalVariables(), new String[]{"A", "B", "S", "C", "M", "N", "O"});
+    Assertions.assertArrayEquals(grammar.getNonTerminalVariables(), new String[]{"S", "A", "B", "C", "M", "N", "O"});
     Assertions.assertArrayEquals(grammar.getTerminalVariables(), new String[]{"a", "b"});
     Assertions.assertEquals(grammar.getStartingCharacter(), "S");
     Assertions.assertArrayEquals(Arrays.toString(grammar.getProductions()).toCharArray(), Arrays.toString(new Production[] {
@@ -132,25 +169,474 @@ class GrammarTest {
             new Production("S", "AC"),
             new Production("S", "a"),
             new Production("S", "NC"),
-            new Production("S", "AS"),
             new Production("S", "BC"),
             new Production("S", "b"),
             new Production("S", "OS"),
-            new Production("B", "b"),
-            new Production("B", "OS"),
-            new Production("C", "BA"),
+            new Production("S", "AS"),
             new Production("A", "a"),
             new Production("A", "NC"),
-            new Production("A", "AS"),
             new Production("A", "BC"),
             new Production("A", "b"),
             new Production("A", "OS"),
+            new Production("A", "AS"),
+            new Production("B", "b"),
+            new Production("B", "OS"),
+            new Production("C", "BA"),
             new Production("M", "a"),
             new Production("N", "AS"),
             new Production("O", "b")
             }).toCharArray());
   }
 
+  @Test
+  void convertToChomskyNormalFormKeepsLanguage() {
+    // Several nullable non-terminals, a unit cycle, and a nullable starting symbol on a right-hand side
+    Grammar grammar = new Grammar(
+            new String[] {"S", "A", "B", "C"},
+            new String[] {"a", "b"},
+            new Production[] {
+                    new Production("S", "ASA"),
+                    new Production("S", "aB"),
+                    new Production("S", "C"),
+                    new Production("A", "B"),
+                    new Production("A", "S"),
+                    new Production("B", "b"),
+                    new Production("B", "ε"),
+                    new Production("C", "CaC"),
+                    new Production("C", "ε")
+            },
+            "S"
+    );
+    EarleyParser original = new EarleyParser(grammar);
+    grammar.convertToChomskyNormalForm();
+    // The fresh starting symbol comes after the three that binarization introduces
+    Assertions.assertEquals("P", grammar.getStartingCharacter());
+    CYKParser normalForm = new CYKParser(grammar);
+    for (int length = 0; length <= 6; length++) {
+      for (int bits = 0; bits < 1 << length; bits++) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+          word.append((bits >> i & 1) == 0 ? 'a' : 'b');
+        }
+        Assertions.assertEquals(original.accepts(word.toString()), normalForm.accepts(word.toString()), word.toString());
+      }
+    }
+
+    // 36 terminals in one right-hand side need more fresh non-terminals than there are letters
+    String alphabet = "abcdefghijklmnopqrstuvwxyz0123456789";
+    Grammar longRightSide = new Grammar(new String[] {"S"}, alphabet.split(""),
+            new Production[] {new Production("S", alphabet)}, "S");
+    longRightSide.convertToChomskyNormalForm();
+    Assertions.assertEquals(1 + 36 + 34, longRightSide.getNonTerminalVariables().length);
+    Assertions.assertTrue(new CYKParser(longRightSide).accepts(alphabet));
+    Assertions.assertFalse(new CYKParser(longRightSide).accepts(alphabet.substring(1)));
+
+    // 24 nullable symbols in one right-hand side: binarizing before removing ε-productions keeps this
+    // from being copied 2^24 times
+    Grammar nullableRightSide = new Grammar(new String[] {"S", "A"}, new String[] {"a"},
+            new Production[] {
+                    new Production("S", "A".repeat(24)),
+                    new Production("A", "a"),
+                    new Production("A", "ε")
+            },
+            "S");
+    nullableRightSide.convertToChomskyNormalForm();
+    CYKParser nullableParser = new CYKParser(nullableRightSide);
+    for (int length = 0; length <= 24; length++) {
+      Assertions.assertTrue(nullableParser.accepts("a".repeat(length)));
+    }
+    Assertions.assertFalse(nullableParser.accepts("a".repeat(25)));
+  }
+
+  @Test
+  void chomskyNormalFormPipeline() {
+    Grammar grammar = new Grammar(
+            new String[] {"S", "A", "B"},
+            new String[] {"a", "b"},
+            new Production[] {
+                    new Production("S", "aAB"),
+                    new Production("A", "B"),
+                    new Production("A", "a"),
+                    new Production("B", "ε"),
+                    new Production("B", "bB")
+            },
+            "S"
+    );
+    String before = grammar.toString();
+
+    List<String> stages = new ArrayList<>();
+    Grammar normalForm = GrammarPipeline.chomskyNormalForm()
+            .withListener((stage, result, nanos) -> stages.add(stage))
+            .apply(grammar);
+    Assertions.assertEquals(before, grammar.toString());
+    Assertions.assertEquals(GrammarPipeline.chomskyNormalForm().getStageNames(), stages);
+    Assertions.assertEquals(normalForm.toString(), grammar.toChomskyNormalForm().toString());
+
+    // Stages compose in any grouping
+    GrammarTransformation cleanUp = ((GrammarTransformation) GrammarTransformations::removeEpsilonProductions)
+            .andThen(GrammarTransformations::removeUnitProductions)
+            .andThen(GrammarTransformations::removeUselessSymbols);
+    Assertions.assertEquals(normalForm.toString(), cleanUp.apply(GrammarTransformations.binarize(grammar)).toString());
+    Assertions.assertEquals(before, grammar.toString());
+
+    grammar.convertToChomskyNormalForm();
+    Assertions.assertEquals(normalForm.toString(), grammar.toString());
+  }
+
+  @Test
+  void compile() {
+    Grammar grammar = Grammar.createBaseGrammar();
+    CompiledGrammar compiled = grammar.compile();
+    Assertions.assertSame(compiled, grammar.compile());
+    Assertions.assertEquals(4, compiled.getNonTerminalCount());
+    Assertions.assertEquals(7, compiled.getTerminalCount());
+    Assertions.assertEquals("S", compiled.getSymbolName(compiled.getStart()));
+    Assertions.assertEquals(-1, compiled.getSymbolId("x"));
+
+    // I -> bJ | fI | eK | e, in grammar order
+    int i = compiled.getSymbolId("I");
+    Assertions.assertEquals(4, compiled.getAlternativeCount(i));
+    int[] alternatives = new int[4];
+    for (int k = 0; k < 4; k++) {
+      alternatives[k] = compiled.getAlternative(i, k);
+    }
+    Assertions.assertArrayEquals(new int[]{1, 2, 5, 7}, alternatives);
+    Assertions.assertEquals(2, compiled.getRightSideLength(5));
+    Assertions.assertEquals(compiled.getSymbolId("e"), compiled.getRightSymbol(5, 0));
+    Assertions.assertEquals(compiled.getSymbolId("K"), compiled.getRightSymbol(5, 1));
+    Assertions.assertTrue(compiled.isNonTerminal(compiled.getRightSymbol(5, 1)));
+
+    // Transformations replace the productions, so the grammar is compiled again
+    Grammar contextFree = new Grammar(
+            new String[]{"S", "A"},
+            new String[]{"a"},
+            new Production[]{new Production("S", "A"), new Production("A", "a")},
+            "S"
+    );
+    CompiledGrammar before = contextFree.compile();
+    contextFree.removeInaccessibleSymbols();
+    Assertions.assertNotSame(before, contextFree.compile());
+
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new Grammar(
+            new String[]{"S"}, new String[]{"a"}, new Production[]{new Production("S", "aB")}, "S").compile());
+  }
+
+  @Test
+  void ll1Parser() {
+    // E -> T X, X -> + T X | ε, T -> F Y, Y -> * F Y | ε, F -> ( E ) | a
+    Grammar grammar = new Grammar(
+            new String[] {"E", "X", "T", "Y", "F"},
+            new String[] {"+", "*", "(", ")", "a"},
+            new Production[] {
+                    new Production("E", "TX"),
+                    new Production("X", "+TX"),
+                    new Production("X", "ε"),
+                    new Production("T", "FY"),
+                    new Production("Y", "*FY"),
+                    new Production("Y", "ε"),
+                    new Production("F", "(E)"),
+                    new Production("F", "a")
+            },
+            "E"
+    );
+    LL1Parser parser = new LL1Parser(grammar);
+    Assertions.assertTrue(parser.isLL1(), parser.getConflicts().toString());
+    Assertions.assertEquals(Set.of("(", "a"), parser.getFirst("E"));
+    Assertions.assertEquals(Set.of("+", "ε"), parser.getFirst("X"));
+    Assertions.assertEquals(Set.of(")", "$"), parser.getFollow("X"));
+    Assertions.assertEquals(Set.of("+", ")", "$"), parser.getFollow("T"));
+    Assertions.assertEquals(Set.of("*", "+", ")", "$"), parser.getFollow("F"));
+
+    StringBuilder derivation = new StringBuilder();
+    for (int production : parser.parse("a+a*a")) {
+      derivation.append(grammar.getProductions()[production]).append("; ");
+    }
+    Assertions.assertEquals("E -> TX; T -> FY; F -> a; Y -> ε; X -> +TX; T -> FY; F -> a; Y -> *FY; "
+            + "F -> a; Y -> ε; X -> ε; ", derivation.toString());
+    Assertions.assertArrayEquals(parser.parse("a+a"), parser.parse(new int[] {
+            parser.terminalId("a"), parser.terminalId("+"), parser.terminalId("a")}));
+
+    Assertions.assertTrue(parser.accepts("(a+a)*a"));
+    Assertions.assertFalse(parser.accepts("a+"));
+    Assertions.assertFalse(parser.accepts("(a"));
+    Assertions.assertFalse(parser.accepts("ab"));
+    IllegalArgumentException error = Assertions.assertThrows(IllegalArgumentException.class,
+            () -> parser.parse("a)"));
+    Assertions.assertEquals("Unexpected ')' at position 1, expected one of [$]", error.getMessage());
+
+    // Nesting far deeper than the Java stack would allow for a recursive descent parser
+    int depth = 100_000;
+    String nested = "(".repeat(depth) + "a" + ")".repeat(depth);
+    Assertions.assertEquals(5 * depth + 5, parser.parse(nested).length);
+  }
+
+  @Test
+  void ll1Conflicts() {
+    // I -> eK and I -> e both start with e
+    LL1Parser parser = new LL1Parser(Grammar.createBaseGrammar());
+    Assertions.assertFalse(parser.isLL1());
+    Assertions.assertEquals(List.of("Conflict at (I, e): I -> eK and I -> e"), parser.getConflicts());
+    IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, () -> parser.accepts("cfe"));
+    Assertions.assertEquals("Grammar is not LL(1): Conflict at (I, e): I -> eK and I -> e", e.getMessage());
+    Assertions.assertThrows(IllegalStateException.class, () -> parser.parse("cfenm"));
+
+    // Left-recursive: E -> Eb | a, where predicting E -> Eb on a would never consume input
+    LL1Parser leftRecursive = new LL1Parser(new Grammar(
+            new String[] {"E"},
+            new String[] {"a", "b"},
+            new Production[] {new Production("E", "Eb"), new Production("E", "a")},
+            "E"
+    ));
+    Assertions.assertFalse(leftRecursive.isLL1());
+    Assertions.assertThrows(IllegalStateException.class, () -> leftRecursive.accepts("ab"));
+    Assertions.assertThrows(IllegalStateException.class, () -> leftRecursive.parse(new int[] {0, 1}));
+  }
+
+  @Test
+  void lalrParser() {
+    // Left-recursive: E -> E + T | T, T -> T * F | F, F -> ( E ) | a
+    Grammar grammar = new Grammar(
+            new String[] {"E", "T", "F"},
+            new String[] {"+", "*", "(", ")", "a"},
+            new Production[] {
+                    new Production("E", "E+T"),
+                    new Production("E", "T"),
+                    new Production("T", "T*F"),
+                    new Production("T", "F"),
+                    new Production("F", "(E)"),
+                    new Production("F", "a")
+            },
+            "E"
+    );
+    LALRParser parser = new LALRParser(grammar);
+    Assertions.assertTrue(parser.isLALR1(), parser.getConflicts().toString());
+    Assertions.assertEquals(12, parser.getStateCount());
+
+    StringBuilder reductions = new StringBuilder();
+    for (int production : parser.parse("a+a*a")) {
+      reductions.append(grammar.getProductions()[production]).append("; ");
+    }
+    Assertions.assertEquals("F -> a; T -> F; E -> T; F -> a; T -> F; F -> a; T -> T*F; E -> E+T; ",
+            reductions.toString());
+    Assertions.assertArrayEquals(parser.parse("a*a"), parser.parse(new int[] {
+            parser.terminalId("a"), parser.terminalId("*"), parser.terminalId("a")}));
+
+    Assertions.assertTrue(parser.accepts("(a+a)*a"));
+    Assertions.assertFalse(parser.accepts("a+"));
+    Assertions.assertFalse(parser.accepts("(a"));
+    Assertions.assertFalse(parser.accepts(""));
+    IllegalArgumentException error = Assertions.assertThrows(IllegalArgumentException.class,
+            () -> parser.parse("a)"));
+    // Merged states may reduce on ')' first, so the error shows up once a is reduced to E
+    Assertions.assertEquals("Unexpected ')' at position 1, expected one of [+, $]", error.getMessage());
+
+    // Long left-recursive chains and deep nesting only grow the state stack
+    int length = 100_000;
+    Assertions.assertEquals(3 * length, parser.parse("a" + "+a".repeat(length - 1)).length);
+    Assertions.assertTrue(parser.accepts("(".repeat(length) + "a" + ")".repeat(length)));
+
+    // S -> L = R | R, L -> * R | i, R -> L is LALR(1) but not SLR(1)
+    LALRParser assignments = new LALRParser(new Grammar(
+            new String[] {"S", "L", "R"},
+            new String[] {"=", "*", "i"},
+            new Production[] {
+                    new Production("S", "L=R"),
+                    new Production("S", "R"),
+                    new Production("L", "*R"),
+                    new Production("L", "i"),
+                    new Production("R", "L")
+            },
+            "S"
+    ));
+    Assertions.assertTrue(assignments.isLALR1(), assignments.getConflicts().toString());
+    Assertions.assertTrue(assignments.accepts("*i=**i"));
+    Assertions.assertFalse(assignments.accepts("i=i=i"));
+  }
+
+  @Test
+  void lalrConflicts() {
+    // E -> E + E | a is ambiguous; the conflict is resolved as a shift, which makes + right associative
+    Grammar grammar = new Grammar(
+            new String[] {"E"},
+            new String[] {"+", "a"},
+            new Production[] {
+                    new Production("E", "E+E"),
+                    new Production("E", "a")
+            },
+            "E"
+    );
+    LALRParser parser = new LALRParser(grammar);
+    Assertions.assertEquals(List.of("Shift/reduce conflict in state 4 on +: shift or reduce E -> E+E"),
+            parser.getConflicts());
+    Assertions.assertArrayEquals(new int[] {1, 1, 1, 0, 0}, parser.parse("a+a+a"));
+  }
+
+  @Test
+  void cykParser() {
+    // a^n b^n: S -> AB | AC, C -> SB, A -> a, B -> b
+    Grammar grammar = new Grammar(
+            new String[] {"S", "A", "B", "C"},
+            new String[] {"a", "b"},
+            new Production[] {
+                    new Production("S", "AB"),
+                    new Production("S", "AC"),
+                    new Production("C", "SB"),
+                    new Production("A", "a"),
+                    new Production("B", "b")
+            },
+            "S"
+    );
+    CYKParser parser = new CYKParser(grammar);
+    Assertions.assertTrue(parser.accepts("ab"));
+    Assertions.assertTrue(parser.accepts("aaabbb"));
+    Assertions.assertFalse(parser.accepts(""));
+    Assertions.assertFalse(parser.accepts("aab"));
+    Assertions.assertFalse(parser.accepts("ba"));
+    Assertions.assertFalse(parser.accepts("abc"));
+    Assertions.assertEquals("S(A(a) C(S(A(a) B(b)) B(b)))", parser.parse("aabb").toString());
+    Assertions.assertThrows(IllegalArgumentException.class, () -> parser.parse("abab"));
+
+    // Rows long enough to be split between threads
+    int n = 200;
+    String word = "a".repeat(n) + "b".repeat(n);
+    Assertions.assertTrue(parser.accepts(word));
+    Assertions.assertFalse(parser.accepts(word + "b"));
+    ParseTree tree = parser.parse(word);
+    Assertions.assertEquals(0, tree.getStart());
+    Assertions.assertEquals(2 * n, tree.getEnd());
+
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new CYKParser(Grammar.createBaseGrammar()));
+
+    // S -> ε is only in Chomsky normal form while S appears on no right-hand side
+    Grammar emptyStart = new Grammar(
+            new String[] {"S", "A"},
+            new String[] {"a"},
+            new Production[] {
+                    new Production("S", "ε"),
+                    new Production("S", "a")
+            },
+            "S"
+    );
+    Assertions.assertTrue(new CYKParser(emptyStart).accepts(""));
+    Grammar recursiveEmptyStart = new Grammar(
+            new String[] {"S", "A"},
+            new String[] {"a"},
+            new Production[] {
+                    new Production("S", "ε"),
+                    new Production("S", "AS"),
+                    new Production("A", "a")
+            },
+            "S"
+    );
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new CYKParser(recursiveEmptyStart));
+  }
+
+  @Test
+  void cykParserOnChomskyNormalForm() {
+    Grammar grammar = new Grammar(
+            new String[] {"S", "A", "B", "C", "E"},
+            new String[] {"a", "b"},
+            new Production[] {
+                    new Production("S", "aB"),
+                    new Production("S", "AC"),
+                    new Production("A", "a"),
+                    new Production("A", "ASC"),
+                    new Production("A", "BC"),
+                    new Production("B", "b"),
+                    new Production("B", "bS"),
+                    new Production("C", "ε"),
+                    new Production("C", "BA"),
+                    new Production("E", "bB")
+            },
+            "S"
+    );
+    grammar.convertToChomskyNormalForm();
+    CYKParser parser = new CYKParser(grammar);
+    Assertions.assertTrue(parser.accepts("a"));
+    Assertions.assertTrue(parser.accepts("ab"));
+    Assertions.assertTrue(parser.accepts("bba"));
+    Assertions.assertFalse(parser.accepts(""));
+    // The CNF grammar is ambiguous; the tree takes the first split and left child that derive the word
+    Assertions.assertEquals("S(A(b) S(A(b) S(a)))", parser.parse("bba").toString());
+  }
+
+  @Test
+  void earleyParser() {
+    // E -> E + E | a: the number of trees of a+a+...+a grows with the Catalan numbers
+    EarleyParser parser = new EarleyParser(new Grammar(
+            new String[] {"E"},
+            new String[] {"+", "a"},
+            new Production[] {
+                    new Production("E", "E+E"),
+                    new Production("E", "a")
+            },
+            "E"
+    ));
+    Assertions.assertTrue(parser.accepts("a+a+a"));
+    Assertions.assertFalse(parser.accepts("a+"));
+    Assertions.assertFalse(parser.accepts(""));
+    ParseForest forest = parser.parse("a+a+a+a+a");
+    Assertions.assertTrue(forest.isAmbiguous());
+    Assertions.assertEquals(14, forest.countTrees());
+    Assertions.assertEquals("E", forest.getLabel(forest.getRoot()));
+    Assertions.assertEquals(9, forest.getEnd(forest.getRoot()));
+    Assertions.assertEquals(1, parser.parse("a+a").countTrees());
+    Assertions.assertEquals("E(E(a) + E(a))", parser.parse("a+a").getTree().toString());
+
+    // Catalan(30) trees for 30 operators, kept in a forest that only grows polynomially
+    ParseForest large = parser.parse("a" + "+a".repeat(30));
+    Assertions.assertEquals(3814986502092304L, large.countTrees());
+    Assertions.assertTrue(large.size() < 10_000, String.valueOf(large.size()));
+
+    IllegalArgumentException error = Assertions.assertThrows(IllegalArgumentException.class,
+            () -> parser.parse("a++a"));
+    Assertions.assertEquals("Unexpected '+' at position 2", error.getMessage());
+    error = Assertions.assertThrows(IllegalArgumentException.class, () -> parser.parse("a+"));
+    Assertions.assertEquals("Unexpected end of input at position 2", error.getMessage());
+  }
+
+  @Test
+  void earleyParserNullableAndRecursive() {
+    // S -> A B, A -> a A | ε, B -> b | ε
+    EarleyParser nullable = new EarleyParser(new Grammar(
+            new String[] {"S", "A", "B"},
+            new String[] {"a", "b"},
+            new Production[] {
+                    new Production("S", "AB"),
+                    new Production("A", "aA"),
+                    new Production("A", "ε"),
+                    new Production("B", "b"),
+                    new Production("B", "ε")
+            },
+            "S"
+    ));
+    Assertions.assertTrue(nullable.accepts(""));
+    Assertions.assertTrue(nullable.accepts("aab"));
+    Assertions.assertTrue(nullable.accepts("b"));
+    Assertions.assertFalse(nullable.accepts("ba"));
+    Assertions.assertEquals("S(A(ε) B(ε))", nullable.parse("").getTree().toString());
+    Assertions.assertEquals("S(A(a A(ε)) B(b))", nullable.parse("ab").getTree().toString());
+
+    // Right recursion stays linear with Leo items, left recursion is linear anyway
+    Grammar right = new Grammar(new String[] {"S"}, new String[] {"a"},
+            new Production[] {new Production("S", "aS"), new Production("S", "a")}, "S");
+    Grammar left = new Grammar(new String[] {"S"}, new String[] {"a"},
+            new Production[] {new Production("S", "Sa"), new Production("S", "a")}, "S");
+    String word = "a".repeat(100_000);
+    Assertions.assertTrue(new EarleyParser(right).accepts(word));
+    Assertions.assertTrue(new EarleyParser(left).accepts(word));
+    ParseForest chain = new EarleyParser(left).parse(word);
+    Assertions.assertEquals(1, chain.countTrees());
+    Assertions.assertEquals(100_000, chain.getTree().getEnd());
+
+    // S -> S | a derives a through cycles of any length
+    EarleyParser cyclic = new EarleyParser(new Grammar(new String[] {"S"}, new String[] {"a"},
+            new Production[] {new Production("S", "S"), new Production("S", "a")}, "S"));
+    ParseForest forest = cyclic.parse("a");
+    Assertions.assertEquals(-1, forest.countTrees());
+    Assertions.assertEquals("S(a)", forest.getTree().toString());
+  }
+
   @Test
   void testToString() {
     Grammar grammar = Grammar.createBaseGrammar();
@@ -0,0 +1,162 @@
+import lexer.Diagnostic;
+import lexer.Lexer;
+import lexer.Token;
+import lexer.TokenStream;
+import lexer.TokenType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+class LexerTest {
+
+  @Test
+  void tokenize() {
+    List<Token> tokens = new Lexer("if(a==b){return true;}else{return false;}").tokenize();
+    Assertions.assertEquals("[(IF, if), (LEFT_PAREN, (), (IDENTIFIER, a), (EQUALS, ==), (IDENTIFIER, b), "
+            + "(RIGHT_PAREN, )), (LEFT_BRACE, {), (RETURN, return), (WHITESPACE,  ), (BOOLEAN, true), "
+            + "(SEMICOLON, ;), (RIGHT_BRACE, }), (ELSE, else), (LEFT_BRACE, {), (RETURN, return), "
+            + "(WHITESPACE,  ), (BOOLEAN, false), (SEMICOLON, ;), (RIGHT_BRACE, }), (END_OF_INPUT, )]",
+            tokens.toString());
+  }
+
+  @Test
+  void tokenizeLongestMatchAndPriority() {
+    List<Token> tokens = new Lexer("println printx 3.14 42 \"a\" + \"b\" 'c' <= !").tokenize();
+    Assertions.assertEquals(List.of(
+            TokenType.PRINTLN, TokenType.WHITESPACE, TokenType.IDENTIFIER, TokenType.WHITESPACE,
+            TokenType.FLOAT, TokenType.WHITESPACE, TokenType.INT, TokenType.WHITESPACE,
+            TokenType.STRING, TokenType.WHITESPACE, TokenType.PLUS, TokenType.WHITESPACE,
+            TokenType.STRING, TokenType.WHITESPACE, TokenType.CHAR, TokenType.WHITESPACE,
+            TokenType.LESS_THAN_OR_EQUAL_TO, TokenType.WHITESPACE, TokenType.NOT, TokenType.END_OF_INPUT
+    ), tokens.stream().map(Token::getType).toList());
+    Assertions.assertEquals("\"a\"", tokens.get(8).getLexeme());
+  }
+
+  @Test
+  void tokenizeInvalidInput() {
+    IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new Lexer("a = #;").tokenize());
+    Assertions.assertEquals("Invalid input at position 4", exception.getMessage());
+  }
+
+  @Test
+  void nextToken() {
+    Lexer lexer = new Lexer("x = 1;");
+    Assertions.assertEquals("(IDENTIFIER, x)", lexer.nextToken().toString());
+    Assertions.assertEquals(TokenType.WHITESPACE, lexer.nextToken().getType());
+    Assertions.assertEquals(TokenType.ASSIGNMENT, lexer.nextToken().getType());
+    Assertions.assertEquals(TokenType.WHITESPACE, lexer.nextToken().getType());
+    Assertions.assertEquals("(INT, 1)", lexer.nextToken().toString());
+    Assertions.assertEquals(TokenType.SEMICOLON, lexer.nextToken().getType());
+    Assertions.assertEquals(TokenType.END_OF_INPUT, lexer.nextToken().getType());
+    Assertions.assertEquals(TokenType.END_OF_INPUT, lexer.nextToken().getType());
+  }
+
+  @Test
+  void tokenizeReader() {
+    StringBuilder program = new StringBuilder();
+    for (int i = 0; i < 2000; i++) {
+      program.append("while(counter").append(i).append(" <= 3.25){print \"").append("s".repeat(i % 50))
+              .append("\";}\n");
+    }
+    // A long token forces the sliding buffer to grow
+    program.append("x".repeat(20000));
+
+    // Short reads make tokens span buffer refills
+    Reader reader = new FilterReader(new StringReader(program.toString())) {
+      @Override
+      public int read(char[] buffer, int offset, int length) throws IOException {
+        return super.read(buffer, offset, Math.min(length, 7));
+      }
+    };
+
+    List<Token> streamed = new ArrayList<>();
+    Lexer lexer = new Lexer(reader);
+    Token token;
+    do {
+      token = lexer.nextToken();
+      streamed.add(token);
+    } while (token.getType() != TokenType.END_OF_INPUT);
+
+    Assertions.assertEquals(new Lexer(program.toString()).tokenize().toString(), streamed.toString());
+  }
+
+  @Test
+  void tokenizeReaderInvalidInput() {
+    String program = "a = 1;\n".repeat(3000) + "b = #;";
+    IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new Lexer(new StringReader(program)).tokenize());
+    Assertions.assertEquals("Invalid input at position " + program.indexOf('#'), exception.getMessage());
+  }
+
+  @Test
+  void tokenizeCompact() {
+    String program = "while (i <= 10) { print \"i = \"; i = i + 1; }";
+    List<Token> tokens = new Lexer(program).tokenize();
+
+    TokenStream stream = new Lexer(program).tokenizeCompact(false);
+    Assertions.assertEquals(tokens.size(), stream.size());
+    for (int i = 0; i < stream.size(); i++) {
+      Assertions.assertEquals(tokens.get(i).toString(), stream.getToken(i).toString());
+    }
+    Assertions.assertEquals(6, stream.getStart(2));
+    Assertions.assertEquals(TokenType.END_OF_INPUT, stream.getType(stream.size() - 1));
+
+    TokenStream skipped = new Lexer(new StringReader(program)).tokenizeCompact(true);
+    Assertions.assertEquals(program, skipped.getSource().toString());
+    Assertions.assertEquals(
+            tokens.stream().filter(token -> token.getType() != TokenType.WHITESPACE).map(Token::toString).toList(),
+            IntStream.range(0, skipped.size()).mapToObj(i -> skipped.getToken(i).toString()).toList());
+    Assertions.assertEquals("\"i = \"", skipped.getLexeme(8));
+  }
+
+  @Test
+  void tokenizeCompactReaderDiagnostics() {
+    // Skipped characters stay in the rebuilt source, so the offsets of later tokens still point at them
+    List<Diagnostic> diagnostics = new ArrayList<>();
+    Lexer lexer = new Lexer(new StringReader("x @ yy"));
+    lexer.setDiagnostics(diagnostics);
+    TokenStream stream = lexer.tokenizeCompact(true);
+    Assertions.assertEquals("x @ yy", stream.getSource().toString());
+    Assertions.assertEquals("yy", stream.getLexeme(1));
+    Assertions.assertEquals(4, stream.getStart(1));
+    Assertions.assertEquals(1, diagnostics.size());
+
+    // A run of invalid characters longer than a short read is dropped from the buffer before the next token
+    String program = "a = 1;" + "#".repeat(20) + "b = 2;";
+    Reader reader = new FilterReader(new StringReader(program)) {
+      @Override
+      public int read(char[] buffer, int offset, int length) throws IOException {
+        return super.read(buffer, offset, Math.min(length, 3));
+      }
+    };
+    lexer = new Lexer(reader);
+    lexer.setDiagnostics(diagnostics);
+    stream = lexer.tokenizeCompact(false);
+    Assertions.assertEquals(program, stream.getSource().toString());
+    Assertions.assertEquals("b", stream.getLexeme(6));
+    Assertions.assertEquals(program.indexOf('b'), stream.getStart(6));
+  }
+
+  @Test
+  void tokenizeParallel() {
+    StringBuilder program = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      program.append(i % 7 == 0 ? "\n  \n" : "\n").append("x").append(i).append(" = \"a;b\" + 'c';");
+    }
+    String text = program.toString();
+    Assertions.assertEquals(new Lexer(text).tokenize().toString(), new Lexer(text).tokenizeParallel().toString());
+
+    String invalid = text.substring(0, 300000) + "#" + text.substring(300000) + "#";
+    IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new Lexer(invalid).tokenizeParallel());
+    Assertions.assertEquals("Invalid input at position 300000", exception.getMessage());
+  }
+}
@@ -0,0 +1,265 @@
+import lexer.Diagnostic;
+import lexer.Lexer;
+import lexer.Token;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import parser.FlatAst;
+import parser.IncrementalParser;
+import parser.Parser;
+import parser.ast.*;
+
+import java.util.List;
+import java.util.Random;
+
+class ParserTest {
+
+  @Test
+  void parse() {
+    Program program = new Parser(new Lexer("while(i<10){print i;i++;}")).parse();
+    Spans spans = Spans.of(program);
+    WhileStatement loop = (WhileStatement) program.getStatements().get(0);
+    Assertions.assertEquals(0, spans.getStart(loop));
+    Assertions.assertEquals(25, spans.getEnd(loop));
+
+    BinaryExpression condition = (BinaryExpression) loop.getCondition();
+    Assertions.assertEquals(Operator.LESS_THAN, condition.getOperator());
+    Assertions.assertEquals("i", ((Identifier) condition.getLeft()).getName());
+    Assertions.assertEquals("10", ((Literal) condition.getRight()).getText());
+
+    Block body = loop.getBody();
+    Assertions.assertEquals(11, spans.getStart(body));
+    Assertions.assertEquals(2, body.getStatements().size());
+    Assertions.assertEquals(20, spans.getStart(body.getStatements().get(1)));
+    // Offsets are counted from the end of the previous sibling, or from the start of the parent
+    Assertions.assertEquals(1, body.getOffset());
+    Assertions.assertEquals(0, body.getStatements().get(1).getOffset());
+    Assertions.assertEquals(1, body.getStatements().get(0).getOffset());
+    UnaryExpression increment = (UnaryExpression) ((ExpressionStatement) body.getStatements().get(1)).getExpression();
+    Assertions.assertEquals(Operator.INCREMENT, increment.getOperator());
+    Assertions.assertTrue(increment.isPostfix());
+  }
+
+  @Test
+  void parseIfElse() {
+    IfStatement statement = (IfStatement) new Parser(new Lexer("if(a==b){return true;}else{return false;}"))
+            .parse().getStatements().get(0);
+    Assertions.assertEquals(Operator.EQUALS, ((BinaryExpression) statement.getCondition()).getOperator());
+    ReturnStatement otherwise = (ReturnStatement) ((Block) statement.getElseBranch()).getStatements().get(0);
+    Assertions.assertEquals("false", otherwise.getValue().getLabel());
+    Assertions.assertEquals("ReturnStatement {\n\tLiteral {\n\t\tValue: false\n\t}\n}\n", otherwise.toString());
+  }
+
+  @Test
+  void parseFlat() {
+    FlatAst ast = new Parser(new Lexer("x = 1 + 2 * y;")).parseFlat();
+    Assertions.assertEquals(8, ast.size());
+    int root = ast.getRoot();
+    Assertions.assertEquals(NodeKind.PROGRAM, ast.getKind(root));
+
+    int assignment = ast.getChild(root, 0);
+    int sum = ast.getChild(assignment, 1);
+    Assertions.assertEquals(Operator.ADD, ast.getOperator(sum));
+    Assertions.assertEquals(4, ast.getStart(sum));
+    Assertions.assertEquals(13, ast.getEnd(sum));
+    Assertions.assertEquals(Operator.MULTIPLY, ast.getOperator(ast.getChild(sum, 1)));
+    Assertions.assertEquals("y", ast.getValue(ast.getChild(ast.getChild(sum, 1), 1)));
+
+    Assertions.assertEquals(new Parser(new Lexer("x = 1 + 2 * y;")).parse().toString(), ast.toTree().toString());
+  }
+
+  @Test
+  void parseInvalidInput() {
+    IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new Parser(new Lexer("print ;")).parse());
+    Assertions.assertEquals("Unexpected token: (SEMICOLON, ;)", exception.getMessage());
+  }
+
+  @Test
+  void parseProgram() {
+    String source = """
+            x = 1 + 2 * 3 - 4;
+            if (x >= 3 && !done || x == 0) {
+              while (x < 10) { print x; { x++; } }
+            } else if (x != 1) {
+              print "one";
+            } else {
+              return;
+            }
+            print (1 + 2) * -x % 2;
+            """;
+    Program program = new Parser(new Lexer(source)).parse();
+    Assertions.assertEquals(3, program.getStatements().size());
+
+    // ((1 + (2 * 3)) - 4)
+    BinaryExpression sum = (BinaryExpression) ((AssignmentStatement) program.getStatements().get(0)).getValue();
+    Assertions.assertEquals(Operator.SUBTRACT, sum.getOperator());
+    Assertions.assertEquals(Operator.ADD, ((BinaryExpression) sum.getLeft()).getOperator());
+    Assertions.assertEquals(Operator.MULTIPLY,
+            ((BinaryExpression) ((BinaryExpression) sum.getLeft()).getRight()).getOperator());
+
+    // ((x >= 3) && !done) || (x == 0)
+    IfStatement statement = (IfStatement) program.getStatements().get(1);
+    BinaryExpression condition = (BinaryExpression) statement.getCondition();
+    Assertions.assertEquals(Operator.OR, condition.getOperator());
+    Assertions.assertEquals(Operator.AND, ((BinaryExpression) condition.getLeft()).getOperator());
+    Assertions.assertEquals(Operator.EQUALS, ((BinaryExpression) condition.getRight()).getOperator());
+
+    WhileStatement loop = (WhileStatement) statement.getThenBlock().getStatements().get(0);
+    Assertions.assertEquals(NodeKind.BLOCK, loop.getBody().getStatements().get(1).getKind());
+    IfStatement elseIf = (IfStatement) statement.getElseBranch();
+    Assertions.assertNull(((ReturnStatement) ((Block) elseIf.getElseBranch()).getStatements().get(0)).getValue());
+
+    // (((1 + 2) * -x) % 2)
+    BinaryExpression printed = (BinaryExpression) ((PrintStatement) program.getStatements().get(2)).getExpression();
+    Assertions.assertEquals(Operator.MODULO, printed.getOperator());
+    BinaryExpression product = (BinaryExpression) printed.getLeft();
+    Assertions.assertEquals(Operator.ADD, ((BinaryExpression) product.getLeft()).getOperator());
+    Assertions.assertEquals(Operator.NEGATE, ((UnaryExpression) product.getRight()).getOperator());
+    Assertions.assertEquals(source.indexOf("(1 + 2)"), Spans.of(program).getStart(product));
+  }
+
+  @Test
+  void parseUnclosedBlock() {
+    IllegalArgumentException exception = Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new Parser(new Lexer("while (x) { print x;")).parse());
+    Assertions.assertEquals("Expected token of type RIGHT_BRACE, but found END_OF_INPUT", exception.getMessage());
+  }
+
+  @Test
+  void incrementalEdits() {
+    String[] statements = {"x = 1 + 2;", "print x;", "if (a == b) { return true; } else { return 12.5; }",
+            "while (i < 10) { print \"i\"; i++; }", "{ y = -x * 3; }", "if (y) { print y; }"};
+    String[] insertions = {"", " ", "1", "+", ";", "}", "{", "x", "\"", "else { }", "print z;", "\n", ".5", "("};
+    Random random = new Random(7);
+
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < 40; i++) {
+      source.append(statements[random.nextInt(statements.length)]).append('\n');
+    }
+    IncrementalParser parser = new IncrementalParser(source.toString());
+
+    int applied = 0;
+    for (int edit = 0; edit < 2000; edit++) {
+      String before = parser.getSource().toString();
+      int offset = random.nextInt(before.length() + 1);
+      int removed = random.nextInt(Math.min(4, before.length() - offset) + 1);
+      String inserted = insertions[random.nextInt(insertions.length)];
+      String after = before.substring(0, offset) + inserted + before.substring(offset + removed);
+
+      Program expected;
+      try {
+        expected = new Parser(new Lexer(after)).parse();
+      } catch (IllegalArgumentException e) {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> parser.edit(offset, removed, inserted));
+        Assertions.assertEquals(before, parser.getSource().toString());
+        continue;
+      }
+      Program edited = parser.edit(offset, removed, inserted);
+      Assertions.assertEquals(describe(expected), describe(edited));
+      Spans spans = Spans.of(edited);
+      for (int i = 0; i < edited.getStatements().size(); i++) {
+        Assertions.assertEquals(spans.getStart(edited.getStatements().get(i)), parser.getStatementStart(i));
+      }
+      List<Token> tokens = new Lexer(after).tokenize();
+      Assertions.assertEquals(tokens.size() - 1, parser.getLexer().size());
+      for (int i = 0; i < tokens.size(); i++) {
+        Token token = parser.getLexer().getToken(i);
+        Assertions.assertEquals(tokens.get(i).toString(), token.toString());
+        Assertions.assertEquals(tokens.get(i).getStart(), token.getStart());
+      }
+      applied++;
+    }
+    Assertions.assertTrue(applied > 100);
+  }
+
+  @Test
+  void incrementalEditReusesStatements() {
+    String source = "x = 1;\nprint x;\n".repeat(1000);
+    IncrementalParser parser = new IncrementalParser(source);
+    Statement last = parser.getAST().getStatements().get(1999);
+    int lastStart = parser.getStatementStart(1999);
+
+    // Longer text: later statements are the very same objects, only their start moved
+    Program program = parser.edit(source.indexOf("1;"), 1, "42");
+    Assertions.assertTrue(parser.getReparsedStatements() <= 2);
+    Assertions.assertTrue(parser.getLexer().getRelexedTokens() <= 3);
+    Assertions.assertEquals("42", ((AssignmentStatement) program.getStatements().get(0)).getValue().getLabel());
+    Assertions.assertSame(last, program.getStatements().get(1999));
+    Assertions.assertEquals(lastStart + 1, parser.getStatementStart(1999));
+    Assertions.assertEquals(lastStart + 1, Spans.of(program).getStart(last));
+
+    // A statement inserted and deleted again
+    int offset = parser.getSource().toString().indexOf("print x");
+    program = parser.edit(offset, 0, "y = 2;\n");
+    Assertions.assertEquals(2001, program.getStatements().size());
+    Assertions.assertSame(last, program.getStatements().get(2000));
+    Assertions.assertEquals(lastStart + 8, Spans.of(program).getStart(last));
+    program = parser.edit(offset, 7, "");
+    Assertions.assertEquals(2000, program.getStatements().size());
+    Assertions.assertSame(last, program.getStatements().get(1999));
+    Assertions.assertEquals(lastStart + 1, parser.getStatementStart(1999));
+
+    // Same length
+    program = parser.edit(offset + 6, 1, "y");
+    Assertions.assertSame(last, program.getStatements().get(1999));
+    Assertions.assertEquals("y", ((PrintStatement) program.getStatements().get(1)).getExpression().getLabel());
+  }
+
+  // Kind, span and label of every node, in pre-order
+  private static String describe(Program program) {
+    return describe(program, Spans.of(program));
+  }
+
+  private static String describe(Node node, Spans spans) {
+    StringBuilder out = new StringBuilder();
+    out.append(node.getKind()).append('[').append(spans.getStart(node)).append(',').append(spans.getEnd(node))
+            .append(']');
+    if (node.getLabel() != null) {
+      out.append(node.getLabel());
+    }
+    out.append('(');
+    for (Node child : node.getChildren()) {
+      out.append(describe(child, spans)).append(' ');
+    }
+    return out.append(')').toString();
+  }
+
+  @Test
+  void parseWithRecovery() {
+    String source = """
+            x = 1 + ;
+            print x
+            y = 2 # 3;
+            while (x < 10 { print x; x = ; }
+            if (x <) { print "skipped"; } else { }
+            }
+            print "done";
+            { z = 1;
+            """;
+    Parser parser = new Parser(new Lexer(source));
+    Program program = parser.parseWithRecovery();
+
+    Assertions.assertEquals(List.of(
+            "Unexpected token: (SEMICOLON, ;)",
+            "Expected token of type SEMICOLON, but found IDENTIFIER",
+            "Invalid input at position " + source.indexOf('#'),
+            "Unexpected token: (INT, 3)",
+            "Expected token of type RIGHT_PAREN, but found LEFT_BRACE",
+            "Unexpected token: (SEMICOLON, ;)",
+            "Unexpected token: (RIGHT_PAREN, ))",
+            "Unexpected token: (RIGHT_BRACE, })",
+            "Expected token of type RIGHT_BRACE, but found END_OF_INPUT"
+    ), parser.getDiagnostics().stream().map(Diagnostic::getMessage).toList());
+    Diagnostic missingSemicolon = parser.getDiagnostics().get(1);
+    Assertions.assertEquals(source.indexOf("y = 2"), missingSemicolon.getStart());
+    Assertions.assertEquals(source.indexOf("y = 2") + 1, missingSemicolon.getEnd());
+
+    // print x, y = 2, while with print x only, print "done" and the unclosed block
+    Assertions.assertEquals(List.of(NodeKind.PRINT_STATEMENT, NodeKind.ASSIGNMENT_STATEMENT, NodeKind.WHILE_STATEMENT,
+            NodeKind.PRINT_STATEMENT, NodeKind.BLOCK),
+            program.getStatements().stream().map(Node::getKind).toList());
+    Assertions.assertEquals(1, ((WhileStatement) program.getStatements().get(2)).getBody().getStatements().size());
+
+    Assertions.assertThrows(IllegalArgumentException.class, () -> new Parser(new Lexer(source)).parse());
+  }
+}